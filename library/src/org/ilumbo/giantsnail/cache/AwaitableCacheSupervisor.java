@@ -0,0 +1,16 @@
+package org.ilumbo.giantsnail.cache;
+
+/**
+ * A {@link CacheSupervisor} which can block until an element which is in the process of being added to the cache is
+ * available, so callers neither have to poll {@link #determineObtainOperation(int)} nor create the element themselves.
+ */
+public interface AwaitableCacheSupervisor extends CacheSupervisor {
+	/**
+	 * Determines and returns how an element with the passed identifier must be obtained, like
+	 * {@link #determineObtainOperation(int)} does. However, while the element is in the process of being added to the cache,
+	 * this method waits for that to finish for at most the passed number of milliseconds. Once you call this method, you must
+	 * obey whatever is returned. This method returns {@link #OBTAIN_OPERATION_WAIT_OR_CREATE} only if the timeout elapsed,
+	 * and does not wait at all if the timeout is not positive.
+	 */
+	public abstract int awaitObtainOperation(int identifier, long timeoutMillis) throws InterruptedException;
+}
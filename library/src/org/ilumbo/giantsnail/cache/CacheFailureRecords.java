@@ -0,0 +1,143 @@
+package org.ilumbo.giantsnail.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which elements could not be created, for the implementations of {@link CacheSupervisor}. After a failure, an
+ * element is not created again until its backoff has passed. The backoff starts at the initial backoff and doubles with every
+ * consecutive failure, up to the maximum backoff. Once the element is created successfully, its record is removed.
+ *
+ * Records are replaced rather than changed, so they can be read by any thread without locking. Changing the record of an
+ * identifier from multiple threads at the same time is not supported, and neither is sharing an instance between multiple
+ * supervisors.
+ */
+public class CacheFailureRecords {
+	/**
+	 * The failure of an element.
+	 */
+	protected static final class Record {
+		/**
+		 * The cause of the last failure, or null if it is unknown.
+		 */
+		public final Throwable cause;
+		/**
+		 * The number of consecutive failures.
+		 */
+		public final int failureCount;
+		/**
+		 * Whether the element is being created again.
+		 */
+		public final boolean retrying;
+		/**
+		 * The time after which the element may be created again, in milliseconds (see {@link CacheFailureRecords#getTime()}).
+		 */
+		public final long retryTime;
+		public Record(Throwable cause, int failureCount, long retryTime, boolean retrying) {
+			this.cause = cause;
+			this.failureCount = failureCount;
+			this.retryTime = retryTime;
+			this.retrying = retrying;
+		}
+	}
+	/**
+	 * The backoff after the first failure of an element used by the implementations of {@link CacheSupervisor} by default,
+	 * in milliseconds.
+	 */
+	public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 1000;
+	/**
+	 * The highest backoff used by the implementations of {@link CacheSupervisor} by default, in milliseconds.
+	 */
+	public static final long DEFAULT_MAXIMUM_BACKOFF_MILLIS = 5 * 60 * 1000;
+	protected final long initialBackoffMillis;
+	protected final long maximumBackoffMillis;
+	/**
+	 * The records, by identifier.
+	 */
+	protected final ConcurrentHashMap<Integer, Record> records;
+	/**
+	 * Creates records with the default initial and maximum backoff.
+	 */
+	public CacheFailureRecords() {
+		this(DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAXIMUM_BACKOFF_MILLIS);
+	}
+	/**
+	 * Throws an IllegalArgumentException if the initial backoff is not positive, or if the maximum backoff is lower than the
+	 * initial backoff.
+	 */
+	public CacheFailureRecords(long initialBackoffMillis, long maximumBackoffMillis) {
+		if (initialBackoffMillis <= 0) {
+			throw new IllegalArgumentException("The initial backoff must be positive");
+		}
+		if (maximumBackoffMillis < initialBackoffMillis) {
+			throw new IllegalArgumentException("The maximum backoff must not be lower than the initial backoff");
+		}
+		this.initialBackoffMillis = initialBackoffMillis;
+		this.maximumBackoffMillis = maximumBackoffMillis;
+		records = new ConcurrentHashMap<Integer, Record>();
+	}
+	/**
+	 * Records that the element with the passed identifier could not be created, because of the passed cause (which can be
+	 * null). The element will not be created again until the backoff has passed.
+	 */
+	public void add(int identifier, Throwable cause) {
+		final Record previousRecord = records.get(identifier);
+		final int failureCount = null == previousRecord ? 1 : previousRecord.failureCount + 1;
+		records.put(identifier, new Record(cause, failureCount, getTime() + getBackoff(failureCount), false));
+	}
+	/**
+	 * Returns the backoff after the passed number of consecutive failures.
+	 */
+	protected long getBackoff(int failureCount) {
+		// Double the initial backoff for every failure after the first one, avoiding overflow.
+		if (failureCount - 1 >= Long.numberOfLeadingZeros(initialBackoffMillis) - 1) {
+			return maximumBackoffMillis;
+		}
+		return Math.min(initialBackoffMillis << failureCount - 1, maximumBackoffMillis);
+	}
+	/**
+	 * Returns the cause of the last failure of the element with the passed identifier, or null if the element has not
+	 * failed or the cause is unknown.
+	 */
+	public Throwable getCause(int identifier) {
+		final Record record = records.get(identifier);
+		return null == record ? null : record.cause;
+	}
+	/**
+	 * Returns whether the element with the passed identifier has failed and is not being created again, and its backoff has
+	 * not passed yet.
+	 */
+	public boolean getIsBackingOff(int identifier) {
+		final Record record = records.get(identifier);
+		return null != record && false == record.retrying && getTime() < record.retryTime;
+	}
+	/**
+	 * Returns whether the element with the passed identifier has failed and is not being created again.
+	 */
+	public boolean getIsFailed(int identifier) {
+		final Record record = records.get(identifier);
+		return null != record && false == record.retrying;
+	}
+	/**
+	 * Returns the current time in milliseconds, from a clock which is not affected by changes to the wall clock. Override
+	 * this method to use another clock.
+	 */
+	protected long getTime() {
+		return System.nanoTime() / 1000000l;
+	}
+	/**
+	 * Removes the record of the element with the passed identifier, which was created successfully.
+	 */
+	public void remove(int identifier) {
+		records.remove(identifier);
+	}
+	/**
+	 * Records that the element with the passed identifier, which has failed, is being created again. Its failures are still
+	 * counted, so the backoff grows should it fail again.
+	 */
+	public void startRetry(int identifier) {
+		final Record record = records.get(identifier);
+		if (null != record) {
+			records.put(identifier, new Record(record.cause, record.failureCount, record.retryTime, true));
+		}
+	}
+}
@@ -5,9 +5,16 @@ package org.ilumbo.giantsnail.cache;
  */
 public interface CacheSupervisor {
 	/**
-	 * You must create the element and write it to the cache. Call {@link #finish()} after writing it.
+	 * You must create the element and write it to the cache. Call {@link #finish()} after writing it, or
+	 * {@link #abort(int, Throwable)} if creating it failed.
 	 */
 	public static final int OBTAIN_OPERATION_CREATE_AND_WRITE = 0;
+	/**
+	 * Creating the element failed recently, and should not be attempted again yet. Treat the element as unavailable. Once the
+	 * backoff has passed, {@link #determineObtainOperation(int)} will return {@link #OBTAIN_OPERATION_CREATE_AND_WRITE} to one
+	 * caller.
+	 */
+	public static final int OBTAIN_OPERATION_FAILED = 3;
 	/**
 	 * You should read the element directly from cache.
 	 */
@@ -18,6 +25,13 @@ public interface CacheSupervisor {
 	 * cache.
 	 */
 	public static final int OBTAIN_OPERATION_WAIT_OR_CREATE = 1;
+	/**
+	 * Informs the supervisor that the element with the passed identifier could not be created, because of the passed cause
+	 * (which can be null). This method must be called instead of {@link #finish(int)} if creating an element failed. Until a
+	 * backoff has passed, which grows with every consecutive failure, {@link #OBTAIN_OPERATION_FAILED} is returned for the
+	 * element.
+	 */
+	public abstract void abort(int identifier, Throwable cause);
 	/**
 	 * Determines and returns how an element with the passed identifier must be obtained. Once you call this method, you must
 	 * obey whatever is returned. If this is too much of a commitment, call {@link #peekObtainOperation(int)}.
@@ -28,6 +42,11 @@ public interface CacheSupervisor {
 	 * called after an element is created and written to the cache.
 	 */
 	public abstract void finish(int identifier);
+	/**
+	 * Returns the cause passed to {@link #abort(int, Throwable)} for the element with the passed identifier, or null if the
+	 * element has not failed since it was last created or the cause is unknown.
+	 */
+	public abstract Throwable getFailureCause(int identifier);
 	/**
 	 * Determines and returns how an element with the passed identifier should be obtained if it was to be obtained. If this
 	 * method returns {@link #OBTAIN_OPERATION_READ}, {@link #determineObtainOperation(int)} will also return
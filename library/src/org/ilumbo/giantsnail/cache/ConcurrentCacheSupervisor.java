@@ -0,0 +1,348 @@
+package org.ilumbo.giantsnail.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.ilumbo.giantsnail.mathematics.POTMath;
+
+/**
+ * An implementation of {@link CacheSupervisor} which can be used by many threads at the same time, without the single lock of
+ * {@link SynchronizedCacheSupervisorWrapper}.
+ *
+ * The identifiers are divided over stripes, each of which is a hash table with its own lock (similar to
+ * {@link HashCacheSupervisor}). Every slot of a table is a single long holding both the identifier and the status, so a slot
+ * is always read and written as a whole. Changes are made while holding the lock of the stripe, but reading is done without
+ * locking: {@link #peekObtainOperation(int)} never blocks, and neither does {@link #determineObtainOperation(int)} for known
+ * identifiers. A table which has to grow is copied while holding the lock, and only replaced once the copy is complete.
+ *
+ * Threads waiting in {@link #awaitObtainOperation(int, long)} wait on the lock of the stripe, and are woken up when an element
+ * in that stripe is finished or aborted. Stripes without waiting threads are never notified.
+ */
+public class ConcurrentCacheSupervisor implements AwaitableCacheSupervisor {
+	/**
+	 * A part of the identifiers, with its own hash table and lock. Hold the lock of the stripe itself while changing it.
+	 */
+	protected static final class Stripe {
+		/**
+		 * The number of elements in this stripe.
+		 */
+		public int elementCount;
+		/**
+		 * The slots, each of which is either {@link #SLOT_EMPTY} or the identifier in the upper 32 bits and the status in the
+		 * lower 32 bits. The length is a power of two.
+		 */
+		public volatile AtomicLongArray slots;
+		/**
+		 * The number of threads waiting for an element in this stripe.
+		 */
+		public int waiterCount;
+		public Stripe(int capacity) {
+			slots = new AtomicLongArray(capacity);
+		}
+	}
+	/**
+	 * The default number of stripes.
+	 */
+	public static final int DEFAULT_STRIPE_COUNT = 16;
+	/**
+	 * The value of an unused slot. Used slots are never 0, as the status is never 0.
+	 */
+	protected static final long SLOT_EMPTY = 0;
+	/**
+	 * The status of an element which exists in the cache.
+	 */
+	protected static final int STATUS_AVAILABLE = 2;
+	/**
+	 * The status of an element which is in the process of being added to the cache.
+	 */
+	protected static final int STATUS_CREATING = 1;
+	/**
+	 * The status of an element which could not be created.
+	 */
+	protected static final int STATUS_FAILED = 3;
+	/**
+	 * The elements that could not be created. The record of an element is changed while holding the lock of its stripe.
+	 */
+	protected final CacheFailureRecords failureRecords;
+	/**
+	 * The base-2 logarithm of the number of stripes.
+	 */
+	protected final int stripeBits;
+	protected final Stripe[] stripes;
+	public ConcurrentCacheSupervisor(int[] initialCachedElementsIdentifiers) {
+		this(initialCachedElementsIdentifiers, DEFAULT_STRIPE_COUNT);
+	}
+	/**
+	 * Creates a supervisor with the passed number of stripes, rounded up to a power of two. More stripes means less
+	 * contention between threads which add identifiers. Throws an IllegalArgumentException if the number of stripes is not
+	 * positive.
+	 */
+	public ConcurrentCacheSupervisor(int[] initialCachedElementsIdentifiers, int stripeCount) {
+		this(initialCachedElementsIdentifiers, stripeCount, new CacheFailureRecords());
+	}
+	/**
+	 * Creates a supervisor with the passed number of stripes, which uses the passed records to remember which elements could
+	 * not be created, and for how long {@link #OBTAIN_OPERATION_FAILED} is returned for them. The records must not be used by
+	 * anything else.
+	 */
+	public ConcurrentCacheSupervisor(int[] initialCachedElementsIdentifiers, int stripeCount,
+			CacheFailureRecords failureRecords) {
+		this.failureRecords = failureRecords;
+		if (stripeCount <= 0) {
+			throw new IllegalArgumentException("The number of stripes must be positive");
+		}
+		stripes = new Stripe[stripeCount = POTMath.ceil(stripeCount)];
+		stripeBits = 31 - Integer.numberOfLeadingZeros(stripeCount);
+		// Determine the initial capacity of every stripe, which keeps the tables at most half full.
+		final int initialCapacity = POTMath.ceil((initialCachedElementsIdentifiers.length / stripeCount + 5) << 1);
+		for (int index = 0; stripeCount != index; index++) {
+			stripes[index] = new Stripe(initialCapacity);
+		}
+		// Add the identifiers with an available-status.
+		for (int index = 0; initialCachedElementsIdentifiers.length != index; index++) {
+			final int identifier = initialCachedElementsIdentifiers[index];
+			final Stripe stripe = getStripe(identifier);
+			synchronized (stripe) {
+				if (SLOT_EMPTY == stripe.slots.get(getSlotForIdentifier(stripe.slots, identifier))) {
+					insert(stripe, identifier, STATUS_AVAILABLE);
+				}
+			}
+		}
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void abort(int identifier, Throwable cause) {
+		final Stripe stripe = getStripe(identifier);
+		synchronized (stripe) {
+			final AtomicLongArray slots = stripe.slots;
+			final int slot = getSlotForIdentifier(slots, identifier);
+			// Check sanity.
+			if (SLOT_EMPTY == slots.get(slot)) {
+				throw new IllegalStateException("No element with the passed identifier is known to this cache supervisor");
+			}
+			// Remember the failure before lowering the status, so threads which do not lock see the record.
+			failureRecords.add(identifier, cause);
+			slots.set(slot, createSlotValue(identifier, STATUS_FAILED));
+			// Waiting threads should stop waiting, as the element will not become available.
+			if (0 != stripe.waiterCount) {
+				stripe.notifyAll();
+			}
+		}
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int awaitObtainOperation(int identifier, long timeoutMillis) throws InterruptedException {
+		// Do not lock if there is no need to wait.
+		final int result = determineObtainOperation(identifier);
+		if (OBTAIN_OPERATION_WAIT_OR_CREATE != result) {
+			return result;
+		}
+		// Limit the timeout to about 146 years, so the deadline does not overflow.
+		final long deadline = System.nanoTime() + Math.min(timeoutMillis, (Long.MAX_VALUE >>> 1) / 1000000l) * 1000000l;
+		final Stripe stripe = getStripe(identifier);
+		synchronized (stripe) {
+			while (STATUS_CREATING == getStatus(stripe.slots, identifier)) {
+				// Wait until an element in the stripe is finished or aborted, which might be the element with the passed
+				// identifier.
+				final long remainingMillis = (deadline - System.nanoTime() + 999999l) / 1000000l;
+				if (remainingMillis <= 0) {
+					return OBTAIN_OPERATION_WAIT_OR_CREATE;
+				}
+				stripe.waiterCount++;
+				try {
+					stripe.wait(remainingMillis);
+				} finally {
+					stripe.waiterCount--;
+				}
+			}
+			// Still holding the lock, so the element cannot be claimed by another thread in the meantime.
+			return determineObtainOperation(identifier);
+		}
+	}
+	/**
+	 * Returns the slot value of the passed identifier with the passed status.
+	 */
+	protected static long createSlotValue(int identifier, int status) {
+		return (long) identifier << 32 | status;
+	}
+	/**
+	 * Determines and returns how an element which could not be created must be obtained. If its backoff has passed, the
+	 * element must be created again. Hold the lock of the stripe while calling this method.
+	 */
+	protected int determineFailedObtainOperation(AtomicLongArray slots, int slot, int identifier) {
+		if (failureRecords.getIsBackingOff(identifier)) {
+			return OBTAIN_OPERATION_FAILED;
+		}
+		failureRecords.startRetry(identifier);
+		slots.set(slot, createSlotValue(identifier, STATUS_CREATING));
+		return OBTAIN_OPERATION_CREATE_AND_WRITE;
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int determineObtainOperation(int identifier) {
+		final Stripe stripe = getStripe(identifier);
+		// Try without locking first, as known identifiers never become unknown.
+		final int status = getStatus(stripe.slots, identifier);
+		if (STATUS_AVAILABLE == status) {
+			return OBTAIN_OPERATION_READ;
+		} else if (STATUS_CREATING == status) {
+			return OBTAIN_OPERATION_WAIT_OR_CREATE;
+		} else if (STATUS_FAILED == status && failureRecords.getIsBackingOff(identifier)) {
+			return OBTAIN_OPERATION_FAILED;
+		}
+		synchronized (stripe) {
+			// Check again, as another thread could have added the identifier.
+			final AtomicLongArray slots = stripe.slots;
+			final int slot = getSlotForIdentifier(slots, identifier);
+			final long slotValue = slots.get(slot);
+			// No information could be available at all, in which case the element should be created and written.
+			if (SLOT_EMPTY == slotValue) {
+				insert(stripe, identifier, STATUS_CREATING);
+				return OBTAIN_OPERATION_CREATE_AND_WRITE;
+			// The element could be available in cache, in which case it can simply be read.
+			} else if (STATUS_AVAILABLE == (int) slotValue) {
+				return OBTAIN_OPERATION_READ;
+			// Creating the element could have failed, in which case it is created again once the backoff has passed.
+			} else if (STATUS_FAILED == (int) slotValue) {
+				return determineFailedObtainOperation(slots, slot, identifier);
+			// The element could be in the process of being added, in which case it should be waited for.
+			} else /* if (STATUS_CREATING == (int) slotValue) */ {
+				return OBTAIN_OPERATION_WAIT_OR_CREATE;
+			}
+		}
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void finish(int identifier) {
+		final Stripe stripe = getStripe(identifier);
+		synchronized (stripe) {
+			final AtomicLongArray slots = stripe.slots;
+			final int slot = getSlotForIdentifier(slots, identifier);
+			// Check sanity.
+			if (SLOT_EMPTY == slots.get(slot)) {
+				throw new IllegalStateException("No element with the passed identifier is known to this cache supervisor");
+			}
+			// Raise the status, and forget any failures.
+			slots.set(slot, createSlotValue(identifier, STATUS_AVAILABLE));
+			failureRecords.remove(identifier);
+			if (0 != stripe.waiterCount) {
+				stripe.notifyAll();
+			}
+		}
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Throwable getFailureCause(int identifier) {
+		return failureRecords.getCause(identifier);
+	}
+	/**
+	 * Returns the 32-bit hash of the passed identifier. The upper bits select the stripe, the bits after those the slot.
+	 */
+	protected static int getHash(int identifier) {
+		// Fibonacci hashing spreads sequential identifiers over the stripes and the slots.
+		return identifier * 0x9E3779B9;
+	}
+	/**
+	 * Returns the slot in the passed slots which holds the passed identifier, or the empty slot at which the identifier would
+	 * be added if no slot holds it.
+	 */
+	protected int getSlotForIdentifier(AtomicLongArray slots, int identifier) {
+		final int mask = slots.length() - 1;
+		int slot = getHash(identifier) << stripeBits >>> Integer.numberOfLeadingZeros(slots.length()) + 1;
+		long slotValue;
+		while (SLOT_EMPTY != (slotValue = slots.get(slot)) && identifier != (int) (slotValue >>> 32)) {
+			slot = slot + 1 & mask;
+		}
+		return slot;
+	}
+	/**
+	 * Returns the status of the passed identifier in the passed slots, or 0 if the identifier is unknown.
+	 */
+	protected int getStatus(AtomicLongArray slots, int identifier) {
+		return (int) slots.get(getSlotForIdentifier(slots, identifier));
+	}
+	/**
+	 * Returns the stripe of the passed identifier.
+	 */
+	protected Stripe getStripe(int identifier) {
+		// Shifting an int by 32 does not shift at all, so a single stripe is special.
+		return stripes[0 == stripeBits ? 0 : getHash(identifier) >>> 32 - stripeBits];
+	}
+	/**
+	 * Adds the passed unknown identifier with the passed status to the passed stripe, growing its table if needed. Hold the
+	 * lock of the stripe while calling this method.
+	 */
+	protected void insert(Stripe stripe, int identifier, int status) {
+		AtomicLongArray slots = stripe.slots;
+		// Keep the table at most half full. The new table is filled before it is published, so reading threads see either the
+		// complete old table or the complete new one.
+		if (stripe.elementCount + 1 << 1 > slots.length()) {
+			final AtomicLongArray newSlots = new AtomicLongArray(slots.length() << 1);
+			for (int oldSlot = 0; slots.length() != oldSlot; oldSlot++) {
+				final long slotValue = slots.get(oldSlot);
+				if (SLOT_EMPTY != slotValue) {
+					newSlots.set(getSlotForIdentifier(newSlots, (int) (slotValue >>> 32)), slotValue);
+				}
+			}
+			stripe.slots = slots = newSlots;
+		}
+		slots.set(getSlotForIdentifier(slots, identifier), createSlotValue(identifier, status));
+		stripe.elementCount++;
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int peekObtainOperation(int identifier) {
+		final int status = getStatus(getStripe(identifier).slots, identifier);
+		// The element could be available in cache, in which case it can simply be read.
+		if (STATUS_AVAILABLE == status) {
+			return OBTAIN_OPERATION_READ;
+		// The element could be in the process of being added, in which case it should be waited for.
+		} else if (STATUS_CREATING == status) {
+			return OBTAIN_OPERATION_WAIT_OR_CREATE;
+		// Creating the element could have failed, in which case it is created again once the backoff has passed.
+		} else if (STATUS_FAILED == status) {
+			return failureRecords.getIsBackingOff(identifier) ? OBTAIN_OPERATION_FAILED : OBTAIN_OPERATION_CREATE_AND_WRITE;
+		// No information could be available at all, in which case the element should be created and written.
+		} else /* if (0 == status) */ {
+			return OBTAIN_OPERATION_CREATE_AND_WRITE;
+		}
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int refreshAndDetermineObtainOperation(int identifier) {
+		final Stripe stripe = getStripe(identifier);
+		synchronized (stripe) {
+			final AtomicLongArray slots = stripe.slots;
+			final int slot = getSlotForIdentifier(slots, identifier);
+			final long slotValue = slots.get(slot);
+			// Check sanity.
+			if (SLOT_EMPTY == slotValue) {
+				throw new IllegalStateException("No element with the passed identifier is known to this cache supervisor");
+			// It is possible that another thread also noticed that the element is broken, and already called this method.
+			} else if (STATUS_CREATING == (int) slotValue) {
+				return OBTAIN_OPERATION_WAIT_OR_CREATE;
+			// Creating the element could have failed, in which case it is created again once the backoff has passed.
+			} else if (STATUS_FAILED == (int) slotValue) {
+				return determineFailedObtainOperation(slots, slot, identifier);
+			// If this supervisor actually considered this element to be available in cache, the status is lowered and the
+			// element is recreated and rewritten.
+			} else /* if (STATUS_AVAILABLE == (int) slotValue) */ {
+				slots.set(slot, createSlotValue(identifier, STATUS_CREATING));
+				return OBTAIN_OPERATION_CREATE_AND_WRITE;
+			}
+		}
+	}
+}
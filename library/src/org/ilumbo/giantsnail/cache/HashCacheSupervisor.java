@@ -0,0 +1,229 @@
+package org.ilumbo.giantsnail.cache;
+
+import org.ilumbo.giantsnail.mathematics.POTMath;
+
+/**
+ * An implementation of {@link CacheSupervisor} which keeps the identifiers in a hash table, rather than in a sorted array as
+ * {@link SimpleCacheSupervisor} does. Every operation takes constant time on average, including adding a new identifier,
+ * which makes this implementation the better choice when the cache holds many elements. You should probably make sure only
+ * one thread is using instances of this class at the same time.
+ *
+ * The hash table uses open addressing with linear probing: a status byte per slot marks whether the slot is used, so no
+ * identifier has to be reserved to mark empty slots. The table is kept at most half full.
+ */
+public class HashCacheSupervisor implements CacheSupervisor {
+	/**
+	 * The status of an element which exists in the cache.
+	 */
+	protected static final byte STATUS_AVAILABLE = 2;
+	/**
+	 * The status of an element which is in the process of being added to the cache.
+	 */
+	protected static final byte STATUS_CREATING = 1;
+	/**
+	 * The status of an unused slot.
+	 */
+	protected static final byte STATUS_EMPTY = 0;
+	/**
+	 * The status of an element which could not be created.
+	 */
+	protected static final byte STATUS_FAILED = 3;
+	/**
+	 * The number of elements that exist in the cache, or are in the process of being added to the cache.
+	 */
+	protected int elementCount;
+	/**
+	 * The elements that could not be created.
+	 */
+	protected final CacheFailureRecords failureRecords;
+	/**
+	 * The identifiers of the elements that exist in the cache, or are in the process of being added to the cache, at their
+	 * slots. The length is a power of two.
+	 */
+	protected int[] identifiers;
+	/**
+	 * 32 minus the base-2 logarithm of the number of slots. Shifting a 32-bit hash right by this gives a slot.
+	 */
+	protected int slotShift;
+	/**
+	 * The statusses of the slots. <pre>statusses[slot]</pre> is the status of the element with identifier
+	 * <pre>identifiers[slot]</pre>, or {@link #STATUS_EMPTY} if the slot is not used.
+	 */
+	protected byte[] statusses;
+	public HashCacheSupervisor(int[] initialCachedElementsIdentifiers) {
+		this(initialCachedElementsIdentifiers, new CacheFailureRecords());
+	}
+	/**
+	 * Creates a supervisor which uses the passed records to remember which elements could not be created, and for how long
+	 * {@link #OBTAIN_OPERATION_FAILED} is returned for them. The records must not be used by anything else.
+	 */
+	public HashCacheSupervisor(int[] initialCachedElementsIdentifiers, CacheFailureRecords failureRecords) {
+		this.failureRecords = failureRecords;
+		// Determine the initial capacity, which keeps the table at most half full.
+		final int initialCapacity = POTMath.ceil(initialCachedElementsIdentifiers.length + 5 << 1);
+		identifiers = new int[initialCapacity];
+		statusses = new byte[initialCapacity];
+		slotShift = Integer.numberOfLeadingZeros(initialCapacity) + 1;
+		// Add the identifiers with an available-status.
+		for (int index = 0; initialCachedElementsIdentifiers.length != index; index++) {
+			final int slot = getSlotForIdentifier(initialCachedElementsIdentifiers[index]);
+			if (STATUS_EMPTY == statusses[slot]) {
+				identifiers[slot] = initialCachedElementsIdentifiers[index];
+				statusses[slot] = STATUS_AVAILABLE;
+				elementCount++;
+			}
+		}
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void abort(int identifier, Throwable cause) {
+		final int slot = getSlotForIdentifier(identifier);
+		// Check sanity.
+		if (STATUS_EMPTY == statusses[slot]) {
+			throw new IllegalStateException("No element with the passed identifier is known to this cache supervisor");
+		}
+		// Lower the status, and remember the failure.
+		statusses[slot] = STATUS_FAILED;
+		failureRecords.add(identifier, cause);
+	}
+	/**
+	 * Determines and returns how an element which could not be created must be obtained. If its backoff has passed, the
+	 * element must be created again.
+	 */
+	protected int determineFailedObtainOperation(int slot, int identifier) {
+		if (failureRecords.getIsBackingOff(identifier)) {
+			return OBTAIN_OPERATION_FAILED;
+		}
+		statusses[slot] = STATUS_CREATING;
+		failureRecords.startRetry(identifier);
+		return OBTAIN_OPERATION_CREATE_AND_WRITE;
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int determineObtainOperation(int identifier) {
+		int slot = getSlotForIdentifier(identifier);
+		switch (statusses[slot]) {
+		// No information could be available at all, in which case the element should be created and written.
+		case STATUS_EMPTY:
+			// Keep the table at most half full. After increasing the capacity, the slot must be found again.
+			if (elementCount + 1 << 1 > identifiers.length) {
+				increaseCapacity(identifiers.length << 1);
+				slot = getSlotForIdentifier(identifier);
+			}
+			// Set the status, so calling this method again with the same identifier will return
+			// OBTAIN_OPERATION_WAIT_OR_CREATE.
+			identifiers[slot] = identifier;
+			statusses[slot] = STATUS_CREATING;
+			elementCount++;
+			return OBTAIN_OPERATION_CREATE_AND_WRITE;
+		// The element could be available in cache, in which case it can simply be read.
+		case STATUS_AVAILABLE:
+			return OBTAIN_OPERATION_READ;
+		// Creating the element could have failed, in which case it is created again once the backoff has passed.
+		case STATUS_FAILED:
+			return determineFailedObtainOperation(slot, identifier);
+		// The element could be in the process of being added, in which case it should be waited for.
+		default:
+			return OBTAIN_OPERATION_WAIT_OR_CREATE;
+		}
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void finish(int identifier) {
+		final int slot = getSlotForIdentifier(identifier);
+		// Check sanity.
+		if (STATUS_EMPTY == statusses[slot]) {
+			throw new IllegalStateException("No element with the passed identifier is known to this cache supervisor");
+		}
+		// Raise the status, and forget any failures.
+		statusses[slot] = STATUS_AVAILABLE;
+		failureRecords.remove(identifier);
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Throwable getFailureCause(int identifier) {
+		return failureRecords.getCause(identifier);
+	}
+	/**
+	 * Returns the slot which holds the passed identifier, or the empty slot at which the identifier would be added if no slot
+	 * holds it.
+	 */
+	protected int getSlotForIdentifier(int identifier) {
+		// Fibonacci hashing spreads sequential identifiers over the table.
+		final int mask = identifiers.length - 1;
+		int slot = identifier * 0x9E3779B9 >>> slotShift;
+		while (STATUS_EMPTY != statusses[slot] && identifier != identifiers[slot]) {
+			slot = slot + 1 & mask;
+		}
+		return slot;
+	}
+	/**
+	 * Increases the capacity of the {@link #identifiers} and {@link #statusses} arrays to the passed power of two, moving
+	 * every element to its slot in the larger table.
+	 */
+	protected void increaseCapacity(int newCapacity) {
+		final int[] oldIdentifiers = identifiers;
+		final byte[] oldStatusses = statusses;
+		identifiers = new int[newCapacity];
+		statusses = new byte[newCapacity];
+		slotShift = Integer.numberOfLeadingZeros(newCapacity) + 1;
+		for (int oldSlot = 0; oldStatusses.length != oldSlot; oldSlot++) {
+			if (STATUS_EMPTY != oldStatusses[oldSlot]) {
+				final int slot = getSlotForIdentifier(oldIdentifiers[oldSlot]);
+				identifiers[slot] = oldIdentifiers[oldSlot];
+				statusses[slot] = oldStatusses[oldSlot];
+			}
+		}
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int peekObtainOperation(int identifier) {
+		switch (statusses[getSlotForIdentifier(identifier)]) {
+		// No information could be available at all, in which case the element should be created and written.
+		case STATUS_EMPTY:
+			return OBTAIN_OPERATION_CREATE_AND_WRITE;
+		// The element could be available in cache, in which case it can simply be read.
+		case STATUS_AVAILABLE:
+			return OBTAIN_OPERATION_READ;
+		// Creating the element could have failed, in which case it is created again once the backoff has passed.
+		case STATUS_FAILED:
+			return failureRecords.getIsBackingOff(identifier) ? OBTAIN_OPERATION_FAILED : OBTAIN_OPERATION_CREATE_AND_WRITE;
+		// The element could be in the process of being added, in which case it should be waited for.
+		default:
+			return OBTAIN_OPERATION_WAIT_OR_CREATE;
+		}
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int refreshAndDetermineObtainOperation(int identifier) {
+		final int slot = getSlotForIdentifier(identifier);
+		switch (statusses[slot]) {
+		// Check sanity.
+		case STATUS_EMPTY:
+			throw new IllegalStateException("No element with the passed identifier is known to this cache supervisor");
+		// If this supervisor actually considered this element to be available in cache, the status is lowered and the element
+		// is recreated and rewritten.
+		case STATUS_AVAILABLE:
+			statusses[slot] = STATUS_CREATING;
+			return OBTAIN_OPERATION_CREATE_AND_WRITE;
+		// Creating the element could have failed, in which case it is created again once the backoff has passed.
+		case STATUS_FAILED:
+			return determineFailedObtainOperation(slot, identifier);
+		// It is possible that another thread also noticed that the element is broken, and already called this method.
+		default:
+			return OBTAIN_OPERATION_WAIT_OR_CREATE;
+		}
+	}
+}
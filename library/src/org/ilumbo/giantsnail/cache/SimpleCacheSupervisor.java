@@ -16,6 +16,10 @@ public class SimpleCacheSupervisor implements CacheSupervisor {
 	 * The number of elements that exist in the cache, or are in the process of being added to the cache.
 	 */
 	protected int elementCount;
+	/**
+	 * The elements that could not be created. The statusses of these elements are false.
+	 */
+	protected final CacheFailureRecords failureRecords;
 	/**
 	 * The identifiers of the elements that exist in the cache, or are in the process of being added to the cache. This aray is
 	 * sorted.
@@ -28,6 +32,14 @@ public class SimpleCacheSupervisor implements CacheSupervisor {
 	 */
 	protected boolean[] statusses;
 	public SimpleCacheSupervisor(int[] initialCachedElementsIdentifiers) {
+		this(initialCachedElementsIdentifiers, new CacheFailureRecords());
+	}
+	/**
+	 * Creates a supervisor which uses the passed records to remember which elements could not be created, and for how long
+	 * {@link #OBTAIN_OPERATION_FAILED} is returned for them. The records must not be used by anything else.
+	 */
+	public SimpleCacheSupervisor(int[] initialCachedElementsIdentifiers, CacheFailureRecords failureRecords) {
+		this.failureRecords = failureRecords;
 		elementCount = initialCachedElementsIdentifiers.length;
 		// Determine the initial capacity.
 		final int initialCapacity = POTMath.ceil(elementCount + 5);
@@ -39,6 +51,20 @@ public class SimpleCacheSupervisor implements CacheSupervisor {
 		// Add a true-status for every element.
 		Arrays.fill(statusses = new boolean[identifiers.length], true);
 	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void abort(int identifier, Throwable cause) {
+		final int index = getIndexForIdentifier(identifier);
+		// Check sanity.
+		if (index < 0) {
+			throw new IllegalStateException("No element with the passed identifier is known to this cache supervisor");
+		}
+		// Lower the status, and remember the failure.
+		statusses[index] = false;
+		failureRecords.add(identifier, cause);
+	}
 	/**
 	 * Replacement for {@link Arrays#binarySearch(int[], int, int, int)}.
 	 */
@@ -60,6 +86,17 @@ public class SimpleCacheSupervisor implements CacheSupervisor {
 			return ~high;
 		}
 	}
+	/**
+	 * Determines and returns how an element which could not be created must be obtained. If its backoff has passed, the
+	 * element must be created again.
+	 */
+	protected int determineFailedObtainOperation(int identifier) {
+		if (failureRecords.getIsBackingOff(identifier)) {
+			return OBTAIN_OPERATION_FAILED;
+		}
+		failureRecords.startRetry(identifier);
+		return OBTAIN_OPERATION_CREATE_AND_WRITE;
+	}
 	/**
 	 * {@inheritDoc}
 	 */
@@ -88,6 +125,9 @@ public class SimpleCacheSupervisor implements CacheSupervisor {
 		// The element could be available in cache, in which case it can simply be read.
 		} else if (statusses[index]) {
 			return OBTAIN_OPERATION_READ;
+		// Creating the element could have failed, in which case it is created again once the backoff has passed.
+		} else if (failureRecords.getIsFailed(identifier)) {
+			return determineFailedObtainOperation(identifier);
 		// The element could be in the process of being added, in which case it should be waited for.
 		} else /* if (false == statusses[index]) */ {
 			return OBTAIN_OPERATION_WAIT_OR_CREATE;
@@ -103,8 +143,16 @@ public class SimpleCacheSupervisor implements CacheSupervisor {
 		if (index < 0) {
 			throw new IllegalStateException("No element with the passed identifier is known to this cache supervisor");
 		}
-		// Raise the status.
+		// Raise the status, and forget any failures.
 		statusses[index] = true;
+		failureRecords.remove(identifier);
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Throwable getFailureCause(int identifier) {
+		return failureRecords.getCause(identifier);
 	}
 	/**
 	 * Binary searches for the identifier in the identifiers array, returning the index. You know how binary searching works.
@@ -146,6 +194,9 @@ public class SimpleCacheSupervisor implements CacheSupervisor {
 		// The element could be available in cache, in which case it can simply be read.
 		} else if (statusses[index]) {
 			return OBTAIN_OPERATION_READ;
+		// Creating the element could have failed, in which case it is created again once the backoff has passed.
+		} else if (failureRecords.getIsFailed(identifier)) {
+			return failureRecords.getIsBackingOff(identifier) ? OBTAIN_OPERATION_FAILED : OBTAIN_OPERATION_CREATE_AND_WRITE;
 		// The element could be in the process of being added, in which case it should be waited for.
 		} else /* if (false == statusses[index]) */ {
 			return OBTAIN_OPERATION_WAIT_OR_CREATE;
@@ -160,6 +211,9 @@ public class SimpleCacheSupervisor implements CacheSupervisor {
 		// Check sanity.
 		if (index < 0) {
 			throw new IllegalStateException("No element with the passed identifier is known to this cache supervisor");
+		// Creating the element could have failed, in which case it is created again once the backoff has passed.
+		} else if (false == statusses[index] && failureRecords.getIsFailed(identifier)) {
+			return determineFailedObtainOperation(identifier);
 		// Check the current status. It is possible that another thread also noticed that the element is broken, and already
 		// called this method.
 		} else if (false == statusses[index]) {
@@ -1,6 +1,10 @@
 package org.ilumbo.giantsnail.cache;
 
-public class SynchronizedCacheSupervisorWrapper implements CacheSupervisor {
+/**
+ * Makes a {@link CacheSupervisor} safe to be used by multiple threads at the same time, by holding a single lock during every
+ * call. Threads waiting in {@link #awaitObtainOperation(int, long)} are woken up when an element is finished or aborted.
+ */
+public class SynchronizedCacheSupervisorWrapper implements AwaitableCacheSupervisor {
 	/**
 	 * The wrappee.
 	 */
@@ -9,6 +13,11 @@ public class SynchronizedCacheSupervisorWrapper implements CacheSupervisor {
 	 * Hold this lock while using {@link #wrappee}.
 	 */
 	protected final Object wrappeeLock;
+	/**
+	 * The number of threads waiting in {@link #awaitObtainOperation(int, long)}. If there are none, {@link #finish(int)} and
+	 * {@link #abort(int, Throwable)} do not have to notify. Hold {@link #wrappeeLock} while using this field.
+	 */
+	protected int waiterCount;
 	public SynchronizedCacheSupervisorWrapper(CacheSupervisor wrappee) {
 		this.wrappee = wrappee;
 		wrappeeLock = new Object();
@@ -17,6 +26,45 @@ public class SynchronizedCacheSupervisorWrapper implements CacheSupervisor {
 	 * {@inheritDoc}
 	 */
 	@Override
+	public void abort(int identifier, Throwable cause) {
+		synchronized (wrappeeLock) {
+			wrappee.abort(identifier, cause);
+			if (0 != waiterCount) {
+				wrappeeLock.notifyAll();
+			}
+		}
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int awaitObtainOperation(int identifier, long timeoutMillis) throws InterruptedException {
+		// Limit the timeout to about 146 years, so the deadline does not overflow.
+		final long deadline = System.nanoTime() + Math.min(timeoutMillis, (Long.MAX_VALUE >>> 1) / 1000000l) * 1000000l;
+		synchronized (wrappeeLock) {
+			while (true) {
+				final int result = wrappee.determineObtainOperation(identifier);
+				if (OBTAIN_OPERATION_WAIT_OR_CREATE != result) {
+					return result;
+				}
+				// Wait until an element is finished or aborted, which might be the element with the passed identifier.
+				final long remainingMillis = (deadline - System.nanoTime() + 999999l) / 1000000l;
+				if (remainingMillis <= 0) {
+					return OBTAIN_OPERATION_WAIT_OR_CREATE;
+				}
+				waiterCount++;
+				try {
+					wrappeeLock.wait(remainingMillis);
+				} finally {
+					waiterCount--;
+				}
+			}
+		}
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
 	public int determineObtainOperation(int identifier) {
 		synchronized (wrappeeLock) {
 			return wrappee.determineObtainOperation(identifier);
@@ -29,6 +77,18 @@ public class SynchronizedCacheSupervisorWrapper implements CacheSupervisor {
 	public void finish(int identifier) {
 		synchronized (wrappeeLock) {
 			wrappee.finish(identifier);
+			if (0 != waiterCount) {
+				wrappeeLock.notifyAll();
+			}
+		}
+	}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Throwable getFailureCause(int identifier) {
+		synchronized (wrappeeLock) {
+			return wrappee.getFailureCause(identifier);
 		}
 	}
 	/**
@@ -0,0 +1,22 @@
+package org.ilumbo.giantsnail.concurrent;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Holds a fork/join pool that is shared by the parallel operations in this library, so they do not each start their own
+ * threads. The pool has as many threads as there are processors, and is created the first time it is requested.
+ */
+public final class SharedForkJoinPool {
+	/**
+	 * Holds the pool. The class loader initialises this class (and therefore creates the pool) the first time it is used.
+	 */
+	private static final class Holder {
+		public static final ForkJoinPool pool = new ForkJoinPool();
+	}
+	/**
+	 * Returns the shared pool.
+	 */
+	public static final ForkJoinPool get() {
+		return Holder.pool;
+	}
+}
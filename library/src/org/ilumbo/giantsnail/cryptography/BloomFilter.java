@@ -0,0 +1,291 @@
+package org.ilumbo.giantsnail.cryptography;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * A Bloom filter: a set that can tell that a key was definitely not added, or that it probably was. A filter sized for n
+ * keys and a false positive rate of p takes roughly -n × ln(p) / ln(2)² bits, no matter how large the keys are. This is
+ * useful as a cheap check before looking for something on disk or on the network.
+ *
+ * Every key is hashed into 64 bits with {@link MurmurHash3}: once with the 64-bit variant for long and byte keys, and twice
+ * with the 32-bit UTF-8 variant (with different seeds) for character sequences. The hash is split into two 32-bit halves
+ * from which the positions of the bits are derived (double hashing, as described by Kirsch and Mitzenmacher). The bits are
+ * stored as longs, as {@link org.ilumbo.giantsnail.mathematics.LargeBitArray} does.
+ *
+ * In the blocked layout, all bits of a key are in the same block of 512 bits (the size of a cache line on most processors),
+ * so a lookup touches a single cache line. This costs a slightly higher false positive rate for the same number of bits.
+ *
+ * The bits can be backed by a buffer, such as a memory-mapped file, without copying them. See {@link #wrap(ByteBuffer)}.
+ */
+public final class BloomFilter {
+	/**
+	 * The number of bits in a block of the blocked layout.
+	 */
+	public static final int BLOCK_SIZE = 512;
+	/**
+	 * The highest supported number of bits.
+	 */
+	public static final int MAXIMUM_BIT_COUNT = Integer.MAX_VALUE - BLOCK_SIZE;
+	/**
+	 * The size of the header of the serialized form.
+	 */
+	private static final int HEADER_SIZE = 4 * 5;
+	/**
+	 * The first integer of the serialized form ("BLM1").
+	 */
+	private static final int SERIALIZATION_MAGIC = 0x424C4D31;
+	/**
+	 * The number of bits.
+	 */
+	private final int bitCount;
+	/**
+	 * Whether the blocked layout is used.
+	 */
+	private final boolean blocked;
+	/**
+	 * The number of hash functions: the number of bits set for every key.
+	 */
+	private final int hashCount;
+	private final int seed;
+	/**
+	 * The bits.
+	 */
+	private final LongBuffer words;
+	/**
+	 * Creates an empty filter with the passed number of bits (rounded up to a multiple of 64, or of {@link #BLOCK_SIZE} for
+	 * the blocked layout) and the passed number of hash functions (the number of bits set for every key). Throws an
+	 * IllegalArgumentException if either number is not positive, or if the number of bits exceeds
+	 * {@link #MAXIMUM_BIT_COUNT}.
+	 */
+	public BloomFilter(int bitCount, int hashCount, int seed, boolean blocked) {
+		this(LongBuffer.wrap(new long[getWordCount(bitCount, blocked)]), hashCount, seed, blocked);
+		if (hashCount <= 0) {
+			throw new IllegalArgumentException("The number of hash functions must be positive");
+		}
+	}
+	private BloomFilter(LongBuffer words, int hashCount, int seed, boolean blocked) {
+		this.words = words;
+		bitCount = words.capacity() << 6;
+		this.hashCount = hashCount;
+		this.seed = seed;
+		this.blocked = blocked;
+	}
+	/**
+	 * Adds the passed key.
+	 */
+	public final void add(byte[] key, int offset, int length) {
+		addHash(MurmurHash3.calculate64(key, offset, length, seed));
+	}
+	/**
+	 * Adds the passed key, which is hashed as UTF-8.
+	 */
+	public final void add(CharSequence key) {
+		addHash(getHash(key));
+	}
+	/**
+	 * Adds the passed key.
+	 */
+	public final void add(long key) {
+		addHash(MurmurHash3.calculate64(key, seed));
+	}
+	/**
+	 * Sets the bits of the key with the passed hash.
+	 */
+	private final void addHash(long hash) {
+		final int low = (int) hash;
+		final int high = (int) (hash >>> 32);
+		if (blocked) {
+			// Select the block using the top bits of the high half, and the bits within it using both halves. The high half is
+			// reversed for the latter, as keys in the same block would otherwise step through the block in similar ways.
+			final int blockOffset = (int) ((high & 0xFFFFFFFFl) * (bitCount >>> 9) >>> 32) << 3;
+			final int step = Integer.reverse(high) | 1;
+			int combined = low;
+			for (int index = 0; hashCount != index; index++) {
+				final int position = combined >>> 23;
+				final int wordIndex = blockOffset + (position >>> 6);
+				words.put(wordIndex, words.get(wordIndex) | 1l << position);
+				combined += step;
+			}
+		} else /* if (false == blocked) */ {
+			// An odd step ensures the positions differ, even if the high half is 0.
+			final int step = high | 1;
+			int combined = low;
+			for (int index = 0; hashCount != index; index++) {
+				final int position = (int) ((combined & 0xFFFFFFFFl) * bitCount >>> 32);
+				final int wordIndex = position >>> 6;
+				words.put(wordIndex, words.get(wordIndex) | 1l << position);
+				combined += step;
+			}
+		}
+	}
+	/**
+	 * Creates an empty filter with seed 0, sized so that after the passed number of keys are added the chance of a false
+	 * positive is the passed rate. Throws an IllegalArgumentException if the number of keys is not positive or if the rate is
+	 * not between 0 and 1 (exclusive).
+	 */
+	public static final BloomFilter create(int expectedKeyCount, double falsePositiveRate, boolean blocked) {
+		return create(expectedKeyCount, falsePositiveRate, blocked, 0);
+	}
+	/**
+	 * Creates an empty filter with the passed seed, sized so that after the passed number of keys are added the chance of a
+	 * false positive is the passed rate. Throws an IllegalArgumentException if the number of keys is not positive or if the
+	 * rate is not between 0 and 1 (exclusive).
+	 */
+	public static final BloomFilter create(int expectedKeyCount, double falsePositiveRate, boolean blocked, int seed) {
+		if (expectedKeyCount <= 0) {
+			throw new IllegalArgumentException("The expected number of keys must be positive");
+		}
+		if (false == (falsePositiveRate > 0 && falsePositiveRate < 1)) {
+			throw new IllegalArgumentException("The false positive rate must be between 0 and 1 (exclusive)");
+		}
+		final double bitCount = -expectedKeyCount * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+		if (bitCount > MAXIMUM_BIT_COUNT) {
+			throw new IllegalArgumentException("The filter would be too large");
+		}
+		final int hashCount = Math.max((int) Math.round(bitCount / expectedKeyCount * Math.log(2)), 1);
+		return new BloomFilter((int) Math.ceil(bitCount), hashCount, seed, blocked);
+	}
+	/**
+	 * Returns the number of bits.
+	 */
+	public final int getBitCount() {
+		return bitCount;
+	}
+	/**
+	 * Returns the 64-bit hash of the passed key, hashed as UTF-8.
+	 */
+	private final long getHash(CharSequence key) {
+		return (long) MurmurHash3.calculateUtf8(key, seed) << 32 | (MurmurHash3.calculateUtf8(key, ~seed) & 0xFFFFFFFFl);
+	}
+	/**
+	 * Returns the number of hash functions: the number of bits set for every key.
+	 */
+	public final int getHashCount() {
+		return hashCount;
+	}
+	/**
+	 * Returns the number of bytes {@link #writeTo(ByteBuffer)} writes.
+	 */
+	public final int getSerializedSize() {
+		return HEADER_SIZE + (bitCount >>> 3);
+	}
+	/**
+	 * Returns the number of longs for a filter with the passed number of bits. Throws an IllegalArgumentException if that
+	 * number is not positive or exceeds {@link #MAXIMUM_BIT_COUNT}.
+	 */
+	private static final int getWordCount(int bitCount, boolean blocked) {
+		if (bitCount <= 0) {
+			throw new IllegalArgumentException("The number of bits must be positive");
+		}
+		if (bitCount > MAXIMUM_BIT_COUNT) {
+			throw new IllegalArgumentException("The number of bits must not exceed " + MAXIMUM_BIT_COUNT);
+		}
+		// Calculate in longs, so rounding up cannot overflow.
+		if (blocked) {
+			return (int) ((bitCount + (long) BLOCK_SIZE - 1) / BLOCK_SIZE * (BLOCK_SIZE >>> 6));
+		} else /* if (false == blocked) */ {
+			return (int) (bitCount + 63l >>> 6);
+		}
+	}
+	/**
+	 * Returns false if the passed key was definitely not added, and true if it probably was.
+	 */
+	public final boolean mightContain(byte[] key, int offset, int length) {
+		return mightContainHash(MurmurHash3.calculate64(key, offset, length, seed));
+	}
+	/**
+	 * Returns false if the passed key was definitely not added, and true if it probably was.
+	 */
+	public final boolean mightContain(CharSequence key) {
+		return mightContainHash(getHash(key));
+	}
+	/**
+	 * Returns false if the passed key was definitely not added, and true if it probably was.
+	 */
+	public final boolean mightContain(long key) {
+		return mightContainHash(MurmurHash3.calculate64(key, seed));
+	}
+	/**
+	 * Returns whether all bits of the key with the passed hash are set.
+	 */
+	private final boolean mightContainHash(long hash) {
+		final int low = (int) hash;
+		final int high = (int) (hash >>> 32);
+		if (blocked) {
+			final int blockOffset = (int) ((high & 0xFFFFFFFFl) * (bitCount >>> 9) >>> 32) << 3;
+			final int step = Integer.reverse(high) | 1;
+			int combined = low;
+			for (int index = 0; hashCount != index; index++) {
+				final int position = combined >>> 23;
+				if (0 == (words.get(blockOffset + (position >>> 6)) & 1l << position)) {
+					return false;
+				}
+				combined += step;
+			}
+		} else /* if (false == blocked) */ {
+			final int step = high | 1;
+			int combined = low;
+			for (int index = 0; hashCount != index; index++) {
+				final int position = (int) ((combined & 0xFFFFFFFFl) * bitCount >>> 32);
+				if (0 == (words.get(position >>> 6) & 1l << position)) {
+					return false;
+				}
+				combined += step;
+			}
+		}
+		return true;
+	}
+	/**
+	 * Adds all keys of the passed filter to this filter. Throws an IllegalArgumentException if the passed filter does not
+	 * have the same number of bits, number of hash functions, seed and layout.
+	 */
+	public final void union(BloomFilter other) {
+		if (bitCount != other.bitCount || hashCount != other.hashCount || seed != other.seed || blocked != other.blocked) {
+			throw new IllegalArgumentException("The filters must have the same parameters");
+		}
+		final int wordCount = words.capacity();
+		for (int index = 0; wordCount != index; index++) {
+			words.put(index, words.get(index) | other.words.get(index));
+		}
+	}
+	/**
+	 * Returns a filter backed by the serialized filter in the passed buffer, from its position. The bits are not copied:
+	 * keys added to the returned filter are written into the buffer, and the buffer can be a memory-mapped file. The position
+	 * of the buffer is moved past the filter. Throws an IllegalArgumentException if the buffer does not contain a filter at
+	 * its position.
+	 */
+	public static final BloomFilter wrap(ByteBuffer input) {
+		if (SERIALIZATION_MAGIC != input.getInt()) {
+			throw new IllegalArgumentException("The buffer does not contain a Bloom filter");
+		}
+		final int wordCount = input.getInt();
+		final int hashCount = input.getInt();
+		final int seed = input.getInt();
+		final boolean blocked = 0 != input.getInt();
+		if (wordCount <= 0 || wordCount > MAXIMUM_BIT_COUNT >>> 6 || hashCount <= 0) {
+			throw new IllegalArgumentException("The buffer does not contain a valid Bloom filter");
+		}
+		final ByteBuffer wordBuffer = input.slice().order(input.order());
+		wordBuffer.limit(wordCount << 3);
+		input.position(input.position() + (wordCount << 3));
+		return new BloomFilter(wordBuffer.asLongBuffer(), hashCount, seed, blocked);
+	}
+	/**
+	 * Writes this filter to the passed buffer, from its position. The position is moved past the filter. The filter can be
+	 * used again with {@link #wrap(ByteBuffer)}, which must be passed a buffer with the same byte order.
+	 */
+	public final void writeTo(ByteBuffer output) {
+		output.putInt(SERIALIZATION_MAGIC);
+		final int wordCount = words.capacity();
+		output.putInt(wordCount);
+		output.putInt(hashCount);
+		output.putInt(seed);
+		output.putInt(blocked ? 1 : 0);
+		final LongBuffer outputWords = output.asLongBuffer();
+		for (int index = 0; wordCount != index; index++) {
+			outputWords.put(index, words.get(index));
+		}
+		output.position(output.position() + (wordCount << 3));
+	}
+}
@@ -0,0 +1,225 @@
+package org.ilumbo.giantsnail.cryptography;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A count-min sketch: estimates how often keys were added, using a fixed amount of memory no matter how many distinct keys
+ * there are. An estimate is never lower than the true count, and with a chance of 1 - δ it is at most ε × N higher, where N
+ * is the total of all counts. Adding a key does not allocate.
+ *
+ * The sketch is a table of counters with one row for every hash function. A key is hashed once with {@link MurmurHash3}, and
+ * the two halves of the 64-bit hash select a counter in every row (double hashing). The estimate is the lowest of these
+ * counters. Adding uses the conservative update: only the counters which are below the new estimate are raised, which keeps
+ * the estimates of other keys lower.
+ *
+ * With aging, all counters are halved once the total of the counts added since the last halving reaches the aging period.
+ * This makes recent additions weigh more than old ones, which suits tracking which keys are currently popular.
+ */
+public final class CountMinSketch {
+	/**
+	 * The size of the header of the serialized form.
+	 */
+	private static final int HEADER_SIZE = 4 * 6;
+	/**
+	 * The first integer of the serialized form ("CMS1").
+	 */
+	private static final int SERIALIZATION_MAGIC = 0x434D5331;
+	/**
+	 * The total of the counts added since the last halving.
+	 */
+	private int additionCount;
+	/**
+	 * The total of the counts which, once added, causes all counters to be halved. 0 if the counters are never halved.
+	 */
+	private final int agingPeriod;
+	/**
+	 * The counters, row after row.
+	 */
+	private final int[] counters;
+	/**
+	 * The number of rows.
+	 */
+	private final int depth;
+	private final int seed;
+	/**
+	 * The number of counters in every row.
+	 */
+	private final int width;
+	/**
+	 * Creates an empty sketch with the passed number of counters per row and the passed number of rows. If the aging period
+	 * is not 0, all counters are halved every time the total of the counts added since the last halving reaches it. Throws an
+	 * IllegalArgumentException if the number of counters per row or the number of rows is not positive, or if the aging
+	 * period is negative.
+	 */
+	public CountMinSketch(int width, int depth, int agingPeriod, int seed) {
+		if (width <= 0 || depth <= 0) {
+			throw new IllegalArgumentException("The width and the depth must be positive");
+		}
+		if (agingPeriod < 0) {
+			throw new IllegalArgumentException("The aging period must not be negative");
+		}
+		if ((long) width * depth > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("The sketch would be too large");
+		}
+		this.width = width;
+		this.depth = depth;
+		this.agingPeriod = agingPeriod;
+		this.seed = seed;
+		counters = new int[width * depth];
+	}
+	/**
+	 * Adds the passed key once.
+	 */
+	public final void add(byte[] key, int offset, int length) {
+		addHash(MurmurHash3.calculate64(key, offset, length, seed), 1);
+	}
+	/**
+	 * Adds the passed key once.
+	 */
+	public final void add(long key) {
+		addHash(MurmurHash3.calculate64(key, seed), 1);
+	}
+	/**
+	 * Adds the passed key the passed number of times. Throws an IllegalArgumentException if that number is negative.
+	 */
+	public final void add(long key, int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("The count must not be negative");
+		}
+		addHash(MurmurHash3.calculate64(key, seed), count);
+	}
+	/**
+	 * Adds the key with the passed hash the passed number of times, using the conservative update.
+	 */
+	private final void addHash(long hash, int count) {
+		final int estimate = getCountOfHash(hash);
+		// Saturate rather than overflow.
+		final int target = estimate > Integer.MAX_VALUE - count ? Integer.MAX_VALUE : estimate + count;
+		final int low = (int) hash;
+		final int high = (int) (hash >>> 32);
+		int combined = low;
+		for (int offset = 0; counters.length != offset; offset += width) {
+			final int index = offset + (int) ((combined & 0xFFFFFFFFl) * width >>> 32);
+			if (counters[index] < target) {
+				counters[index] = target;
+			}
+			combined += high;
+		}
+		if (0 != agingPeriod) {
+			additionCount += count;
+			if (additionCount >= agingPeriod || additionCount < 0) {
+				age();
+			}
+		}
+	}
+	/**
+	 * Halves all counters. This is done automatically if this sketch has an aging period.
+	 */
+	public final void age() {
+		for (int index = 0; counters.length != index; index++) {
+			counters[index] >>>= 1;
+		}
+		additionCount = 0;
+	}
+	/**
+	 * Creates an empty sketch, sized so that with a chance of at least 1 - δ an estimate is at most ε × N higher than the
+	 * true count, where N is the total of all counts. Throws an IllegalArgumentException if ε or δ is not between 0 and 1
+	 * (exclusive), or if the aging period is negative.
+	 */
+	public static final CountMinSketch create(double epsilon, double delta, int agingPeriod) {
+		if (false == (epsilon > 0 && epsilon < 1 && delta > 0 && delta < 1)) {
+			throw new IllegalArgumentException("Epsilon and delta must be between 0 and 1 (exclusive)");
+		}
+		return new CountMinSketch((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / delta)), agingPeriod, 0);
+	}
+	/**
+	 * Returns an estimate of how often the passed key was added (since the last halving).
+	 */
+	public final int getCount(byte[] key, int offset, int length) {
+		return getCountOfHash(MurmurHash3.calculate64(key, offset, length, seed));
+	}
+	/**
+	 * Returns an estimate of how often the passed key was added (since the last halving).
+	 */
+	public final int getCount(long key) {
+		return getCountOfHash(MurmurHash3.calculate64(key, seed));
+	}
+	/**
+	 * Returns the lowest of the counters of the key with the passed hash.
+	 */
+	private final int getCountOfHash(long hash) {
+		final int high = (int) (hash >>> 32);
+		int combined = (int) hash;
+		int result = Integer.MAX_VALUE;
+		for (int offset = 0; counters.length != offset; offset += width) {
+			final int counter = counters[offset + (int) ((combined & 0xFFFFFFFFl) * width >>> 32)];
+			if (counter < result) {
+				result = counter;
+			}
+			combined += high;
+		}
+		return result;
+	}
+	/**
+	 * Returns the number of rows.
+	 */
+	public final int getDepth() {
+		return depth;
+	}
+	/**
+	 * Returns the number of bytes {@link #writeTo(ByteBuffer)} writes.
+	 */
+	public final int getSerializedSize() {
+		return HEADER_SIZE + (counters.length << 2);
+	}
+	/**
+	 * Returns the number of counters in every row.
+	 */
+	public final int getWidth() {
+		return width;
+	}
+	/**
+	 * Adds the counts of the passed sketch to the counts of this sketch. Throws an IllegalArgumentException if the passed
+	 * sketch does not have the same width, depth and seed.
+	 */
+	public final void merge(CountMinSketch other) {
+		if (width != other.width || depth != other.depth || seed != other.seed) {
+			throw new IllegalArgumentException("The sketches must have the same width, depth and seed");
+		}
+		for (int index = 0; counters.length != index; index++) {
+			final int sum = counters[index] + other.counters[index];
+			counters[index] = sum < 0 ? Integer.MAX_VALUE : sum;
+		}
+	}
+	/**
+	 * Reads a sketch written by {@link #writeTo(ByteBuffer)} from the passed buffer, from its position. The position is
+	 * moved past the sketch. Throws an IllegalArgumentException if the buffer does not contain a sketch at its position.
+	 */
+	public static final CountMinSketch readFrom(ByteBuffer input) {
+		if (SERIALIZATION_MAGIC != input.getInt()) {
+			throw new IllegalArgumentException("The buffer does not contain a count-min sketch");
+		}
+		final int width = input.getInt();
+		final int depth = input.getInt();
+		final int agingPeriod = input.getInt();
+		final int seed = input.getInt();
+		final CountMinSketch result = new CountMinSketch(width, depth, agingPeriod, seed);
+		result.additionCount = input.getInt();
+		input.asIntBuffer().get(result.counters);
+		input.position(input.position() + (result.counters.length << 2));
+		return result;
+	}
+	/**
+	 * Writes this sketch to the passed buffer, from its position. The position is moved past the sketch.
+	 */
+	public final void writeTo(ByteBuffer output) {
+		output.putInt(SERIALIZATION_MAGIC);
+		output.putInt(width);
+		output.putInt(depth);
+		output.putInt(agingPeriod);
+		output.putInt(seed);
+		output.putInt(additionCount);
+		output.asIntBuffer().put(counters);
+		output.position(output.position() + (counters.length << 2));
+	}
+}
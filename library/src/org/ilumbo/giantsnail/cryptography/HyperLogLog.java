@@ -0,0 +1,181 @@
+package org.ilumbo.giantsnail.cryptography;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A HyperLogLog: estimates how many distinct keys were added, using 2^precision bytes no matter how many keys there are. The
+ * standard error of the estimate is about 1.04 / √(2^precision), so 1.6% for the default precision of 12 (4 KiB). Adding a
+ * key does not allocate.
+ *
+ * A key is hashed with the 64-bit {@link MurmurHash3}. The top bits of the hash select a register, which remembers the
+ * highest number of leading zeroes (plus one) seen in the remaining bits. Two HyperLogLogs can be merged by taking the
+ * highest value of every register, after which the result estimates the number of distinct keys in either.
+ */
+public final class HyperLogLog {
+	/**
+	 * The precision used by {@link #HyperLogLog()}.
+	 */
+	public static final int DEFAULT_PRECISION = 12;
+	/**
+	 * The highest supported precision.
+	 */
+	public static final int MAXIMUM_PRECISION = 18;
+	/**
+	 * The lowest supported precision.
+	 */
+	public static final int MINIMUM_PRECISION = 4;
+	/**
+	 * The size of the header of the serialized form.
+	 */
+	private static final int HEADER_SIZE = 4 * 3;
+	/**
+	 * The first integer of the serialized form ("HLL1").
+	 */
+	private static final int SERIALIZATION_MAGIC = 0x484C4C31;
+	/**
+	 * The number of bits of the hash which select the register.
+	 */
+	private final int precision;
+	/**
+	 * The registers.
+	 */
+	private final byte[] registers;
+	private final int seed;
+	/**
+	 * Creates an empty HyperLogLog with the default precision.
+	 */
+	public HyperLogLog() {
+		this(DEFAULT_PRECISION, 0);
+	}
+	/**
+	 * Creates an empty HyperLogLog with 2^precision registers. Throws an IllegalArgumentException if the precision is below
+	 * {@link #MINIMUM_PRECISION} or above {@link #MAXIMUM_PRECISION}.
+	 */
+	public HyperLogLog(int precision, int seed) {
+		if (precision < MINIMUM_PRECISION || precision > MAXIMUM_PRECISION) {
+			throw new IllegalArgumentException("The precision must be between " + MINIMUM_PRECISION + " and " +
+					MAXIMUM_PRECISION);
+		}
+		this.precision = precision;
+		this.seed = seed;
+		registers = new byte[1 << precision];
+	}
+	/**
+	 * Adds the passed key.
+	 */
+	public final void add(byte[] key, int offset, int length) {
+		addHash(MurmurHash3.calculate64(key, offset, length, seed));
+	}
+	/**
+	 * Adds the passed key.
+	 */
+	public final void add(long key) {
+		addHash(MurmurHash3.calculate64(key, seed));
+	}
+	/**
+	 * Adds the key with the passed hash.
+	 */
+	private final void addHash(long hash) {
+		final int index = (int) (hash >>> 64 - precision);
+		// The bit at the end ensures the rank does not exceed 64 - precision + 1.
+		final byte rank = (byte) (Long.numberOfLeadingZeros(hash << precision | 1l << precision - 1) + 1);
+		if (registers[index] < rank) {
+			registers[index] = rank;
+		}
+	}
+	/**
+	 * Removes all keys.
+	 */
+	public final void clear() {
+		for (int index = 0; registers.length != index; index++) {
+			registers[index] = 0;
+		}
+	}
+	/**
+	 * Returns an estimate of the number of distinct keys added.
+	 */
+	public final long getEstimate() {
+		final int registerCount = registers.length;
+		double sum = 0;
+		int zeroCount = 0;
+		for (int index = 0; registerCount != index; index++) {
+			final int register = registers[index];
+			// 2^-register, built from its exponent bits.
+			sum += Double.longBitsToDouble(1023l - register << 52);
+			if (0 == register) {
+				zeroCount++;
+			}
+		}
+		final double alpha;
+		switch (registerCount) {
+		case 16:
+			alpha = 0.673;
+			break;
+		case 32:
+			alpha = 0.697;
+			break;
+		case 64:
+			alpha = 0.709;
+			break;
+		default:
+			alpha = 0.7213 / (1 + 1.079 / registerCount);
+			break;
+		}
+		final double estimate = alpha * registerCount * registerCount / sum;
+		// Use linear counting for small numbers of keys, for which the estimate above is biased.
+		if (estimate <= 2.5 * registerCount && 0 != zeroCount) {
+			return Math.round(registerCount * Math.log((double) registerCount / zeroCount));
+		} else /* if (estimate > 2.5 * registerCount || 0 == zeroCount) */ {
+			return Math.round(estimate);
+		}
+	}
+	/**
+	 * Returns the precision: the base-2 logarithm of the number of registers.
+	 */
+	public final int getPrecision() {
+		return precision;
+	}
+	/**
+	 * Returns the number of bytes {@link #writeTo(ByteBuffer)} writes.
+	 */
+	public final int getSerializedSize() {
+		return HEADER_SIZE + registers.length;
+	}
+	/**
+	 * Adds the keys of the passed HyperLogLog to this one. Throws an IllegalArgumentException if the passed HyperLogLog does
+	 * not have the same precision and seed.
+	 */
+	public final void merge(HyperLogLog other) {
+		if (precision != other.precision || seed != other.seed) {
+			throw new IllegalArgumentException("The HyperLogLogs must have the same precision and seed");
+		}
+		for (int index = 0; registers.length != index; index++) {
+			if (registers[index] < other.registers[index]) {
+				registers[index] = other.registers[index];
+			}
+		}
+	}
+	/**
+	 * Reads a HyperLogLog written by {@link #writeTo(ByteBuffer)} from the passed buffer, from its position. The position is
+	 * moved past the HyperLogLog. Throws an IllegalArgumentException if the buffer does not contain a HyperLogLog at its
+	 * position.
+	 */
+	public static final HyperLogLog readFrom(ByteBuffer input) {
+		if (SERIALIZATION_MAGIC != input.getInt()) {
+			throw new IllegalArgumentException("The buffer does not contain a HyperLogLog");
+		}
+		final int precision = input.getInt();
+		final HyperLogLog result = new HyperLogLog(precision, input.getInt());
+		input.get(result.registers);
+		return result;
+	}
+	/**
+	 * Writes this HyperLogLog to the passed buffer, from its position. The position is moved past the HyperLogLog.
+	 */
+	public final void writeTo(ByteBuffer output) {
+		output.putInt(SERIALIZATION_MAGIC);
+		output.putInt(precision);
+		output.putInt(seed);
+		output.put(registers);
+	}
+}
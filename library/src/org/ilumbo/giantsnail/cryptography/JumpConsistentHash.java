@@ -0,0 +1,51 @@
+package org.ilumbo.giantsnail.cryptography;
+
+/**
+ * Jump consistent hashing, as described by John Lamping and Eric Veach.
+ * http://arxiv.org/abs/1406.2294
+ *
+ * Maps keys to a number of numbered buckets, so that the keys are spread evenly and so that when a bucket is added, only
+ * the keys that move to the new bucket change buckets (roughly 1 / n of them). Buckets can only be added or removed at the
+ * end; use a {@link RendezvousHash} if any node can leave. The keys are hashed with
+ * {@link MurmurHash3#calculate64(long, int)} first, so sequential keys are spread as well as random ones.
+ */
+public final class JumpConsistentHash {
+	/**
+	 * Returns the bucket (0 to bucketCount - 1, inclusive) of the passed key. Throws an IllegalArgumentException if the
+	 * number of buckets is not positive.
+	 */
+	public static final int getBucket(int key, int seed, int bucketCount) {
+		if (bucketCount <= 0) {
+			throw new IllegalArgumentException("The number of buckets must be positive");
+		}
+		return jump(MurmurHash3.calculate64(key, seed), bucketCount);
+	}
+	/**
+	 * Writes the buckets of the passed keys from indexes offset (inclusive) to offset + length (exclusive) into the passed
+	 * output at the same index. The output may be the keys array itself. Throws an IllegalArgumentException if the number of
+	 * buckets is not positive.
+	 */
+	public static final void getBuckets(int[] keys, int offset, int length, int seed, int bucketCount, int[] output) {
+		if (bucketCount <= 0) {
+			throw new IllegalArgumentException("The number of buckets must be positive");
+		}
+		final int end = offset + length;
+		for (int index = offset; end != index; index++) {
+			output[index] = jump(MurmurHash3.calculate64(keys[index], seed), bucketCount);
+		}
+	}
+	/**
+	 * Returns the bucket of the passed (already hashed) key. The number of buckets must be positive.
+	 */
+	public static final int jump(long hash, int bucketCount) {
+		long bucket = -1;
+		long nextBucket = 0;
+		// Draw the next bucket this key jumps to with a linear congruential generator, until it jumps past the last bucket.
+		while (nextBucket < bucketCount) {
+			bucket = nextBucket;
+			hash = hash * 2862933555777941757l + 1;
+			nextBucket = (long) ((bucket + 1) * ((double) (1l << 31) / (double) ((hash >>> 33) + 1)));
+		}
+		return (int) bucket;
+	}
+}
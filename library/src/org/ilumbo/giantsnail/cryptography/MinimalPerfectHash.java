@@ -0,0 +1,225 @@
+package org.ilumbo.giantsnail.cryptography;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.ilumbo.giantsnail.mathematics.LargeBitArray;
+import org.ilumbo.giantsnail.mathematics.RankSelectIndex;
+
+/**
+ * A minimal perfect hash function for a static set of keys: maps each of the n keys to a distinct index from 0 to n - 1
+ * (inclusive). This is useful for sets of identifiers that are known in advance, such as resource identifiers, as it
+ * replaces a binary search with a few hash calculations.
+ *
+ * The function is built as described by Limasset, Rizk, Chikhi and Peterlongo (BBHash). The keys are hashed into a bit
+ * array of gamma × n bits. The bits that exactly one key hashes to are set, and the keys that collide are hashed into a
+ * next, smaller bit array, and so on. The index of a key is the number of set bits before its bit in all the bit arrays
+ * together, which a {@link RankSelectIndex} provides in constant time. With a gamma of 1, the serialized function takes
+ * roughly 2.7 bits per key, and the function in memory (including the rank index) roughly 3.5.
+ *
+ * Keys that are not in the set map to an arbitrary index or to NONE. If you need to detect those, store the keys in an array
+ * at their indices, and compare.
+ */
+public final class MinimalPerfectHash {
+	/**
+	 * The gamma that results in the smallest function. Higher values result in larger functions, which are faster to create
+	 * and to evaluate.
+	 */
+	public static final double DEFAULT_GAMMA = 1;
+	/**
+	 * The maximum number of bit arrays. Keys that still collide in the last bit array are stored separately.
+	 */
+	private static final int MAXIMUM_LEVEL_COUNT = 32;
+	/**
+	 * Returned for keys that are not in the set, if that is detected.
+	 */
+	public static final int NONE = LargeBitArray.NONE;
+	/**
+	 * The first integer of the serialized form ("MPH1").
+	 */
+	private static final int SERIALIZATION_MAGIC = 0x4D504831;
+	/**
+	 * The bit arrays, one after the other.
+	 */
+	private final long[] bits;
+	/**
+	 * The keys that collided in every bit array, sorted.
+	 */
+	private final long[] fallbackKeys;
+	/**
+	 * Whether the keys are integers (rather than longs).
+	 */
+	private final boolean integerKeys;
+	/**
+	 * For every bit array, the position of its first bit in {@link #bits}, followed by the total number of bits.
+	 */
+	private final int[] levelOffsets;
+	private final RankSelectIndex rankIndex;
+	private final int seed;
+	private MinimalPerfectHash(long[] bits, int[] levelOffsets, long[] fallbackKeys, boolean integerKeys, int seed) {
+		this.bits = bits;
+		this.levelOffsets = levelOffsets;
+		this.fallbackKeys = fallbackKeys;
+		this.integerKeys = integerKeys;
+		this.seed = seed;
+		rankIndex = new RankSelectIndex(bits);
+	}
+	/**
+	 * Creates a function for the passed keys, which must be distinct. Throws an IllegalArgumentException if the keys are not
+	 * distinct, or if gamma is smaller than 1.
+	 */
+	public static final MinimalPerfectHash create(int[] keys, double gamma, int seed) {
+		final long[] longKeys = new long[keys.length];
+		for (int index = 0; keys.length != index; index++) {
+			longKeys[index] = keys[index];
+		}
+		return create(longKeys, true, gamma, seed);
+	}
+	/**
+	 * Creates a function for the passed keys, which must be distinct. Throws an IllegalArgumentException if the keys are not
+	 * distinct, or if gamma is smaller than 1.
+	 */
+	public static final MinimalPerfectHash create(long[] keys, double gamma, int seed) {
+		return create(keys.clone(), false, gamma, seed);
+	}
+	/**
+	 * Creates a function for the passed keys. The passed array is modified.
+	 */
+	private static final MinimalPerfectHash create(long[] keys, boolean integerKeys, double gamma, int seed) {
+		if (false == gamma >= 1) {
+			throw new IllegalArgumentException("Gamma must be at least 1");
+		}
+		final long[][] levels = new long[MAXIMUM_LEVEL_COUNT][];
+		int levelCount = 0;
+		int remainingKeyCount = keys.length;
+		while (0 != remainingKeyCount && MAXIMUM_LEVEL_COUNT != levelCount) {
+			final int wordCount = Math.max((int) Math.ceil(gamma * remainingKeyCount / 64), 1);
+			final int size = wordCount << 6;
+			// Determine which bits exactly one key hashes to.
+			final long[] level = new long[wordCount];
+			final long[] collisions = new long[wordCount];
+			for (int index = 0; remainingKeyCount != index; index++) {
+				final int position = getPosition(keys[index], integerKeys, seed, levelCount, size);
+				if (LargeBitArray.getBit(level, position)) {
+					LargeBitArray.setBit(collisions, position, true);
+				} else /* if (false == LargeBitArray.getBit(level, position)) */ {
+					LargeBitArray.setBit(level, position, true);
+				}
+			}
+			LargeBitArray.andNot(level, collisions);
+			// Keep the keys that collided for the next bit array.
+			int collidedKeyCount = 0;
+			for (int index = 0; remainingKeyCount != index; index++) {
+				if (LargeBitArray.getBit(collisions, getPosition(keys[index], integerKeys, seed, levelCount, size))) {
+					keys[collidedKeyCount++] = keys[index];
+				}
+			}
+			levels[levelCount++] = level;
+			remainingKeyCount = collidedKeyCount;
+		}
+		// Concatenate the bit arrays.
+		final int[] levelOffsets = new int[levelCount + 1];
+		for (int levelIndex = 0; levelCount != levelIndex; levelIndex++) {
+			levelOffsets[levelIndex + 1] = levelOffsets[levelIndex] + (levels[levelIndex].length << 6);
+		}
+		final long[] bits = new long[levelOffsets[levelCount] >>> 6];
+		for (int levelIndex = 0; levelCount != levelIndex; levelIndex++) {
+			System.arraycopy(levels[levelIndex], 0, bits, levelOffsets[levelIndex] >>> 6, levels[levelIndex].length);
+		}
+		// Store the keys that collided in every bit array separately.
+		final long[] fallbackKeys = new long[remainingKeyCount];
+		System.arraycopy(keys, 0, fallbackKeys, 0, remainingKeyCount);
+		Arrays.sort(fallbackKeys);
+		for (int index = 1; remainingKeyCount > index; index++) {
+			if (fallbackKeys[index - 1] == fallbackKeys[index]) {
+				throw new IllegalArgumentException("The keys must be distinct");
+			}
+		}
+		return new MinimalPerfectHash(bits, levelOffsets, fallbackKeys, integerKeys, seed);
+	}
+	/**
+	 * Returns the index of the passed key, which must be in the set (and the set must consist of integers).
+	 */
+	public final int getIndex(int key) {
+		return getIndex((long) key);
+	}
+	/**
+	 * Returns the index of the passed key, which must be in the set.
+	 */
+	public final int getIndex(long key) {
+		final int levelCount = levelOffsets.length - 1;
+		for (int levelIndex = 0; levelCount != levelIndex; levelIndex++) {
+			final int levelOffset = levelOffsets[levelIndex];
+			final int position = levelOffset +
+					getPosition(key, integerKeys, seed, levelIndex, levelOffsets[levelIndex + 1] - levelOffset);
+			if (0 != (bits[position >>> 6] & 1l << position)) {
+				return rankIndex.rank(position);
+			}
+		}
+		final int fallbackIndex = Arrays.binarySearch(fallbackKeys, key);
+		return fallbackIndex < 0 ? NONE : rankIndex.getTrueBitCount() + fallbackIndex;
+	}
+	/**
+	 * Returns the number of keys.
+	 */
+	public final int getKeyCount() {
+		return rankIndex.getTrueBitCount() + fallbackKeys.length;
+	}
+	/**
+	 * Returns the position in a bit array of the passed size the passed key hashes to, in the bit array with the passed
+	 * index.
+	 */
+	private static final int getPosition(long key, boolean integerKeys, int seed, int levelIndex, int size) {
+		final int hash = integerKeys ? MurmurHash3.calculate((int) key, seed + levelIndex) :
+				(int) MurmurHash3.calculate64(key, seed + levelIndex);
+		// Map the hash to the size by multiplying, rather than dividing.
+		return (int) ((hash & 0xFFFFFFFFl) * size >>> 32);
+	}
+	/**
+	 * Returns the number of bytes {@link #writeTo(ByteBuffer)} writes.
+	 */
+	public final int getSerializedSize() {
+		return 4 * 6 + 4 * (levelOffsets.length - 1) + 8 * (bits.length + fallbackKeys.length);
+	}
+	/**
+	 * Reads a function written by {@link #writeTo(ByteBuffer)} from the passed buffer, from its position. The position is
+	 * moved past the function. The buffer must have the same byte order as the buffer that was written to. Throws an
+	 * IllegalArgumentException if the buffer does not contain a function at its position.
+	 */
+	public static final MinimalPerfectHash readFrom(ByteBuffer input) {
+		if (SERIALIZATION_MAGIC != input.getInt()) {
+			throw new IllegalArgumentException("The buffer does not contain a minimal perfect hash function");
+		}
+		final boolean integerKeys = 0 != input.getInt();
+		final int seed = input.getInt();
+		final int levelCount = input.getInt();
+		final int[] levelOffsets = new int[levelCount + 1];
+		for (int levelIndex = 0; levelCount != levelIndex; levelIndex++) {
+			levelOffsets[levelIndex + 1] = levelOffsets[levelIndex] + (input.getInt() << 6);
+		}
+		final long[] bits = new long[input.getInt()];
+		final long[] fallbackKeys = new long[input.getInt()];
+		// Read the longs in bulk.
+		input.asLongBuffer().get(bits).get(fallbackKeys);
+		input.position(input.position() + 8 * (bits.length + fallbackKeys.length));
+		return new MinimalPerfectHash(bits, levelOffsets, fallbackKeys, integerKeys, seed);
+	}
+	/**
+	 * Writes this function to the passed buffer, from its position. The position is moved past the function. The
+	 * function can be read back with {@link #readFrom(ByteBuffer)}.
+	 */
+	public final void writeTo(ByteBuffer output) {
+		output.putInt(SERIALIZATION_MAGIC);
+		output.putInt(integerKeys ? 1 : 0);
+		output.putInt(seed);
+		final int levelCount = levelOffsets.length - 1;
+		output.putInt(levelCount);
+		for (int levelIndex = 0; levelCount != levelIndex; levelIndex++) {
+			output.putInt(levelOffsets[levelIndex + 1] - levelOffsets[levelIndex] >>> 6);
+		}
+		output.putInt(bits.length);
+		output.putInt(fallbackKeys.length);
+		output.asLongBuffer().put(bits).put(fallbackKeys);
+		output.position(output.position() + 8 * (bits.length + fallbackKeys.length));
+	}
+}
@@ -1,5 +1,15 @@
 package org.ilumbo.giantsnail.cryptography;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+
 /**
  * The MurmurHash3 algorithm was created by Austin Appleby.
  * http://code.google.com/p/smhasher/wiki/MurmurHash3
@@ -7,11 +17,395 @@ package org.ilumbo.giantsnail.cryptography;
  * This Java port is heavily based on a port by Yonik Seeley.
  * http://github.com/yonik/java_util
  *
- * This class should work identical to the final C++ version of MurmurHash3. I have, however, not tested this.
+ * This class should work identical to the final C++ version of MurmurHash3. The tests check the verification values of
+ * SMHasher.
+ *
+ * Besides MurmurHash3_x86_32, this class implements MurmurHash3_x64_128 (the calculate128 methods), which produces 128-bit
+ * hashes and is faster on 64-bit processors. Those methods write the hash into a passed array of two longs, the first of
+ * which holds the first eight bytes of the hash as produced by the C++ version (in little endian order). The calculate64
+ * methods return only that first long.
+ *
+ * The calculate methods need all data at once. To hash data that arrives in parts, or that is too large to fit in memory,
+ * use a {@link Hasher32} or a {@link Hasher128}.
  */
 public final class MurmurHash3 {
+	/**
+	 * Calculates a MurmurHash3_x64_128 hash of data that is passed in parts. The hash is the same as the hash calculated by
+	 * the calculate128 methods of all parts together.
+	 */
+	public static final class Hasher128 {
+		/**
+		 * The size of the buffers used to read streams and channels.
+		 */
+		private static final int BUFFER_SIZE = 0x10000;
+		/**
+		 * The buffer used to read streams, or null if none has been read yet.
+		 */
+		private byte[] arrayBuffer;
+		/**
+		 * The direct buffer used to read channels, or null if none has been read yet.
+		 */
+		private ByteBuffer directBuffer;
+		private long h1;
+		private long h2;
+		/**
+		 * The number of bytes passed so far.
+		 */
+		private long length;
+		private final int seed;
+		/**
+		 * The bytes passed so far that do not form a complete block yet.
+		 */
+		private final byte[] tail;
+		/**
+		 * The number of bytes in the tail.
+		 */
+		private int tailLength;
+		public Hasher128(int seed) {
+			this.seed = seed;
+			tail = new byte[16];
+			reset();
+		}
+		/**
+		 * Writes the hash of all data passed since this hasher was created or last finished into the passed output, and resets
+		 * this hasher.
+		 */
+		public final void finish(long[] output) {
+			long k1 = 0;
+			long k2 = 0;
+			if (tailLength > 8) {
+				for (int index = tailLength - 1; 7 != index; index--) {
+					k2 = (k2 << 8) | (tail[index] & 0xFFl);
+				}
+				k2 *= c2_128;
+				// Inlined ROTL64(k2, 33)
+				k2 = (k2 << 33) | (k2 >>> 31);
+				k2 *= c1_128;
+				h2 ^= k2;
+			}
+			if (0 != tailLength) {
+				for (int index = Math.min(tailLength, 8) - 1; -1 != index; index--) {
+					k1 = (k1 << 8) | (tail[index] & 0xFFl);
+				}
+				k1 *= c1_128;
+				// Inlined ROTL64(k1, 31)
+				k1 = (k1 << 31) | (k1 >>> 33);
+				k1 *= c2_128;
+				h1 ^= k1;
+			}
+			finish128(h1, h2, (int) length, output);
+			reset();
+		}
+		/**
+		 * Mixes a block of 16 bytes into the state.
+		 */
+		private final void processBlock(long k1, long k2) {
+			k1 *= c1_128;
+			// Inlined ROTL64(k1, 31)
+			k1 = (k1 << 31) | (k1 >>> 33);
+			k1 *= c2_128;
+			h1 ^= k1;
+			// Inlined ROTL64(h1, 27)
+			h1 = (h1 << 27) | (h1 >>> 37);
+			h1 += h2;
+			h1 = h1 * 5 + 0x52DCE729;
+			k2 *= c2_128;
+			// Inlined ROTL64(k2, 33)
+			k2 = (k2 << 33) | (k2 >>> 31);
+			k2 *= c1_128;
+			h2 ^= k2;
+			// Inlined ROTL64(h2, 31)
+			h2 = (h2 << 31) | (h2 >>> 33);
+			h2 += h1;
+			h2 = h2 * 5 + 0x38495AB5;
+		}
+		/**
+		 * Discards all data passed since this hasher was created or last finished.
+		 */
+		public final void reset() {
+			h1 = h2 = seed & 0xFFFFFFFFl;
+			length = 0;
+			tailLength = 0;
+		}
+		/**
+		 * Passes the data in the passed byte array from indexes offset (inclusive) to offset + length (exclusive).
+		 */
+		public final void update(byte[] data, int offset, int length) {
+			this.length += length;
+			final int end = offset + length;
+			// Complete the tail, if one exists.
+			if (0 != tailLength) {
+				while (16 != tailLength && end != offset) {
+					tail[tailLength++] = data[offset++];
+				}
+				if (16 != tailLength) {
+					return;
+				}
+				processBlock(getLittleEndianLong(tail, 0), getLittleEndianLong(tail, 8));
+				tailLength = 0;
+			}
+			final int roundedEnd = offset + (end - offset & 0xFFFFFFF0);
+			for (; roundedEnd != offset; offset += 16) {
+				processBlock(getLittleEndianLong(data, offset), getLittleEndianLong(data, offset + 8));
+			}
+			while (end != offset) {
+				tail[tailLength++] = data[offset++];
+			}
+		}
+		/**
+		 * Passes the data in the passed buffer from its position (inclusive) to its limit (exclusive). The position of the
+		 * buffer is moved to its limit.
+		 */
+		public final void update(ByteBuffer data) {
+			int offset = data.position();
+			final int end = data.limit();
+			length += end - offset;
+			if (0 != tailLength) {
+				while (16 != tailLength && end != offset) {
+					tail[tailLength++] = data.get(offset++);
+				}
+				if (16 != tailLength) {
+					data.position(end);
+					return;
+				}
+				processBlock(getLittleEndianLong(tail, 0), getLittleEndianLong(tail, 8));
+				tailLength = 0;
+			}
+			// Longs are read in the order of the buffer, so they have to be reversed if that order is not little endian.
+			final boolean reverse = ByteOrder.LITTLE_ENDIAN != data.order();
+			final int roundedEnd = offset + (end - offset & 0xFFFFFFF0);
+			for (; roundedEnd != offset; offset += 16) {
+				if (reverse) {
+					processBlock(Long.reverseBytes(data.getLong(offset)), Long.reverseBytes(data.getLong(offset + 8)));
+				} else /* if (false == reverse) */ {
+					processBlock(data.getLong(offset), data.getLong(offset + 8));
+				}
+			}
+			while (end != offset) {
+				tail[tailLength++] = data.get(offset++);
+			}
+			data.position(end);
+		}
+		/**
+		 * Passes all data from the passed stream, until its end. The stream is not closed.
+		 */
+		public final void update(InputStream input) throws IOException {
+			if (null == arrayBuffer) {
+				arrayBuffer = new byte[BUFFER_SIZE];
+			}
+			int readCount;
+			while (-1 != (readCount = input.read(arrayBuffer, 0, BUFFER_SIZE))) {
+				update(arrayBuffer, 0, readCount);
+			}
+		}
+		/**
+		 * Passes all data from the passed channel, until its end. The data is read through a direct buffer, which is reused
+		 * for every call. The channel is not closed. The channel must be in blocking mode: throws an IllegalArgumentException
+		 * if it is a selectable channel in non-blocking mode, as reading from that could return no data over and over.
+		 */
+		public final void update(ReadableByteChannel input) throws IOException {
+			if (input instanceof SelectableChannel && false == ((SelectableChannel) input).isBlocking()) {
+				throw new IllegalArgumentException("The channel must be in blocking mode");
+			}
+			if (null == directBuffer) {
+				directBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			}
+			directBuffer.clear();
+			while (-1 != input.read(directBuffer)) {
+				directBuffer.flip();
+				update(directBuffer);
+				directBuffer.clear();
+			}
+		}
+	}
+	/**
+	 * Calculates a MurmurHash3_x86_32 hash of data that is passed in parts. The hash is the same as the hash calculated by
+	 * the calculate methods of all parts together.
+	 */
+	public static final class Hasher32 {
+		/**
+		 * The size of the buffers used to read streams and channels.
+		 */
+		private static final int BUFFER_SIZE = 0x10000;
+		/**
+		 * The buffer used to read streams, or null if none has been read yet.
+		 */
+		private byte[] arrayBuffer;
+		/**
+		 * The direct buffer used to read channels, or null if none has been read yet.
+		 */
+		private ByteBuffer directBuffer;
+		private int h1;
+		/**
+		 * The number of bytes passed so far.
+		 */
+		private long length;
+		private final int seed;
+		/**
+		 * The bytes passed so far that do not form a complete block yet, in little endian order.
+		 */
+		private int tail;
+		/**
+		 * The number of bytes in the tail.
+		 */
+		private int tailLength;
+		public Hasher32(int seed) {
+			this.seed = seed;
+			reset();
+		}
+		/**
+		 * Returns the hash of all data passed since this hasher was created or last finished, and resets this hasher.
+		 */
+		public final int finish() {
+			int h1 = this.h1;
+			if (0 != tailLength) {
+				int k1 = tail;
+				k1 *= c1;
+				// Inlined ROTL32(k1,15)
+				k1 = (k1 << 15) | (k1 >>> 17);
+				k1 *= c2;
+				h1 ^= k1;
+			}
+			// Finalization.
+			h1 ^= (int) length;
+			// Inlined fmix(h1)
+			h1 ^= h1 >>> 16;
+			h1 *= 0x85EBCA6B;
+			h1 ^= h1 >>> 13;
+			h1 *= 0xC2B2AE35;
+			h1 ^= h1 >>> 16;
+			reset();
+			return h1;
+		}
+		/**
+		 * Mixes a block of 4 bytes into the state.
+		 */
+		private final void processBlock(int k1) {
+			k1 *= c1;
+			// Inlined ROTL32(k1, 15)
+			k1 = (k1 << 15) | (k1 >>> 17);
+			k1 *= c2;
+			h1 ^= k1;
+			// Inlined ROTL32(h1,13)
+			h1 = (h1 << 13) | (h1 >>> 19);
+			h1 = h1 * 5 + 0xE6546B64;
+		}
+		/**
+		 * Discards all data passed since this hasher was created or last finished.
+		 */
+		public final void reset() {
+			h1 = seed;
+			length = 0;
+			tail = 0;
+			tailLength = 0;
+		}
+		/**
+		 * Passes the data in the passed byte array from indexes offset (inclusive) to offset + length (exclusive).
+		 */
+		public final void update(byte[] data, int offset, int length) {
+			this.length += length;
+			final int end = offset + length;
+			// Complete the tail, if one exists.
+			if (0 != tailLength) {
+				while (4 != tailLength && end != offset) {
+					tail |= (data[offset++] & 0xFF) << (tailLength++ << 3);
+				}
+				if (4 != tailLength) {
+					return;
+				}
+				processBlock(tail);
+				tail = 0;
+				tailLength = 0;
+			}
+			final int roundedEnd = offset + (end - offset & 0xFFFFFFFC);
+			for (; roundedEnd != offset; offset += 4) {
+				processBlock((data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8) | ((data[offset + 2] & 0xFF) << 16) |
+						((data[offset + 3] & 0xFF) << 24));
+			}
+			while (end != offset) {
+				tail |= (data[offset++] & 0xFF) << (tailLength++ << 3);
+			}
+		}
+		/**
+		 * Passes the data in the passed buffer from its position (inclusive) to its limit (exclusive). The position of the
+		 * buffer is moved to its limit.
+		 */
+		public final void update(ByteBuffer data) {
+			int offset = data.position();
+			final int end = data.limit();
+			length += end - offset;
+			if (0 != tailLength) {
+				while (4 != tailLength && end != offset) {
+					tail |= (data.get(offset++) & 0xFF) << (tailLength++ << 3);
+				}
+				if (4 != tailLength) {
+					data.position(end);
+					return;
+				}
+				processBlock(tail);
+				tail = 0;
+				tailLength = 0;
+			}
+			// Integers are read in the order of the buffer, so they have to be reversed if that order is not little endian.
+			final boolean reverse = ByteOrder.LITTLE_ENDIAN != data.order();
+			final int roundedEnd = offset + (end - offset & 0xFFFFFFFC);
+			for (; roundedEnd != offset; offset += 4) {
+				processBlock(reverse ? Integer.reverseBytes(data.getInt(offset)) : data.getInt(offset));
+			}
+			while (end != offset) {
+				tail |= (data.get(offset++) & 0xFF) << (tailLength++ << 3);
+			}
+			data.position(end);
+		}
+		/**
+		 * Passes all data from the passed stream, until its end. The stream is not closed.
+		 */
+		public final void update(InputStream input) throws IOException {
+			if (null == arrayBuffer) {
+				arrayBuffer = new byte[BUFFER_SIZE];
+			}
+			int readCount;
+			while (-1 != (readCount = input.read(arrayBuffer, 0, BUFFER_SIZE))) {
+				update(arrayBuffer, 0, readCount);
+			}
+		}
+		/**
+		 * Passes all data from the passed channel, until its end. The data is read through a direct buffer, which is reused
+		 * for every call. The channel is not closed. The channel must be in blocking mode: throws an IllegalArgumentException
+		 * if it is a selectable channel in non-blocking mode, as reading from that could return no data over and over.
+		 */
+		public final void update(ReadableByteChannel input) throws IOException {
+			if (input instanceof SelectableChannel && false == ((SelectableChannel) input).isBlocking()) {
+				throw new IllegalArgumentException("The channel must be in blocking mode");
+			}
+			if (null == directBuffer) {
+				directBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			}
+			directBuffer.clear();
+			while (-1 != input.read(directBuffer)) {
+				directBuffer.flip();
+				update(directBuffer);
+				directBuffer.clear();
+			}
+		}
+	}
+	/**
+	 * The maximum number of bytes of a file that is mapped into memory at once.
+	 */
+	private static final int FILE_MAP_SIZE = 1 << 26;
 	private static final int c1 = 0xCC9E2D51;
+	private static final long c1_128 = 0x87C37B91114253D5l;
 	private static final int c2 = 0x1B873593;
+	private static final long c2_128 = 0x4CF5AD432745937Fl;
+	/**
+	 * For every thread, the array the calculate64 methods have the calculate128 methods write the hash into.
+	 */
+	private static final ThreadLocal<long[]> output128 = new ThreadLocal<long[]>() {
+		@Override
+		protected final long[] initialValue() {
+			return new long[2];
+		}
+	};
 	/**
 	 * Returns the MurmurHash3_x86_32 hash of the data in the passed integer array from indexes offset (inclusive) to offset +
 	 * length (exclusive).
@@ -50,8 +444,8 @@ public final class MurmurHash3 {
 		final int roundedEnd = offset + (length & 0xFFFFFFFC);
 		for (int index = offset; roundedEnd != index; index += 4) {
 			// Little endian load order. The and operator turns the bytes into an unsigned integer (0…0xFF, inclusive).
-			int k1 = ((data[index /* | 0 */] & 0xFF) /* << 0 */) | ((data[index | 1] & 0xFF) << 8) |
-					((data[index | 2] & 0xFF) << 16) | ((data[index | 3] & 0xFF) << 24);
+			int k1 = ((data[index /* + 0 */] & 0xFF) /* << 0 */) | ((data[index + 1] & 0xFF) << 8) |
+					((data[index + 2] & 0xFF) << 16) | ((data[index + 3] & 0xFF) << 24);
 			k1 *= c1;
 			// Inlined ROTL32(k1, 15)
 			k1 = (k1 << 15) | (k1 >>> 17);
@@ -65,13 +459,13 @@ public final class MurmurHash3 {
 		int k1 = 0;
 		switch (length & 0x03) {
 		case 3:
-			k1 = (data[roundedEnd | 2] & 0xFF) << 16;
+			k1 = (data[roundedEnd + 2] & 0xFF) << 16;
 			// Fallthrough (no break).
 		case 2:
-			k1 |= (data[roundedEnd | 1] & 0xFF) << 8;
+			k1 |= (data[roundedEnd + 1] & 0xFF) << 8;
 			// Fallthrough (no break).
 		case 1:
-			k1 |= (data[roundedEnd /* | 0 */] & 0xFF) /* << 0 */;
+			k1 |= (data[roundedEnd /* + 0 */] & 0xFF) /* << 0 */;
 			k1 *= c1;
 			// Inlined ROTL32(k1,15)
 			k1 = (k1 << 15) | (k1 >>> 17);
@@ -88,6 +482,109 @@ public final class MurmurHash3 {
 		h1 ^= h1 >>> 16;
 		return h1;
 	}
+	/**
+	 * Returns the MurmurHash3_x86_32 hash of the data in the passed buffer from its position (inclusive) to its limit
+	 * (exclusive). The position of the buffer is not changed. Every block of four bytes is read as one integer, whatever its
+	 * alignment, which makes this faster than the byte array method for direct and memory-mapped buffers.
+	 */
+	public final static int calculate(ByteBuffer data, int seed) {
+		final int offset = data.position();
+		final int length = data.remaining();
+		// Integers are read in the order of the buffer, so they have to be reversed if that order is not little endian.
+		final boolean reverse = ByteOrder.LITTLE_ENDIAN != data.order();
+		int h1 = seed;
+		// Round down to a 4 byte block.
+		final int roundedEnd = offset + (length & 0xFFFFFFFC);
+		for (int index = offset; roundedEnd != index; index += 4) {
+			int k1 = data.getInt(index);
+			if (reverse) {
+				k1 = Integer.reverseBytes(k1);
+			}
+			k1 *= c1;
+			// Inlined ROTL32(k1, 15)
+			k1 = (k1 << 15) | (k1 >>> 17);
+			k1 *= c2;
+			h1 ^= k1;
+			// Inlined ROTL32(h1,13)
+			h1 = (h1 << 13) | (h1 >>> 19);
+			h1 = h1 * 5 + 0xE6546B64;
+		}
+		// Tail.
+		int k1 = 0;
+		switch (length & 0x03) {
+		case 3:
+			k1 = (data.get(roundedEnd + 2) & 0xFF) << 16;
+			// Fallthrough (no break).
+		case 2:
+			k1 |= (data.get(roundedEnd + 1) & 0xFF) << 8;
+			// Fallthrough (no break).
+		case 1:
+			k1 |= (data.get(roundedEnd /* + 0 */) & 0xFF) /* << 0 */;
+			k1 *= c1;
+			// Inlined ROTL32(k1,15)
+			k1 = (k1 << 15) | (k1 >>> 17);
+			k1 *= c2;
+			h1 ^= k1;
+		}
+		// Finalization.
+		h1 ^= length;
+		// Inlined fmix(h1)
+		h1 ^= h1 >>> 16;
+		h1 *= 0x85EBCA6B;
+		h1 ^= h1 >>> 13;
+		h1 *= 0xC2B2AE35;
+		h1 ^= h1 >>> 16;
+		return h1;
+	}
+	/**
+	 * Returns the MurmurHash3_x86_32 hash of the contents of the passed file. The file is mapped into memory (in parts, for
+	 * large files) rather than copied.
+	 */
+	public final static int calculate(File file, int seed) throws IOException {
+		final Hasher32 hasher = new Hasher32(seed);
+		final FileInputStream input = new FileInputStream(file);
+		try {
+			final FileChannel channel = input.getChannel();
+			final long size = channel.size();
+			for (long position = 0; size != position;) {
+				final long mapSize = Math.min(size - position, FILE_MAP_SIZE);
+				hasher.update(channel.map(FileChannel.MapMode.READ_ONLY, position, mapSize).order(ByteOrder.LITTLE_ENDIAN));
+				position += mapSize;
+			}
+		} finally {
+			input.close();
+		}
+		return hasher.finish();
+	}
+	/**
+	 * Returns the MurmurHash3_x86_32 hash of the UTF-16 code units of the passed characters, from indexes offset (inclusive)
+	 * to offset + length (exclusive). The result is the same as hashing the two bytes of every code unit in little endian
+	 * order (the UTF-16LE encoding, for valid text), without copying them into a byte array first.
+	 */
+	public final static int calculate(char[] data, int offset, int length, int seed) {
+		int h1 = seed;
+		// Round down to a block of two characters.
+		final int roundedEnd = offset + (length & 0xFFFFFFFE);
+		for (int index = offset; roundedEnd != index; index += 2) {
+			h1 = mix32(h1, data[index] | data[index + 1] << 16);
+		}
+		return 0 == (length & 1) ? finish32(h1, 0, 0, length << 1) : finish32(h1, data[roundedEnd], 2, length << 1);
+	}
+	/**
+	 * Returns the MurmurHash3_x86_32 hash of the UTF-16 code units of the passed characters. The result is the same as
+	 * hashing the two bytes of every code unit in little endian order (the UTF-16LE encoding, for valid text), without
+	 * copying them into a byte array first.
+	 */
+	public final static int calculate(CharSequence data, int seed) {
+		final int length = data.length();
+		int h1 = seed;
+		// Round down to a block of two characters.
+		final int roundedEnd = length & 0xFFFFFFFE;
+		for (int index = 0; roundedEnd != index; index += 2) {
+			h1 = mix32(h1, data.charAt(index) | data.charAt(index + 1) << 16);
+		}
+		return 0 == (length & 1) ? finish32(h1, 0, 0, length << 1) : finish32(h1, data.charAt(roundedEnd), 2, length << 1);
+	}
 	/**
 	 * Returns the MurmurHash3_x86_32 hash of the data that is the passed integer.
 	 */
@@ -112,4 +609,505 @@ public final class MurmurHash3 {
 		h1 ^= h1 >>> 16;
 		return h1;
 	}
+	/**
+	 * Writes the MurmurHash3_x64_128 hash of the data in the passed byte array from indexes offset (inclusive) to offset +
+	 * length (exclusive) into the passed output.
+	 */
+	public final static void calculate128(byte[] data, int offset, int length, int seed, long[] output) {
+		long h1 = seed & 0xFFFFFFFFl;
+		long h2 = h1;
+		// Round down to a 16 byte block.
+		final int roundedEnd = offset + (length & 0xFFFFFFF0);
+		for (int index = offset; roundedEnd != index; index += 16) {
+			long k1 = getLittleEndianLong(data, index);
+			long k2 = getLittleEndianLong(data, index + 8);
+			k1 *= c1_128;
+			// Inlined ROTL64(k1, 31)
+			k1 = (k1 << 31) | (k1 >>> 33);
+			k1 *= c2_128;
+			h1 ^= k1;
+			// Inlined ROTL64(h1, 27)
+			h1 = (h1 << 27) | (h1 >>> 37);
+			h1 += h2;
+			h1 = h1 * 5 + 0x52DCE729;
+			k2 *= c2_128;
+			// Inlined ROTL64(k2, 33)
+			k2 = (k2 << 33) | (k2 >>> 31);
+			k2 *= c1_128;
+			h2 ^= k2;
+			// Inlined ROTL64(h2, 31)
+			h2 = (h2 << 31) | (h2 >>> 33);
+			h2 += h1;
+			h2 = h2 * 5 + 0x38495AB5;
+		}
+		// Tail.
+		long k1 = 0;
+		long k2 = 0;
+		switch (length & 0x0F) {
+		case 15:
+			k2 = (data[roundedEnd + 14] & 0xFFl) << 48;
+			// Fallthrough (no break).
+		case 14:
+			k2 |= (data[roundedEnd + 13] & 0xFFl) << 40;
+			// Fallthrough (no break).
+		case 13:
+			k2 |= (data[roundedEnd + 12] & 0xFFl) << 32;
+			// Fallthrough (no break).
+		case 12:
+			k2 |= (data[roundedEnd + 11] & 0xFFl) << 24;
+			// Fallthrough (no break).
+		case 11:
+			k2 |= (data[roundedEnd + 10] & 0xFFl) << 16;
+			// Fallthrough (no break).
+		case 10:
+			k2 |= (data[roundedEnd + 9] & 0xFFl) << 8;
+			// Fallthrough (no break).
+		case 9:
+			k2 |= data[roundedEnd + 8] & 0xFFl;
+			k2 *= c2_128;
+			// Inlined ROTL64(k2, 33)
+			k2 = (k2 << 33) | (k2 >>> 31);
+			k2 *= c1_128;
+			h2 ^= k2;
+			// Fallthrough (no break).
+		case 8:
+			k1 = (data[roundedEnd + 7] & 0xFFl) << 56;
+			// Fallthrough (no break).
+		case 7:
+			k1 |= (data[roundedEnd + 6] & 0xFFl) << 48;
+			// Fallthrough (no break).
+		case 6:
+			k1 |= (data[roundedEnd + 5] & 0xFFl) << 40;
+			// Fallthrough (no break).
+		case 5:
+			k1 |= (data[roundedEnd + 4] & 0xFFl) << 32;
+			// Fallthrough (no break).
+		case 4:
+			k1 |= (data[roundedEnd + 3] & 0xFFl) << 24;
+			// Fallthrough (no break).
+		case 3:
+			k1 |= (data[roundedEnd + 2] & 0xFFl) << 16;
+			// Fallthrough (no break).
+		case 2:
+			k1 |= (data[roundedEnd + 1] & 0xFFl) << 8;
+			// Fallthrough (no break).
+		case 1:
+			k1 |= data[roundedEnd] & 0xFFl;
+			k1 *= c1_128;
+			// Inlined ROTL64(k1, 31)
+			k1 = (k1 << 31) | (k1 >>> 33);
+			k1 *= c2_128;
+			h1 ^= k1;
+		}
+		finish128(h1, h2, length, output);
+	}
+	/**
+	 * Writes the MurmurHash3_x64_128 hash of the data in the passed long array from indexes offset (inclusive) to offset +
+	 * length (exclusive) into the passed output. Every long is hashed as its eight bytes in little endian order, so the result
+	 * is the same as hashing those bytes.
+	 */
+	public final static void calculate128(long[] data, int offset, int length, int seed, long[] output) {
+		long h1 = seed & 0xFFFFFFFFl;
+		long h2 = h1;
+		// Round down to a block of two longs.
+		final int roundedEnd = offset + (length & 0xFFFFFFFE);
+		for (int index = offset; roundedEnd != index; index += 2) {
+			long k1 = data[index];
+			long k2 = data[index + 1];
+			k1 *= c1_128;
+			// Inlined ROTL64(k1, 31)
+			k1 = (k1 << 31) | (k1 >>> 33);
+			k1 *= c2_128;
+			h1 ^= k1;
+			// Inlined ROTL64(h1, 27)
+			h1 = (h1 << 27) | (h1 >>> 37);
+			h1 += h2;
+			h1 = h1 * 5 + 0x52DCE729;
+			k2 *= c2_128;
+			// Inlined ROTL64(k2, 33)
+			k2 = (k2 << 33) | (k2 >>> 31);
+			k2 *= c1_128;
+			h2 ^= k2;
+			// Inlined ROTL64(h2, 31)
+			h2 = (h2 << 31) | (h2 >>> 33);
+			h2 += h1;
+			h2 = h2 * 5 + 0x38495AB5;
+		}
+		// Tail.
+		if (roundedEnd != offset + length) {
+			long k1 = data[roundedEnd];
+			k1 *= c1_128;
+			// Inlined ROTL64(k1, 31)
+			k1 = (k1 << 31) | (k1 >>> 33);
+			k1 *= c2_128;
+			h1 ^= k1;
+		}
+		finish128(h1, h2, length << 3, output);
+	}
+	/**
+	 * Writes the MurmurHash3_x64_128 hash of the data in the passed buffer from its position (inclusive) to its limit
+	 * (exclusive) into the passed output. The position of the buffer is not changed.
+	 */
+	public final static void calculate128(ByteBuffer data, int seed, long[] output) {
+		final int offset = data.position();
+		final int length = data.remaining();
+		// Longs are read in the order of the buffer, so they have to be reversed if that order is not little endian.
+		final boolean reverse = ByteOrder.LITTLE_ENDIAN != data.order();
+		long h1 = seed & 0xFFFFFFFFl;
+		long h2 = h1;
+		// Round down to a 16 byte block.
+		final int roundedEnd = offset + (length & 0xFFFFFFF0);
+		for (int index = offset; roundedEnd != index; index += 16) {
+			long k1 = data.getLong(index);
+			long k2 = data.getLong(index + 8);
+			if (reverse) {
+				k1 = Long.reverseBytes(k1);
+				k2 = Long.reverseBytes(k2);
+			}
+			k1 *= c1_128;
+			// Inlined ROTL64(k1, 31)
+			k1 = (k1 << 31) | (k1 >>> 33);
+			k1 *= c2_128;
+			h1 ^= k1;
+			// Inlined ROTL64(h1, 27)
+			h1 = (h1 << 27) | (h1 >>> 37);
+			h1 += h2;
+			h1 = h1 * 5 + 0x52DCE729;
+			k2 *= c2_128;
+			// Inlined ROTL64(k2, 33)
+			k2 = (k2 << 33) | (k2 >>> 31);
+			k2 *= c1_128;
+			h2 ^= k2;
+			// Inlined ROTL64(h2, 31)
+			h2 = (h2 << 31) | (h2 >>> 33);
+			h2 += h1;
+			h2 = h2 * 5 + 0x38495AB5;
+		}
+		// Tail.
+		final int tailLength = length & 0x0F;
+		if (tailLength > 8) {
+			long k2 = 0;
+			for (int index = tailLength - 1; 7 != index; index--) {
+				k2 = (k2 << 8) | (data.get(roundedEnd + index) & 0xFFl);
+			}
+			k2 *= c2_128;
+			// Inlined ROTL64(k2, 33)
+			k2 = (k2 << 33) | (k2 >>> 31);
+			k2 *= c1_128;
+			h2 ^= k2;
+		}
+		if (0 != tailLength) {
+			long k1 = 0;
+			for (int index = Math.min(tailLength, 8) - 1; -1 != index; index--) {
+				k1 = (k1 << 8) | (data.get(roundedEnd + index) & 0xFFl);
+			}
+			k1 *= c1_128;
+			// Inlined ROTL64(k1, 31)
+			k1 = (k1 << 31) | (k1 >>> 33);
+			k1 *= c2_128;
+			h1 ^= k1;
+		}
+		finish128(h1, h2, length, output);
+	}
+	/**
+	 * Writes the MurmurHash3_x64_128 hash of the contents of the passed file into the passed output. The file is mapped into
+	 * memory (in parts, for large files) rather than copied.
+	 */
+	public final static void calculate128(File file, int seed, long[] output) throws IOException {
+		final Hasher128 hasher = new Hasher128(seed);
+		final FileInputStream input = new FileInputStream(file);
+		try {
+			final FileChannel channel = input.getChannel();
+			final long size = channel.size();
+			for (long position = 0; size != position;) {
+				final long mapSize = Math.min(size - position, FILE_MAP_SIZE);
+				hasher.update(channel.map(FileChannel.MapMode.READ_ONLY, position, mapSize).order(ByteOrder.LITTLE_ENDIAN));
+				position += mapSize;
+			}
+		} finally {
+			input.close();
+		}
+		hasher.finish(output);
+	}
+	/**
+	 * Writes the MurmurHash3_x64_128 hash of the data that is the passed long (as eight bytes in little endian order) into
+	 * the passed output.
+	 */
+	public final static void calculate128(long data, int seed, long[] output) {
+		long h1 = seed & 0xFFFFFFFFl;
+		long k1 = data;
+		k1 *= c1_128;
+		// Inlined ROTL64(k1, 31)
+		k1 = (k1 << 31) | (k1 >>> 33);
+		k1 *= c2_128;
+		h1 ^= k1;
+		finish128(h1, seed & 0xFFFFFFFFl, 8, output);
+	}
+	/**
+	 * Returns the first 64 bits of the MurmurHash3_x64_128 hash of the data in the passed byte array from indexes offset
+	 * (inclusive) to offset + length (exclusive).
+	 */
+	public final static long calculate64(byte[] data, int offset, int length, int seed) {
+		final long[] output = output128.get();
+		calculate128(data, offset, length, seed, output);
+		return output[0];
+	}
+	/**
+	 * Returns the first 64 bits of the MurmurHash3_x64_128 hash of the data in the passed long array from indexes offset
+	 * (inclusive) to offset + length (exclusive).
+	 */
+	public final static long calculate64(long[] data, int offset, int length, int seed) {
+		final long[] output = output128.get();
+		calculate128(data, offset, length, seed, output);
+		return output[0];
+	}
+	/**
+	 * Returns the first 64 bits of the MurmurHash3_x64_128 hash of the data in the passed buffer from its position
+	 * (inclusive) to its limit (exclusive).
+	 */
+	public final static long calculate64(ByteBuffer data, int seed) {
+		final long[] output = output128.get();
+		calculate128(data, seed, output);
+		return output[0];
+	}
+	/**
+	 * Returns the first 64 bits of the MurmurHash3_x64_128 hash of the data that is the passed long.
+	 */
+	public final static long calculate64(long data, int seed) {
+		long h1 = seed & 0xFFFFFFFFl;
+		long h2 = h1;
+		long k1 = data;
+		k1 *= c1_128;
+		// Inlined ROTL64(k1, 31)
+		k1 = (k1 << 31) | (k1 >>> 33);
+		k1 *= c2_128;
+		h1 ^= k1;
+		// Finalization, as in finish128.
+		h1 ^= 8;
+		h2 ^= 8;
+		h1 += h2;
+		h2 += h1;
+		return fmix64(h1) + fmix64(h2);
+	}
+	/**
+	 * Returns the MurmurHash3_x86_32 hash of the passed characters from indexes offset (inclusive) to offset + length
+	 * (exclusive), encoded in UTF-8. The characters are encoded while they are hashed, so the result is the same as hashing
+	 * the bytes returned by getBytes("UTF-8") without creating that array. As getBytes does, surrogates that are not part
+	 * of a pair are encoded as '?'.
+	 */
+	public final static int calculateUtf8(char[] data, int offset, int length, int seed) {
+		int h1 = seed;
+		// The encoded bytes that do not form a complete block yet, in little endian order.
+		int block = 0;
+		int blockLength = 0;
+		int byteCount = 0;
+		final int end = offset + length;
+		for (int index = offset; end != index;) {
+			int codePoint = data[index++];
+			if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+				if (Character.isHighSurrogate((char) codePoint) && end != index && Character.isLowSurrogate(data[index])) {
+					codePoint = Character.toCodePoint((char) codePoint, data[index++]);
+				} else {
+					codePoint = '?';
+				}
+			}
+			// Add the encoded code point to the block, mixing the block in if it is complete.
+			final int encodedCodePoint = encodeUtf8(codePoint);
+			final int encodedLength = getUtf8Length(codePoint);
+			block |= encodedCodePoint << (blockLength << 3);
+			blockLength += encodedLength;
+			byteCount += encodedLength;
+			if (blockLength >= 4) {
+				h1 = mix32(h1, block);
+				blockLength -= 4;
+				block = 0 == blockLength ? 0 : encodedCodePoint >>> (encodedLength - blockLength << 3);
+			}
+		}
+		return finish32(h1, block, blockLength, byteCount);
+	}
+	/**
+	 * Returns the MurmurHash3_x86_32 hash of the passed characters, encoded in UTF-8. The characters are encoded while they
+	 * are hashed, so the result is the same as hashing the bytes returned by getBytes("UTF-8") without creating that array.
+	 * As getBytes does, surrogates that are not part of a pair are encoded as '?'.
+	 */
+	public final static int calculateUtf8(CharSequence data, int seed) {
+		int h1 = seed;
+		// The encoded bytes that do not form a complete block yet, in little endian order.
+		int block = 0;
+		int blockLength = 0;
+		int byteCount = 0;
+		final int end = data.length();
+		for (int index = 0; end != index;) {
+			int codePoint = data.charAt(index++);
+			if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+				if (Character.isHighSurrogate((char) codePoint) && end != index &&
+						Character.isLowSurrogate(data.charAt(index))) {
+					codePoint = Character.toCodePoint((char) codePoint, data.charAt(index++));
+				} else {
+					codePoint = '?';
+				}
+			}
+			// Add the encoded code point to the block, mixing the block in if it is complete.
+			final int encodedCodePoint = encodeUtf8(codePoint);
+			final int encodedLength = getUtf8Length(codePoint);
+			block |= encodedCodePoint << (blockLength << 3);
+			blockLength += encodedLength;
+			byteCount += encodedLength;
+			if (blockLength >= 4) {
+				h1 = mix32(h1, block);
+				blockLength -= 4;
+				block = 0 == blockLength ? 0 : encodedCodePoint >>> (encodedLength - blockLength << 3);
+			}
+		}
+		return finish32(h1, block, blockLength, byteCount);
+	}
+	/**
+	 * Returns the UTF-8 encoding of the passed code point, with the first byte in the lowest bits.
+	 */
+	private final static int encodeUtf8(int codePoint) {
+		if (codePoint < 0x80) {
+			return codePoint;
+		} else if (codePoint < 0x800) {
+			return (0xC0 | codePoint >>> 6) | (0x80 | codePoint & 0x3F) << 8;
+		} else if (codePoint < 0x10000) {
+			return (0xE0 | codePoint >>> 12) | (0x80 | codePoint >>> 6 & 0x3F) << 8 | (0x80 | codePoint & 0x3F) << 16;
+		} else /* if (codePoint >= 0x10000) */ {
+			return (0xF0 | codePoint >>> 18) | (0x80 | codePoint >>> 12 & 0x3F) << 8 | (0x80 | codePoint >>> 6 & 0x3F) << 16 |
+					(0x80 | codePoint & 0x3F) << 24;
+		}
+	}
+	/**
+	 * Finalizes a MurmurHash3_x86_32 hash with the passed state, tail (of the passed number of bytes) and total number of
+	 * bytes.
+	 */
+	private final static int finish32(int h1, int tail, int tailLength, int length) {
+		if (0 != tailLength) {
+			int k1 = tail;
+			k1 *= c1;
+			// Inlined ROTL32(k1,15)
+			k1 = (k1 << 15) | (k1 >>> 17);
+			k1 *= c2;
+			h1 ^= k1;
+		}
+		// Finalization.
+		h1 ^= length;
+		// Inlined fmix(h1)
+		h1 ^= h1 >>> 16;
+		h1 *= 0x85EBCA6B;
+		h1 ^= h1 >>> 13;
+		h1 *= 0xC2B2AE35;
+		h1 ^= h1 >>> 16;
+		return h1;
+	}
+	/**
+	 * Finalizes a MurmurHash3_x64_128 hash with the passed state after the passed number of bytes, and writes it into the
+	 * passed output.
+	 */
+	private final static void finish128(long h1, long h2, int length, long[] output) {
+		h1 ^= length;
+		h2 ^= length;
+		h1 += h2;
+		h2 += h1;
+		h1 = fmix64(h1);
+		h2 = fmix64(h2);
+		h1 += h2;
+		h2 += h1;
+		output[0] = h1;
+		output[1] = h2;
+	}
+	/**
+	 * Returns the passed value, mixed so that every bit affects every bit of the result.
+	 */
+	private final static long fmix64(long k) {
+		k ^= k >>> 33;
+		k *= 0xFF51AFD7ED558CCDl;
+		k ^= k >>> 33;
+		k *= 0xC4CEB9FE1A85EC53l;
+		k ^= k >>> 33;
+		return k;
+	}
+	/**
+	 * Writes the MurmurHash3_x86_32 hash of every integer in the passed keys from indexes offset (inclusive) to offset +
+	 * length (exclusive) into the passed output at the same index. Every hash is the same as the one returned by
+	 * {@link #calculate(int, int)}. The output may be the keys array itself.
+	 */
+	public final static void hashAll(int[] keys, int offset, int length, int seed, int[] output) {
+		final int end = offset + length;
+		// Hash four keys per iteration. As all four are read before any is written, the hashes are independent of one
+		// another even if the output is the keys array, so the processor can calculate them in parallel.
+		final int roundedEnd = offset + (length & 0xFFFFFFFC);
+		int index = offset;
+		for (; roundedEnd != index; index += 4) {
+			final int key0 = keys[index];
+			final int key1 = keys[index + 1];
+			final int key2 = keys[index + 2];
+			final int key3 = keys[index + 3];
+			output[index] = calculate(key0, seed);
+			output[index + 1] = calculate(key1, seed);
+			output[index + 2] = calculate(key2, seed);
+			output[index + 3] = calculate(key3, seed);
+		}
+		for (; end != index; index++) {
+			output[index] = calculate(keys[index], seed);
+		}
+	}
+	/**
+	 * Writes the first 64 bits of the MurmurHash3_x64_128 hash of every long in the passed keys from indexes offset
+	 * (inclusive) to offset + length (exclusive) into the passed output at the same index. Every hash is the same as the
+	 * one returned by {@link #calculate64(long, int)}. The output may be the keys array itself.
+	 */
+	public final static void hashAll(long[] keys, int offset, int length, int seed, long[] output) {
+		final int end = offset + length;
+		// Hash four keys per iteration, as hashAll(int[], int, int, int, int[]) does.
+		final int roundedEnd = offset + (length & 0xFFFFFFFC);
+		int index = offset;
+		for (; roundedEnd != index; index += 4) {
+			final long key0 = keys[index];
+			final long key1 = keys[index + 1];
+			final long key2 = keys[index + 2];
+			final long key3 = keys[index + 3];
+			output[index] = calculate64(key0, seed);
+			output[index + 1] = calculate64(key1, seed);
+			output[index + 2] = calculate64(key2, seed);
+			output[index + 3] = calculate64(key3, seed);
+		}
+		for (; end != index; index++) {
+			output[index] = calculate64(keys[index], seed);
+		}
+	}
+	/**
+	 * Returns the number of bytes in the UTF-8 encoding of the passed code point.
+	 */
+	private final static int getUtf8Length(int codePoint) {
+		if (codePoint < 0x80) {
+			return 1;
+		} else if (codePoint < 0x800) {
+			return 2;
+		} else if (codePoint < 0x10000) {
+			return 3;
+		} else /* if (codePoint >= 0x10000) */ {
+			return 4;
+		}
+	}
+	/**
+	 * Returns the long that consists of the eight bytes in the passed array from the passed index, in little endian order.
+	 */
+	private final static long getLittleEndianLong(byte[] data, int index) {
+		return (data[index] & 0xFFl) | (data[index + 1] & 0xFFl) << 8 | (data[index + 2] & 0xFFl) << 16 |
+				(data[index + 3] & 0xFFl) << 24 | (data[index + 4] & 0xFFl) << 32 | (data[index + 5] & 0xFFl) << 40 |
+				(data[index + 6] & 0xFFl) << 48 | (data[index + 7] & 0xFFl) << 56;
+	}
+	/**
+	 * Returns the passed MurmurHash3_x86_32 state, after mixing in the passed block of four bytes.
+	 */
+	private final static int mix32(int h1, int k1) {
+		k1 *= c1;
+		// Inlined ROTL32(k1, 15)
+		k1 = (k1 << 15) | (k1 >>> 17);
+		k1 *= c2;
+		h1 ^= k1;
+		// Inlined ROTL32(h1,13)
+		h1 = (h1 << 13) | (h1 >>> 19);
+		return h1 * 5 + 0xE6546B64;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package org.ilumbo.giantsnail.cryptography;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.ilumbo.giantsnail.concurrent.SharedForkJoinPool;
+
+/**
+ * Calculates tree hashes of files based on MurmurHash3_x64_128. A file is divided into chunks of a fixed size (the last of
+ * which may be smaller), which are hashed independently and in parallel. The root hash is the hash of the hashes of the
+ * chunks, in order.
+ *
+ * Because the chunks are independent, a file of which only some chunks changed can be verified again by rehashing only
+ * those chunks with {@link #calculateChunkHash(File, int, int, int, long[])}, and then calculating the root hash from the
+ * updated chunk hashes.
+ *
+ * The chunk hashes are stored in a long array with two longs for every chunk, in the format of
+ * {@link MurmurHash3#calculate128(byte[], int, int, int, long[])}.
+ */
+public final class MurmurHash3TreeHash {
+	/**
+	 * Hashes a range of chunks, by splitting that range in two until a single chunk is left.
+	 */
+	private static final class ChunkAction extends RecursiveAction {
+		private static final long serialVersionUID = 1l;
+		private final FileChannel channel;
+		private final long[] chunkHashes;
+		private final int chunkSize;
+		/**
+		 * The index of the chunk after the last chunk in the range.
+		 */
+		private final int endChunkIndex;
+		/**
+		 * The index of the first chunk in the range.
+		 */
+		private final int firstChunkIndex;
+		private final int seed;
+		public ChunkAction(FileChannel channel, int chunkSize, int seed, long[] chunkHashes, int firstChunkIndex,
+				int endChunkIndex) {
+			this.channel = channel;
+			this.chunkSize = chunkSize;
+			this.seed = seed;
+			this.chunkHashes = chunkHashes;
+			this.firstChunkIndex = firstChunkIndex;
+			this.endChunkIndex = endChunkIndex;
+		}
+		@Override
+		protected final void compute() {
+			if (1 == endChunkIndex - firstChunkIndex) {
+				try {
+					calculateChunkHash(channel, chunkSize, firstChunkIndex, seed, chunkHashes);
+				} catch (IOException exception) {
+					throw new RuntimeException(exception);
+				}
+			} else {
+				final int middleChunkIndex = firstChunkIndex + endChunkIndex >>> 1;
+				invokeAll(new ChunkAction(channel, chunkSize, seed, chunkHashes, firstChunkIndex, middleChunkIndex),
+						new ChunkAction(channel, chunkSize, seed, chunkHashes, middleChunkIndex, endChunkIndex));
+			}
+		}
+	}
+	/**
+	 * A chunk size that is large enough for the cost of mapping and scheduling a chunk to be small compared to the cost of
+	 * hashing it (4 MiB).
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+	/**
+	 * Writes the hash of the chunk with the passed index of the file behind the passed channel into the passed chunk hashes,
+	 * at the longs for that chunk.
+	 */
+	private static final void calculateChunkHash(FileChannel channel, int chunkSize, int chunkIndex, int seed,
+			long[] chunkHashes) throws IOException {
+		final long position = (long) chunkIndex * chunkSize;
+		final long size = Math.min(channel.size() - position, chunkSize);
+		final long[] output = new long[2];
+		MurmurHash3.calculate128(channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN),
+				seed, output);
+		chunkHashes[chunkIndex << 1] = output[0];
+		chunkHashes[(chunkIndex << 1) + 1] = output[1];
+	}
+	/**
+	 * Rehashes the chunk with the passed index of the passed file, and writes the hash into the passed chunk hashes, at the
+	 * longs for that chunk.
+	 */
+	public static final void calculateChunkHash(File file, int chunkSize, int chunkIndex, int seed, long[] chunkHashes)
+			throws IOException {
+		final FileInputStream input = new FileInputStream(file);
+		try {
+			calculateChunkHash(input.getChannel(), chunkSize, chunkIndex, seed, chunkHashes);
+		} finally {
+			input.close();
+		}
+	}
+	/**
+	 * Returns the hashes of the chunks of the passed file, two longs for every chunk. The chunks are hashed by the threads
+	 * of the shared fork/join pool.
+	 */
+	public static final long[] calculateChunkHashes(File file, int chunkSize, int seed) throws IOException {
+		return calculateChunkHashes(file, chunkSize, seed, SharedForkJoinPool.get());
+	}
+	/**
+	 * Returns the hashes of the chunks of the passed file, two longs for every chunk. The chunks are hashed by the threads
+	 * of the passed fork/join pool. Throws an IllegalArgumentException if the chunk size is not positive.
+	 */
+	public static final long[] calculateChunkHashes(File file, int chunkSize, int seed, ForkJoinPool pool)
+			throws IOException {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("The chunk size must be positive");
+		}
+		final FileInputStream input = new FileInputStream(file);
+		try {
+			final FileChannel channel = input.getChannel();
+			final int chunkCount = getChunkCount(channel.size(), chunkSize);
+			final long[] result = new long[chunkCount << 1];
+			if (0 != chunkCount) {
+				try {
+					pool.invoke(new ChunkAction(channel, chunkSize, seed, result, 0, chunkCount));
+				} catch (RuntimeException exception) {
+					// Unwrap the exception a chunk action wrapped (which the pool may have wrapped again).
+					for (Throwable cause = exception.getCause(); null != cause; cause = cause.getCause()) {
+						if (cause instanceof IOException) {
+							throw (IOException) cause;
+						}
+					}
+					throw exception;
+				}
+			}
+			return result;
+		} finally {
+			input.close();
+		}
+	}
+	/**
+	 * Writes the root hash of the passed chunk hashes into the passed output.
+	 */
+	public static final void calculateRootHash(long[] chunkHashes, int seed, long[] output) {
+		MurmurHash3.calculate128(chunkHashes, 0, chunkHashes.length, seed, output);
+	}
+	/**
+	 * Writes the root hash of the passed file into the passed output. This is the same as calculating the chunk hashes
+	 * first, and then the root hash of those.
+	 */
+	public static final void calculateRootHash(File file, int chunkSize, int seed, long[] output) throws IOException {
+		calculateRootHash(calculateChunkHashes(file, chunkSize, seed), seed, output);
+	}
+	/**
+	 * Returns the number of chunks of the passed size a file of the passed size is divided into.
+	 */
+	public static final int getChunkCount(long fileSize, int chunkSize) {
+		return (int) ((fileSize + chunkSize - 1) / chunkSize);
+	}
+}
@@ -0,0 +1,94 @@
+package org.ilumbo.giantsnail.cryptography;
+
+/**
+ * Weighted rendezvous hashing (highest random weight hashing). Maps keys to named nodes, so that every node receives a share
+ * of the keys proportional to its weight. When a node is removed, only the keys of that node move; when a node is added,
+ * only the keys that move to the new node change nodes.
+ *
+ * Every key is scored for every node by hashing the key with a seed derived from the name of the node, and the node with
+ * the highest score wins. The score is weight / -ln(hash), with the hash mapped into (0, 1), which makes the chance of a
+ * node winning exactly proportional to its weight. A lookup therefore takes time linear in the number of nodes, which is
+ * fine for the handful of nodes this class is meant for.
+ *
+ * Instances are immutable. To add or remove nodes, create a new instance.
+ */
+public final class RendezvousHash {
+	/**
+	 * The names of the nodes.
+	 */
+	private final String[] names;
+	/**
+	 * The seeds derived from the names of the nodes.
+	 */
+	private final int[] seeds;
+	/**
+	 * The weights of the nodes.
+	 */
+	private final double[] weights;
+	/**
+	 * Creates an instance for the nodes with the passed names and weights. Throws an IllegalArgumentException if no names are
+	 * passed, if the number of weights differs from the number of names, or if a weight is not positive.
+	 */
+	public RendezvousHash(String[] names, double[] weights) {
+		if (0 == names.length) {
+			throw new IllegalArgumentException("At least one node is required");
+		}
+		if (names.length != weights.length) {
+			throw new IllegalArgumentException("The number of weights must equal the number of names");
+		}
+		this.names = names.clone();
+		this.weights = weights.clone();
+		seeds = new int[names.length];
+		for (int index = 0; names.length != index; index++) {
+			if (false == weights[index] > 0) {
+				throw new IllegalArgumentException("The weights must be positive");
+			}
+			seeds[index] = MurmurHash3.calculateUtf8(names[index], 0);
+		}
+	}
+	/**
+	 * Returns the name of the node with the passed index.
+	 */
+	public final String getName(int nodeIndex) {
+		return names[nodeIndex];
+	}
+	/**
+	 * Returns the index of the node the passed key maps to.
+	 */
+	public final int getNode(int key) {
+		int result = 0;
+		double bestScore = -1;
+		for (int index = 0; seeds.length != index; index++) {
+			// Map the hash to a double in (0, 1), exclusive, using the 53 highest bits.
+			final double hash = ((MurmurHash3.calculate64(key, seeds[index]) >>> 11) + .5) * 0x1.0p-53;
+			final double score = weights[index] / -Math.log(hash);
+			if (score > bestScore) {
+				bestScore = score;
+				result = index;
+			}
+		}
+		return result;
+	}
+	/**
+	 * Returns the number of nodes.
+	 */
+	public final int getNodeCount() {
+		return names.length;
+	}
+	/**
+	 * Writes the indices of the nodes the passed keys from indexes offset (inclusive) to offset + length (exclusive) map to
+	 * into the passed output at the same index. The output may be the keys array itself.
+	 */
+	public final void getNodes(int[] keys, int offset, int length, int[] output) {
+		final int end = offset + length;
+		for (int index = offset; end != index; index++) {
+			output[index] = getNode(keys[index]);
+		}
+	}
+	/**
+	 * Returns the weight of the node with the passed index.
+	 */
+	public final double getWeight(int nodeIndex) {
+		return weights[nodeIndex];
+	}
+}
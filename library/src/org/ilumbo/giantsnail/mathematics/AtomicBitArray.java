@@ -0,0 +1,178 @@
+/**
+ * Copyright 2013 Pimm Hogeling
+ *
+ * Giant Snail open is free software. Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Alternatively, the Software may be used under the terms of either the GNU General Public License Version 3 or later (the
+ * "GPL"), or the GNU Lesser General Public License Version 3 or later (the "LGPL"), in which case the provisions of the GPL or
+ * the LGPL are applicable instead of those above.
+ */
+
+package org.ilumbo.giantsnail.mathematics;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An array of bits that can be used by multiple threads at the same time without locking. The actual data is represented by
+ * an {@link AtomicLongArray}, laid out like the arrays used by {@link LargeBitArray}. Every change is made by a
+ * compare-and-set on the long that holds the bit, which is retried if another thread changed that long in the meantime.
+ *
+ * This class can be useful to hand out slots to multiple threads. Say a number of threads load assets into a fixed number of
+ * slots. Then every thread can call {@link #claimFirstFalseBit()} to claim a free slot, and {@link #setBit(int, boolean)},
+ * passing false, once it is done with it. No two threads will ever claim the same slot.
+ */
+public final class AtomicBitArray {
+	/**
+	 * The number of bits.
+	 */
+	private final int length;
+	/**
+	 * The longs that hold the bits.
+	 */
+	private final AtomicLongArray words;
+	/**
+	 * Creates a bit array with the passed length and all false bits.
+	 */
+	public AtomicBitArray(int length) {
+		this.length = length;
+		words = new AtomicLongArray(LargeBitArray.getWordCount(length));
+	}
+	/**
+	 * Finds the false bit with the lowest position, sets it to true, and returns its position. Returns NONE if there are no
+	 * false bits.
+	 */
+	public final int claimFirstFalseBit() {
+		final int wordCount = words.length();
+		for (int wordIndex = 0; wordCount != wordIndex; wordIndex++) {
+			final int result = claimFalseBit(wordIndex, null);
+			if (LargeBitArray.NONE != result) {
+				return result;
+			}
+		}
+		return LargeBitArray.NONE;
+	}
+	/**
+	 * Claims a false bit in the long with the passed index, by setting it to true. If a random is passed the false bit is
+	 * random, otherwise it is the one with the lowest position. Returns the position of the claimed bit, or NONE if the long
+	 * has no false bits.
+	 */
+	private final int claimFalseBit(int wordIndex, Random random) {
+		// Ignore the unused bits in the last long.
+		final long mask = words.length() - 1 == wordIndex ? -1l >>> -length : -1l;
+		while (true) {
+			final long word = words.get(wordIndex);
+			final long falseBits = ~word & mask;
+			if (0 == falseBits) {
+				return LargeBitArray.NONE;
+			}
+			final int relativePosition = null == random ? Long.numberOfTrailingZeros(falseBits) :
+					BitArray.getRandomTrueBit(falseBits, random);
+			// Try to claim the bit. If another thread changed the long in the meantime, start over.
+			if (words.compareAndSet(wordIndex, word, word | 1l << relativePosition)) {
+				return (wordIndex << 6) + relativePosition;
+			}
+		}
+	}
+	/**
+	 * Finds a random false bit, sets it to true, and returns its position. Returns NONE if there are no false bits.
+	 *
+	 * The search starts at a random long, so threads that call this method at the same time rarely compete for the same
+	 * long. Every false bit can be returned, but the bits do not have equal probability of being returned if some longs
+	 * have more true bits than others.
+	 */
+	public final int claimRandomFalseBit() {
+		return claimRandomFalseBit(FastRandom.getThreadInstance());
+	}
+	/**
+	 * Finds a random false bit, sets it to true, and returns its position. Returns NONE if there are no false bits.
+	 *
+	 * The search starts at a random long, so threads that call this method at the same time rarely compete for the same
+	 * long. Every false bit can be returned, but the bits do not have equal probability of being returned if some longs
+	 * have more true bits than others.
+	 */
+	public final int claimRandomFalseBit(Random random) {
+		final int wordCount = words.length();
+		if (0 == wordCount) {
+			return LargeBitArray.NONE;
+		}
+		final int firstWordIndex = random.nextInt(wordCount);
+		int wordIndex = firstWordIndex;
+		do {
+			final int result = claimFalseBit(wordIndex, random);
+			if (LargeBitArray.NONE != result) {
+				return result;
+			}
+			if (wordCount == ++wordIndex) {
+				wordIndex = 0;
+			}
+		} while (firstWordIndex != wordIndex);
+		return LargeBitArray.NONE;
+	}
+	/**
+	 * Sets the value of the bit at the passed position, and returns the value it had before.
+	 */
+	public final boolean getAndSetBit(int position, boolean value) {
+		final int wordIndex = position >>> 6;
+		final long bit = 1l << position;
+		while (true) {
+			final long word = words.get(wordIndex);
+			final boolean result = 0 != (word & bit);
+			// If the bit already has the passed value, there is nothing to set.
+			if (value == result) {
+				return result;
+			}
+			if (words.compareAndSet(wordIndex, word, word ^ bit)) {
+				return result;
+			}
+		}
+	}
+	/**
+	 * Returns the bit with the passed position.
+	 */
+	public final boolean getBit(int position) {
+		return 0 != (words.get(position >>> 6) & 1l << position);
+	}
+	/**
+	 * Returns the number of bits.
+	 */
+	public final int getLength() {
+		return length;
+	}
+	/**
+	 * Returns the number of true bits. If other threads change bits while this method runs, the result might not reflect a
+	 * state the bit array was actually in.
+	 */
+	public final int getTrueBitCount() {
+		int result = 0;
+		final int wordCount = words.length();
+		for (int wordIndex = 0; wordCount != wordIndex; wordIndex++) {
+			result += Long.bitCount(words.get(wordIndex));
+		}
+		return result;
+	}
+	/**
+	 * Sets the value of the bit at the passed position.
+	 */
+	public final void setBit(int position, boolean value) {
+		getAndSetBit(position, value);
+	}
+	/**
+	 * Sets the value of the bit at the passed position to true, unless it already was. Returns true if the bit was false
+	 * before this call (meaning this call set it), and false if it already was true.
+	 */
+	public final boolean testAndSetBit(int position) {
+		return false == getAndSetBit(position, true);
+	}
+}
@@ -51,26 +51,63 @@ public final class BitArray {
 		 *
 		 * If one passes a length of 3 and a true bit count of 2, the result can be 011, 101 or 110.
 		 *
-		 * Note: this method will result in an endless loop if the trueBitCount argument is greater than the length argument.
+		 * Throws an IllegalArgumentException if the trueBitCount argument is negative or greater than the length argument.
 		 */
 		public static final long generateRandomArray(final int length, final int trueBitCount) {
-			return generateRandomArray(length, trueBitCount, new Random());
+			return generateRandomArray(length, trueBitCount, FastRandom.getThreadInstance());
 		}
 		/**
 		 * Generates a random bit array that has the passed number of true bits. All true bits will have a position that is
-		 * smaller than the passed length.
+		 * smaller than the passed length. Every possible result has equal probability of being returned.
 		 *
 		 * If one passes a length of 3 and a true bit count of 2, the result can be 011, 101 or 110.
 		 *
-		 * Note: this method will result in an endless loop if the trueBitCount argument is greater than the length argument.
+		 * Throws an IllegalArgumentException if the trueBitCount argument is negative or greater than the length argument.
 		 */
 		public static final long generateRandomArray(final int length, final int trueBitCount, final Random random) {
-			if (length == trueBitCount) {
-				return (1l << length) - 1;
+			if (trueBitCount < 0 || trueBitCount > length) {
+				throw new IllegalArgumentException("The true bit count must be between 0 and the length (inclusive)");
+			}
+			// If more than half of the bits must be true, choose which bits are false instead. This way, at most half of the
+			// positions are drawn.
+			if (trueBitCount << 1 > length) {
+				return (-1l >>> -length) ^ generateRandomSubset(length, length - trueBitCount, random);
+			} else /* if (trueBitCount << 1 <= length) */ {
+				return generateRandomSubset(length, trueBitCount, random);
+			}
+		}
+		/**
+		 * Generates the passed count of random bit arrays, and puts them in the passed output array starting at the passed
+		 * offset. Every generated bit array is independent of the others, and is generated as if it were generated by
+		 * {@link #generateRandomArray(int, int)}.
+		 */
+		public static final void generateRandomArrays(final int length, final int trueBitCount, final long[] output,
+				final int offset, final int count) {
+			generateRandomArrays(length, trueBitCount, output, offset, count, FastRandom.getThreadInstance());
+		}
+		/**
+		 * Generates the passed count of random bit arrays, and puts them in the passed output array starting at the passed
+		 * offset. Every generated bit array is independent of the others, and is generated as if it were generated by
+		 * {@link #generateRandomArray(int, int, Random)}.
+		 */
+		public static final void generateRandomArrays(final int length, final int trueBitCount, final long[] output,
+				final int offset, final int count, final Random random) {
+			final int end = offset + count;
+			for (int index = offset; end != index; index++) {
+				output[index] = generateRandomArray(length, trueBitCount, random);
 			}
-			long result = getNextLong(1l << length, random);
-			while (trueBitCount != Long.bitCount(result)) {
-				result = getNextLong(1l << length, random);
+		}
+		/**
+		 * Generates a random bit array that has the passed number of true bits, using Robert Floyd's sampling algorithm. Draws
+		 * exactly trueBitCount random numbers.
+		 */
+		private static final long generateRandomSubset(final int length, final int trueBitCount, final Random random) {
+			long result = 0;
+			// For every position from (length - trueBitCount) up to (length - 1), draw a position between 0 and that position
+			// (inclusive). If the drawn position is already true, make the upper position true instead.
+			for (int upperPosition = length - trueBitCount; length != upperPosition; upperPosition++) {
+				final long bit = 1l << random.nextInt(upperPosition + 1);
+				result |= 0 == (result & bit) ? bit : 1l << upperPosition;
 			}
 			return result;
 		}
@@ -81,19 +118,6 @@ public final class BitArray {
 		public static final long generateTrueArray(final int length) {
 			return (1l << length) - 1;
 		}
-		/**
-		 * Returns a pseudorandom, uniformly distributed int value between 0 (inclusive) and the specified value (exclusive),
-		 * drawn from this random number generator's sequence. All n possible long values are produced with (approximately)
-		 * equal probability.
-		 */
-		private static final long getNextLong(final long n, final Random random) {
-			long bits, result;
-			do {
-				bits = random.nextLong() << 1 >>> 1;
-				result = bits % n;
-			} while (bits - result + n - 1 < 0);
-			return result;
-		}
 	}
 	/**
 	 * Generates short bit arrays. These bit arrays are backed by an integer, and should be no longer than 31 bits. 32 bits
@@ -112,26 +136,63 @@ public final class BitArray {
 		 *
 		 * If one passes a length of 3 and a true bit count of 2, the result can be 011, 101 or 110.
 		 *
-		 * Note: this method will result in an endless loop if the trueBitCount argument is greater than the length argument.
+		 * Throws an IllegalArgumentException if the trueBitCount argument is negative or greater than the length argument.
 		 */
 		public static final int generateRandomArray(final int length, final int trueBitCount) {
-			return generateRandomArray(length, trueBitCount, new Random());
+			return generateRandomArray(length, trueBitCount, FastRandom.getThreadInstance());
 		}
 		/**
 		 * Generates a random bit array that has the passed number of true bits. All true bits will have a position that is
-		 * smaller than the passed length.
+		 * smaller than the passed length. Every possible result has equal probability of being returned.
 		 *
 		 * If one passes a length of 3 and a true bit count of 2, the result can be 011, 101 or 110.
 		 *
-		 * Note: this method will result in an endless loop if the trueBitCount argument is greater than the length argument.
+		 * Throws an IllegalArgumentException if the trueBitCount argument is negative or greater than the length argument.
 		 */
 		public static final int generateRandomArray(final int length, final int trueBitCount, final Random random) {
-			if (length == trueBitCount) {
-				return (1 << length) - 1;
+			if (trueBitCount < 0 || trueBitCount > length) {
+				throw new IllegalArgumentException("The true bit count must be between 0 and the length (inclusive)");
+			}
+			// If more than half of the bits must be true, choose which bits are false instead. This way, at most half of the
+			// positions are drawn.
+			if (trueBitCount << 1 > length) {
+				return (-1 >>> -length) ^ generateRandomSubset(length, length - trueBitCount, random);
+			} else /* if (trueBitCount << 1 <= length) */ {
+				return generateRandomSubset(length, trueBitCount, random);
+			}
+		}
+		/**
+		 * Generates the passed count of random bit arrays, and puts them in the passed output array starting at the passed
+		 * offset. Every generated bit array is independent of the others, and is generated as if it were generated by
+		 * {@link #generateRandomArray(int, int)}.
+		 */
+		public static final void generateRandomArrays(final int length, final int trueBitCount, final int[] output,
+				final int offset, final int count) {
+			generateRandomArrays(length, trueBitCount, output, offset, count, FastRandom.getThreadInstance());
+		}
+		/**
+		 * Generates the passed count of random bit arrays, and puts them in the passed output array starting at the passed
+		 * offset. Every generated bit array is independent of the others, and is generated as if it were generated by
+		 * {@link #generateRandomArray(int, int, Random)}.
+		 */
+		public static final void generateRandomArrays(final int length, final int trueBitCount, final int[] output,
+				final int offset, final int count, final Random random) {
+			final int end = offset + count;
+			for (int index = offset; end != index; index++) {
+				output[index] = generateRandomArray(length, trueBitCount, random);
 			}
-			int result = random.nextInt(1 << length);
-			while (trueBitCount != Integer.bitCount(result)) {
-				result = random.nextInt(1 << length);
+		}
+		/**
+		 * Generates a random bit array that has the passed number of true bits, using Robert Floyd's sampling algorithm. Draws
+		 * exactly trueBitCount random numbers.
+		 */
+		private static final int generateRandomSubset(final int length, final int trueBitCount, final Random random) {
+			int result = 0;
+			// For every position from (length - trueBitCount) up to (length - 1), draw a position between 0 and that position
+			// (inclusive). If the drawn position is already true, make the upper position true instead.
+			for (int upperPosition = length - trueBitCount; length != upperPosition; upperPosition++) {
+				final int bit = 1 << random.nextInt(upperPosition + 1);
+				result |= 0 == (result & bit) ? bit : 1 << upperPosition;
 			}
 			return result;
 		}
@@ -202,7 +263,7 @@ public final class BitArray {
 	 * Returns the position of a random true bit. Returns NONE if there are no true bits.
 	 */
 	public static final int getRandomTrueBit(final int input) {
-		return getRandomTrueBit(input, new Random());
+		return getRandomTrueBit(input, FastRandom.getThreadInstance());
 	}
 	/**
 	 * Returns the position of a random true bit. Returns NONE if there are no true bits.
@@ -222,19 +283,14 @@ public final class BitArray {
 		case 1:
 			return Integer.numberOfTrailingZeros(input);
 		}
-		// Choose the number of true bits that should be skipped before the selected true bit is reached.
-		int skipCount = random.nextInt(trueBitCount);
-		// Flip the number of true bits determined above.
-		while (0 != skipCount--) {
-			input &= input - 1;
-		}
-		return Integer.numberOfTrailingZeros(input);
+		// Choose the number of true bits that precede the selected true bit, and find that bit.
+		return select(input, random.nextInt(trueBitCount));
 	}
 	/**
 	 * Returns the position of a random true bit. Returns NONE if there are no true bits.
 	 */
 	public static final int getRandomTrueBit(final long input) {
-		return getRandomTrueBit(input, new Random());
+		return getRandomTrueBit(input, FastRandom.getThreadInstance());
 	}
 	/**
 	 * Returns the position of a random true bit. Returns NONE if there are no true bits.
@@ -254,13 +310,8 @@ public final class BitArray {
 		case 1:
 			return Long.numberOfTrailingZeros(input);
 		}
-		// Choose the number of true bits that should be skipped before the selected true bit is reached.
-		int skipCount = random.nextInt(trueBitCount);
-		// Flip the number of true bits determined above.
-		while (0 != skipCount--) {
-			input &= input - 1;
-		}
-		return Long.numberOfTrailingZeros(input);
+		// Choose the number of true bits that precede the selected true bit, and find that bit.
+		return select(input, random.nextInt(trueBitCount));
 	}
 	/**
 	 * Finds a string of the passed number of true bits, and returns the position of the first (true) bit. If multiple
@@ -268,7 +319,7 @@ public final class BitArray {
 	 * probability of being returned. Returns NONE if no such string exists.
 	 */
 	public static final int getRandomTrueBitsAnd(final int input, final int count) {
-		return getRandomTrueBitsAnd(input, count, new Random());
+		return getRandomTrueBitsAnd(input, count, FastRandom.getThreadInstance());
 	}
 	/**
 	 * Finds a string of the passed number of true bits, and returns the position of the first (true) bit. If multiple
@@ -276,21 +327,20 @@ public final class BitArray {
 	 * probability of being returned. Returns NONE if no such string exists.
 	 */
 	public static final int getRandomTrueBitsAnd(final int input, final int count, final Random random) {
-		// Find the candidates, positions which point to a true bit followed by the passed number of other true bits.
-		int canditates = 0;
-		// (Integer.SIZE - count) - Integer.numberOfLeadingZeros(input) skips the (count - 1) true bits with the highest
-		// positions. That's fine: those bits aren't followed by the required other true bits, and therefore don't quality.
-		int position = Integer.SIZE - count - Integer.numberOfLeadingZeros(input);
-		// Check whether there are no true bits at all.
-		if (-count == position) {
-			return NONE;
+		// Find the candidates, positions which point to a true bit followed by the passed number of other true bits. This is
+		// done by repeatedly and-ing the candidates with a shifted version of themselves. After every step, a candidate is a
+		// position which points to a string of (at least) coveredCount true bits.
+		int canditates = input;
+		int coveredCount = 1;
+		while (coveredCount << 1 <= count) {
+			canditates &= canditates >>> coveredCount;
+			coveredCount <<= 1;
+		}
+		// The strings found so far are at least half as long as the passed count. One more step, where the strings overlap,
+		// finds strings of exactly the passed count.
+		if (coveredCount != count) {
+			canditates &= canditates >>> count - coveredCount;
 		}
-		final int mask = (1 << count) - 1;
-		do {
-			if (mask == (input & mask << position) >> position) {
-				canditates |= 1 << position;
-			}
-		} while (0 != position--);
 		// Use the getRandomTrueBit implementation to select a random candidate.
 		return getRandomTrueBit(canditates, random);
 	}
@@ -300,7 +350,7 @@ public final class BitArray {
 	 * probability of being returned. Returns NONE if no such string exists.
 	 */
 	public static final int getRandomTrueBitsAnd(final long input, final int count) {
-		return getRandomTrueBitsAnd(input, count, new Random());
+		return getRandomTrueBitsAnd(input, count, FastRandom.getThreadInstance());
 	}
 	/**
 	 * Finds a string of the passed number of true bits, and returns the position of the first (true) bit. If multiple
@@ -308,24 +358,37 @@ public final class BitArray {
 	 * probability of being returned. Returns NONE if no such string exists.
 	 */
 	public static final int getRandomTrueBitsAnd(final long input, final int count, final Random random) {
-		// Find the candidates, positions which point to a true bit followed by the passed number of other true bits.
-		long canditates = 0;
-		// (Long.SIZE - count) - Long.numberOfLeadingZeros(input) skips the (count - 1) true bits with the highest positions.
-		// That's fine: those bits aren't followed by the required other true bits, and therefore don't quality.
-		int position = Long.SIZE - count - Long.numberOfLeadingZeros(input);
-		// Check whether there are no true bits at all.
-		if (-count == position) {
-			return NONE;
+		// Find the candidates, positions which point to a true bit followed by the passed number of other true bits. This is
+		// done by repeatedly and-ing the candidates with a shifted version of themselves. After every step, a candidate is a
+		// position which points to a string of (at least) coveredCount true bits.
+		long canditates = input;
+		int coveredCount = 1;
+		while (coveredCount << 1 <= count) {
+			canditates &= canditates >>> coveredCount;
+			coveredCount <<= 1;
+		}
+		// The strings found so far are at least half as long as the passed count. One more step, where the strings overlap,
+		// finds strings of exactly the passed count.
+		if (coveredCount != count) {
+			canditates &= canditates >>> count - coveredCount;
 		}
-		final long mask = (1l << count) - 1;
-		do {
-			if (mask == (input & mask << position) >> position) {
-				canditates |= 1l << position;
-			}
-		} while (0 != position--);
 		// Use the getRandomTrueBit implementation to select a random candidate.
 		return getRandomTrueBit(canditates, random);
 	}
+	/**
+	 * Returns the number of true bits with a position smaller than the passed position.
+	 */
+	public static final int rank(final int input, final int position) {
+		// (1 << 32 would be 1 << 0 in Java, hence the check.)
+		return Integer.SIZE == position ? Integer.bitCount(input) : Integer.bitCount(input & (1 << position) - 1);
+	}
+	/**
+	 * Returns the number of true bits with a position smaller than the passed position.
+	 */
+	public static final int rank(final long input, final int position) {
+		// (1l << 64 would be 1l << 0 in Java, hence the check.)
+		return Long.SIZE == position ? Long.bitCount(input) : Long.bitCount(input & (1l << position) - 1);
+	}
 	/**
 	 * Returns a bit array with the same bits but in the reversed order.
 	 */
@@ -338,6 +401,48 @@ public final class BitArray {
 	public static final long reverse(final long input, final int length) {
 		return Long.reverse(input) >> (Long.SIZE - length);
 	}
+	/**
+	 * Returns the position of the true bit that is preceded by the passed number of true bits. In other words: returns the
+	 * position of the true bit with the passed index, where the true bit with the lowest position has index 0. Returns NONE
+	 * if there are not that many true bits.
+	 */
+	public static final int select(final int input, int index) {
+		if (index >= Integer.bitCount(input)) {
+			return NONE;
+		}
+		// Binary search for the bit: if the lower half of the remaining bits contains too few true bits, the bit is in the
+		// upper half.
+		int position = 0;
+		for (int width = Integer.SIZE >> 1; 0 != width; width >>= 1) {
+			final int lowerHalfTrueBitCount = Integer.bitCount(input >>> position & (1 << width) - 1);
+			if (index >= lowerHalfTrueBitCount) {
+				index -= lowerHalfTrueBitCount;
+				position += width;
+			}
+		}
+		return position;
+	}
+	/**
+	 * Returns the position of the true bit that is preceded by the passed number of true bits. In other words: returns the
+	 * position of the true bit with the passed index, where the true bit with the lowest position has index 0. Returns NONE
+	 * if there are not that many true bits.
+	 */
+	public static final int select(final long input, int index) {
+		if (index >= Long.bitCount(input)) {
+			return NONE;
+		}
+		// Binary search for the bit: if the lower half of the remaining bits contains too few true bits, the bit is in the
+		// upper half.
+		int position = 0;
+		for (int width = Long.SIZE >> 1; 0 != width; width >>= 1) {
+			final int lowerHalfTrueBitCount = Long.bitCount(input >>> position & (1l << width) - 1);
+			if (index >= lowerHalfTrueBitCount) {
+				index -= lowerHalfTrueBitCount;
+				position += width;
+			}
+		}
+		return position;
+	}
 	/**
 	 * Sets the value of the bit at the passed position.
 	 */
@@ -0,0 +1,551 @@
+/**
+ * Copyright 2013 Pimm Hogeling
+ *
+ * Giant Snail open is free software. Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Alternatively, the Software may be used under the terms of either the GNU General Public License Version 3 or later (the
+ * "GPL"), or the GNU Lesser General Public License Version 3 or later (the "LGPL"), in which case the provisions of the GPL or
+ * the LGPL are applicable instead of those above.
+ */
+
+package org.ilumbo.giantsnail.mathematics;
+
+import java.util.Arrays;
+
+/**
+ * A two-dimensional bit array (a bitboard). Every row is stored as longs, as {@link LargeBitArray} does, so the operations
+ * that involve neighbouring bits (such as dilating, eroding, counting neighbours and flood filling) process 64 bits at once by
+ * shifting entire rows. Bits outside the grid are considered false.
+ *
+ * This class can be useful in game development. Say your tile map has a bit for every walkable tile. Then
+ * {@link #getRegion(int, int, boolean)} returns the tiles a unit can reach, and {@link #labelRegions(int[], boolean)}
+ * divides the map into islands.
+ */
+public final class BitGrid {
+	/**
+	 * The number of rows.
+	 */
+	private final int height;
+	/**
+	 * The mask of the bits in the last long of every row that are inside the grid.
+	 */
+	private final long lastWordMask;
+	/**
+	 * The number of columns.
+	 */
+	private final int width;
+	/**
+	 * The rows, one after the other.
+	 */
+	private final long[] words;
+	/**
+	 * The number of longs per row.
+	 */
+	private final int wordsPerRow;
+	/**
+	 * Creates a copy of the passed grid.
+	 */
+	public BitGrid(BitGrid original) {
+		width = original.width;
+		height = original.height;
+		wordsPerRow = original.wordsPerRow;
+		lastWordMask = original.lastWordMask;
+		words = original.words.clone();
+	}
+	/**
+	 * Creates a grid of the passed dimensions in which all bits are false. Throws an IllegalArgumentException if either
+	 * dimension is negative.
+	 */
+	public BitGrid(int width, int height) {
+		if (width < 0 || height < 0) {
+			throw new IllegalArgumentException("The dimensions must be non-negative");
+		}
+		this.width = width;
+		this.height = height;
+		wordsPerRow = LargeBitArray.getWordCount(width);
+		lastWordMask = -1l >>> -width;
+		words = new long[wordsPerRow * height];
+	}
+	/**
+	 * Adds the passed long (one for every true bit) to the passed bit-sliced count, by rippling the carry through the bit
+	 * planes.
+	 */
+	private static final void addToCount(long addend, long[] count) {
+		for (int planeIndex = 0; 4 != planeIndex && 0 != addend; planeIndex++) {
+			final long carry = count[planeIndex] & addend;
+			count[planeIndex] ^= addend;
+			addend = carry;
+		}
+	}
+	/**
+	 * Changes this grid so that every bit is true if it and the corresponding bit in the passed grid are both true. Both
+	 * grids must have the same dimensions.
+	 */
+	public final void and(BitGrid source) {
+		LargeBitArray.and(words, source.words);
+	}
+	/**
+	 * Changes this grid so that every bit is true if it is true and the corresponding bit in the passed grid is false. Both
+	 * grids must have the same dimensions.
+	 */
+	public final void andNot(BitGrid source) {
+		LargeBitArray.andNot(words, source.words);
+	}
+	/**
+	 * Counts the true neighbours of the bits in the long with the passed index of the passed row, writing the counts as
+	 * four bit planes into the passed output: the first long holds the lowest bit of every count, and so on.
+	 */
+	private final void countNeighbours(int wordIndex, int y, boolean includeDiagonals, long[] output) {
+		output[0] = output[1] = output[2] = output[3] = 0;
+		addToCount(getWestWord(wordIndex, y), output);
+		addToCount(getEastWord(wordIndex, y), output);
+		addToCount(getWord(wordIndex, y - 1), output);
+		addToCount(getWord(wordIndex, y + 1), output);
+		if (includeDiagonals) {
+			addToCount(getWestWord(wordIndex, y - 1), output);
+			addToCount(getEastWord(wordIndex, y - 1), output);
+			addToCount(getWestWord(wordIndex, y + 1), output);
+			addToCount(getEastWord(wordIndex, y + 1), output);
+		}
+	}
+	/**
+	 * Returns a new grid, in which every bit is true if the corresponding bit in this grid or any of its neighbours is true.
+	 * The neighbours are the bits above, below, to the left and to the right, and the four diagonal bits if includeDiagonals
+	 * is true.
+	 */
+	public final BitGrid dilate(boolean includeDiagonals) {
+		final BitGrid result = new BitGrid(width, height);
+		int offset = 0;
+		for (int y = 0; height != y; y++) {
+			for (int wordIndex = 0; wordsPerRow != wordIndex; wordIndex++) {
+				long word = getWord(wordIndex, y) | getWestWord(wordIndex, y) | getEastWord(wordIndex, y) |
+						getWord(wordIndex, y - 1) | getWord(wordIndex, y + 1);
+				if (includeDiagonals) {
+					word |= getWestWord(wordIndex, y - 1) | getEastWord(wordIndex, y - 1) |
+							getWestWord(wordIndex, y + 1) | getEastWord(wordIndex, y + 1);
+				}
+				if (wordsPerRow - 1 == wordIndex) {
+					word &= lastWordMask;
+				}
+				result.words[offset++] = word;
+			}
+		}
+		return result;
+	}
+	/**
+	 * Returns a new grid, in which every bit is true if the corresponding bit in this grid and all of its neighbours are
+	 * true. The neighbours are the bits above, below, to the left and to the right, and the four diagonal bits if
+	 * includeDiagonals is true. As bits outside the grid are considered false, the bits at the edges of the grid become false.
+	 */
+	public final BitGrid erode(boolean includeDiagonals) {
+		final BitGrid result = new BitGrid(width, height);
+		int offset = 0;
+		for (int y = 0; height != y; y++) {
+			for (int wordIndex = 0; wordsPerRow != wordIndex; wordIndex++) {
+				long word = getWord(wordIndex, y) & getWestWord(wordIndex, y) & getEastWord(wordIndex, y) &
+						getWord(wordIndex, y - 1) & getWord(wordIndex, y + 1);
+				if (includeDiagonals) {
+					word &= getWestWord(wordIndex, y - 1) & getEastWord(wordIndex, y - 1) &
+							getWestWord(wordIndex, y + 1) & getEastWord(wordIndex, y + 1);
+				}
+				result.words[offset++] = word;
+			}
+		}
+		// As the padding bits of this grid are false, the padding bits of the result are false too.
+		return result;
+	}
+	/**
+	 * Grows the passed region, which has true bits only in the passed row, until it contains every true bit of this grid
+	 * that is connected to it. Writes the first and the last row the grown region spans into the passed span.
+	 */
+	private final void fill(BitGrid region, int y, boolean includeDiagonals, long[] seeds, int[] span) {
+		// Keep track of the rows the region spans, as only those and the rows directly around them can change.
+		int top = y;
+		int bottom = y;
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int sweepY = Math.max(top - 1, 0); sweepY <= bottom + 1 && height != sweepY; sweepY++) {
+				if (fillRow(region, sweepY, includeDiagonals, seeds)) {
+					changed = true;
+					top = Math.min(top, sweepY);
+					bottom = Math.max(bottom, sweepY);
+				}
+			}
+			for (int sweepY = Math.min(bottom + 1, height - 1); sweepY >= top - 1 && -1 != sweepY; sweepY--) {
+				if (fillRow(region, sweepY, includeDiagonals, seeds)) {
+					changed = true;
+					top = Math.min(top, sweepY);
+					bottom = Math.max(bottom, sweepY);
+				}
+			}
+		}
+		span[0] = top;
+		span[1] = bottom;
+	}
+	/**
+	 * Spreads the true bits of the passed generator towards the lower positions, through the true bits of the passed
+	 * propagators, in log(64) steps (a Kogge-Stone fill). The generator must be a subset of the propagators.
+	 */
+	private static final long fillDown(long generator, long propagators) {
+		generator |= propagators & (generator >>> 1);
+		propagators &= propagators >>> 1;
+		generator |= propagators & (generator >>> 2);
+		propagators &= propagators >>> 2;
+		generator |= propagators & (generator >>> 4);
+		propagators &= propagators >>> 4;
+		generator |= propagators & (generator >>> 8);
+		propagators &= propagators >>> 8;
+		generator |= propagators & (generator >>> 16);
+		propagators &= propagators >>> 16;
+		return generator | (propagators & (generator >>> 32));
+	}
+	/**
+	 * Fills the passed row of the passed region: every string of true bits in this grid that contains a seed becomes true
+	 * in the region. The seeds are the true bits of that row of the region and its neighbours in the rows above and below.
+	 * Returns whether the region changed.
+	 */
+	private final boolean fillRow(BitGrid region, int y, boolean includeDiagonals, long[] seeds) {
+		final int offset = y * wordsPerRow;
+		boolean seeded = false;
+		for (int wordIndex = 0; wordsPerRow != wordIndex; wordIndex++) {
+			long seed = region.getWord(wordIndex, y - 1) | region.getWord(wordIndex, y + 1);
+			if (includeDiagonals) {
+				seed |= region.getWestWord(wordIndex, y - 1) | region.getEastWord(wordIndex, y - 1) |
+						region.getWestWord(wordIndex, y + 1) | region.getEastWord(wordIndex, y + 1);
+			}
+			seed = (seed & words[offset + wordIndex]) | region.words[offset + wordIndex];
+			seeds[wordIndex] = seed;
+			if (0 != seed) {
+				seeded = true;
+			}
+		}
+		if (false == seeded) {
+			return false;
+		}
+		// Fill towards the higher positions, carrying the highest bit of every long into the next one.
+		long carry = 0;
+		for (int wordIndex = 0; wordsPerRow != wordIndex; wordIndex++) {
+			final long propagators = words[offset + wordIndex];
+			carry = seeds[wordIndex] = fillUp(seeds[wordIndex] | (carry & propagators), propagators);
+			carry >>>= 63;
+		}
+		// Fill towards the lower positions, carrying the lowest bit of every long into the previous one.
+		boolean changed = false;
+		carry = 0;
+		for (int wordIndex = wordsPerRow - 1; -1 != wordIndex; wordIndex--) {
+			final long propagators = words[offset + wordIndex];
+			final long word = fillDown(seeds[wordIndex] | (carry & propagators), propagators);
+			carry = word << 63;
+			if (word != region.words[offset + wordIndex]) {
+				region.words[offset + wordIndex] = word;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+	/**
+	 * Spreads the true bits of the passed generator towards the higher positions, through the true bits of the passed
+	 * propagators, in log(64) steps (a Kogge-Stone fill). The generator must be a subset of the propagators.
+	 */
+	private static final long fillUp(long generator, long propagators) {
+		generator |= propagators & (generator << 1);
+		propagators &= propagators << 1;
+		generator |= propagators & (generator << 2);
+		propagators &= propagators << 2;
+		generator |= propagators & (generator << 4);
+		propagators &= propagators << 4;
+		generator |= propagators & (generator << 8);
+		propagators &= propagators << 8;
+		generator |= propagators & (generator << 16);
+		propagators &= propagators << 16;
+		return generator | (propagators & (generator << 32));
+	}
+	/**
+	 * Returns the bit at the passed coordinates.
+	 */
+	public final boolean getBit(int x, int y) {
+		return 0 != (words[y * wordsPerRow + (x >>> 6)] & 1l << x);
+	}
+	/**
+	 * Writes the bounding box of the true bits into the passed output, as the left, top, right and bottom edges. The right
+	 * and bottom edges are exclusive. Returns false (and leaves the output untouched) if no bit is true.
+	 */
+	public final boolean getBoundingBox(int[] output) {
+		// Or all rows together, noting the first and the last row that contain a true bit.
+		final long[] combinedRow = new long[wordsPerRow];
+		int top = LargeBitArray.NONE;
+		int bottom = LargeBitArray.NONE;
+		int offset = 0;
+		for (int y = 0; height != y; y++) {
+			long rowUnion = 0;
+			for (int wordIndex = 0; wordsPerRow != wordIndex; wordIndex++) {
+				final long word = words[offset++];
+				combinedRow[wordIndex] |= word;
+				rowUnion |= word;
+			}
+			if (0 != rowUnion) {
+				if (LargeBitArray.NONE == top) {
+					top = y;
+				}
+				bottom = y;
+			}
+		}
+		if (LargeBitArray.NONE == top) {
+			return false;
+		}
+		int right = wordsPerRow;
+		while (0 == combinedRow[--right]);
+		output[0] = LargeBitArray.getFirstTrueBit(combinedRow);
+		output[1] = top;
+		output[2] = (right << 6) + 64 - Long.numberOfLeadingZeros(combinedRow[right]);
+		output[3] = bottom + 1;
+		return true;
+	}
+	/**
+	 * Returns the long with the passed index of the passed row, shifted so that every bit is aligned with its east (right)
+	 * neighbour. Returns zero if the row is outside the grid.
+	 */
+	private final long getEastWord(int wordIndex, int y) {
+		if (y < 0 || y >= height) {
+			return 0;
+		}
+		final int index = y * wordsPerRow + wordIndex;
+		long result = words[index] >>> 1;
+		if (wordsPerRow - 1 != wordIndex) {
+			result |= words[index + 1] << 63;
+		}
+		return result;
+	}
+	/**
+	 * Returns the number of rows.
+	 */
+	public final int getHeight() {
+		return height;
+	}
+	/**
+	 * Returns the number of true neighbours of the bit at the passed coordinates. The neighbours are the bits above, below,
+	 * to the left and to the right, and the four diagonal bits if includeDiagonals is true.
+	 */
+	public final int getNeighbourCount(int x, int y, boolean includeDiagonals) {
+		// Take the bit at the passed column from each of the neighbour longs which countNeighbours adds, without allocating.
+		final int wordIndex = x >>> 6;
+		int result = (int) (getWestWord(wordIndex, y) >>> x & 1) + (int) (getEastWord(wordIndex, y) >>> x & 1) +
+				(int) (getWord(wordIndex, y - 1) >>> x & 1) + (int) (getWord(wordIndex, y + 1) >>> x & 1);
+		if (includeDiagonals) {
+			result += (int) (getWestWord(wordIndex, y - 1) >>> x & 1) + (int) (getEastWord(wordIndex, y - 1) >>> x & 1) +
+					(int) (getWestWord(wordIndex, y + 1) >>> x & 1) + (int) (getEastWord(wordIndex, y + 1) >>> x & 1);
+		}
+		return result;
+	}
+	/**
+	 * Returns a new grid, in which every bit is true if the number of true neighbours of the corresponding bit in this grid
+	 * is between the passed minimum and maximum (inclusive). The neighbours are the bits above, below, to the left and to
+	 * the right, and the four diagonal bits if includeDiagonals is true.
+	 *
+	 * The neighbours are counted for 64 bits at once, with one long for every bit of the count. This means a step of
+	 * Conway's Game of Life, for instance, is calculated with only a few dozen operations per 64 cells.
+	 */
+	public final BitGrid getNeighbourCountMask(int minimumCount, int maximumCount, boolean includeDiagonals) {
+		final BitGrid result = new BitGrid(width, height);
+		final long[] count = new long[4];
+		int offset = 0;
+		for (int y = 0; height != y; y++) {
+			for (int wordIndex = 0; wordsPerRow != wordIndex; wordIndex++) {
+				countNeighbours(wordIndex, y, includeDiagonals, count);
+				long word = 0;
+				for (int value = Math.max(minimumCount, 0); value <= maximumCount && 8 >= value; value++) {
+					// Determine which bits have a count equal to this value, by comparing every bit plane.
+					long equal = -1l;
+					for (int planeIndex = 0; 4 != planeIndex; planeIndex++) {
+						equal &= 0 != (value & 1 << planeIndex) ? count[planeIndex] : ~count[planeIndex];
+					}
+					word |= equal;
+				}
+				if (wordsPerRow - 1 == wordIndex) {
+					word &= lastWordMask;
+				}
+				result.words[offset++] = word;
+			}
+		}
+		return result;
+	}
+	/**
+	 * Returns a new grid, in which the true bits are the true bits of this grid that are connected to the bit at the passed
+	 * coordinates (a flood fill). Two true bits are connected if they are neighbours, or if both are connected to a third.
+	 * The neighbours are the bits above, below, to the left and to the right, and the four diagonal bits if
+	 * includeDiagonals is true. If the bit at the passed coordinates is false, no bit in the returned grid is true.
+	 *
+	 * Every row is filled 64 bits at a time. The rows are swept top to bottom and bottom to top, until nothing changes.
+	 */
+	public final BitGrid getRegion(int x, int y, boolean includeDiagonals) {
+		final BitGrid result = new BitGrid(width, height);
+		if (getBit(x, y)) {
+			result.setBit(x, y, true);
+			fill(result, y, includeDiagonals, new long[wordsPerRow], new int[2]);
+		}
+		return result;
+	}
+	/**
+	 * Returns the number of true bits.
+	 */
+	public final int getTrueBitCount() {
+		return LargeBitArray.getTrueBitCount(words);
+	}
+	/**
+	 * Returns the long with the passed index of the passed row, shifted so that every bit is aligned with its west (left)
+	 * neighbour. Returns zero if the row is outside the grid.
+	 */
+	private final long getWestWord(int wordIndex, int y) {
+		if (y < 0 || y >= height) {
+			return 0;
+		}
+		final int index = y * wordsPerRow + wordIndex;
+		long result = words[index] << 1;
+		if (0 != wordIndex) {
+			result |= words[index - 1] >>> 63;
+		}
+		return result;
+	}
+	/**
+	 * Returns the number of columns.
+	 */
+	public final int getWidth() {
+		return width;
+	}
+	/**
+	 * Returns the long with the passed index of the passed row. Returns zero if the row is outside the grid.
+	 */
+	private final long getWord(int wordIndex, int y) {
+		if (y < 0 || y >= height) {
+			return 0;
+		}
+		return words[y * wordsPerRow + wordIndex];
+	}
+	/**
+	 * Returns the rows, one after the other, as longs. Row y starts at index y × {@link #getWordsPerRow()}. The returned
+	 * array is the one backing this grid, not a copy. Modifying it modifies this grid; the bits beyond the width in the last
+	 * long of every row must remain false.
+	 */
+	public final long[] getWords() {
+		return words;
+	}
+	/**
+	 * Returns the number of longs per row.
+	 */
+	public final int getWordsPerRow() {
+		return wordsPerRow;
+	}
+	/**
+	 * Labels the regions of connected true bits (see {@link #getRegion(int, int, boolean)}). The passed output, which must
+	 * have a length of at least width × height, receives the label of every bit in row-major order. The labels of the
+	 * regions are 1, 2 and so on, and the label of every false bit is 0. Returns the number of regions.
+	 */
+	public final int labelRegions(int[] output, boolean includeDiagonals) {
+		Arrays.fill(output, 0, width * height, 0);
+		final BitGrid remaining = new BitGrid(this);
+		final BitGrid region = new BitGrid(width, height);
+		final long[] seeds = new long[wordsPerRow];
+		final int[] span = new int[2];
+		int label = 0;
+		int offset = LargeBitArray.getFirstTrueBit(remaining.words);
+		while (LargeBitArray.NONE != offset) {
+			// Determine the region that contains the first remaining true bit.
+			label++;
+			final int y = (offset >>> 6) / wordsPerRow;
+			final int x = ((offset >>> 6) % wordsPerRow << 6) + (offset & 63);
+			region.setBit(x, y, true);
+			fill(region, y, includeDiagonals, seeds, span);
+			// Label the bits in the region, remove them from the remaining bits and clear the region for the next one.
+			final int endIndex = (span[1] + 1) * wordsPerRow;
+			for (int index = span[0] * wordsPerRow; endIndex != index; index++) {
+				long word = region.words[index];
+				if (0 != word) {
+					region.words[index] = 0;
+					remaining.words[index] &= ~word;
+					final int rowOffset = index / wordsPerRow * width + (index % wordsPerRow << 6);
+					while (0 != word) {
+						output[rowOffset + Long.numberOfTrailingZeros(word)] = label;
+						word &= word - 1;
+					}
+				}
+			}
+			offset = LargeBitArray.getNextTrueBit(remaining.words, offset);
+		}
+		return label;
+	}
+	/**
+	 * Changes this grid so that every bit is true if it or the corresponding bit in the passed grid is true. Both grids
+	 * must have the same dimensions.
+	 */
+	public final void or(BitGrid source) {
+		LargeBitArray.or(words, source.words);
+	}
+	/**
+	 * Sets the bit at the passed coordinates to the passed value.
+	 */
+	public final void setBit(int x, int y, boolean value) {
+		final int index = y * wordsPerRow + (x >>> 6);
+		if (value) {
+			words[index] |= 1l << x;
+		} else /* if (false == value) */ {
+			words[index] &= ~(1l << x);
+		}
+	}
+	/**
+	 * Returns a new grid, in which the bits of this grid are moved the passed distances to the right (positive x) and down
+	 * (positive y). Bits that are moved outside the grid are lost, and the bits that are moved into it are false.
+	 */
+	public final BitGrid shift(int x, int y) {
+		final BitGrid result = new BitGrid(width, height);
+		// The destination long with index i gets the bits of the source row starting at position i × 64 + sourceOffset.
+		final int sourceOffset = -x;
+		final int wordShift = sourceOffset >> 6;
+		final int bitShift = sourceOffset & 63;
+		for (int destinationY = Math.max(y, 0); Math.min(height + y, height) > destinationY; destinationY++) {
+			final int sourceRowOffset = (destinationY - y) * wordsPerRow;
+			final int destinationRowOffset = destinationY * wordsPerRow;
+			for (int wordIndex = 0; wordsPerRow != wordIndex; wordIndex++) {
+				final int sourceWordIndex = wordIndex + wordShift;
+				long word = 0;
+				if (sourceWordIndex >= 0 && sourceWordIndex < wordsPerRow) {
+					word = words[sourceRowOffset + sourceWordIndex] >>> bitShift;
+				}
+				if (0 != bitShift && sourceWordIndex + 1 >= 0 && sourceWordIndex + 1 < wordsPerRow) {
+					word |= words[sourceRowOffset + sourceWordIndex + 1] << -bitShift;
+				}
+				if (wordsPerRow - 1 == wordIndex) {
+					word &= lastWordMask;
+				}
+				result.words[destinationRowOffset + wordIndex] = word;
+			}
+		}
+		return result;
+	}
+	/**
+	 * Returns a string representation of this grid, with a line for every row. True bits are represented by 1, false bits
+	 * by 0.
+	 */
+	@Override
+	public final String toString() {
+		final StringBuilder resultBuilder = new StringBuilder((width + 1) * height);
+		for (int y = 0; height != y; y++) {
+			for (int x = 0; width != x; x++) {
+				resultBuilder.append(getBit(x, y) ? '1' : '0');
+			}
+			resultBuilder.append('\n');
+		}
+		return resultBuilder.toString();
+	}
+}
@@ -0,0 +1,713 @@
+/**
+ * Copyright 2013 Pimm Hogeling
+ *
+ * Giant Snail open is free software. Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Alternatively, the Software may be used under the terms of either the GNU General Public License Version 3 or later (the
+ * "GPL"), or the GNU Lesser General Public License Version 3 or later (the "LGPL"), in which case the provisions of the GPL or
+ * the LGPL are applicable instead of those above.
+ */
+
+package org.ilumbo.giantsnail.mathematics;
+
+import java.util.Arrays;
+
+/**
+ * An array of bits that takes little memory if it has either few true bits or few false bits. The positions are divided into
+ * chunks of 65536. Every chunk that has at least one true bit is represented by a container, which picks one of three
+ * representations: the sorted positions of the true bits, a bit array as used by {@link LargeBitArray}, or the strings of
+ * true bits. Chunks without true bits take no memory at all. This is the approach of Roaring bitmaps, by Daniel Lemire et al.
+ *
+ * This class can be useful for bit arrays with millions of positions. Say your world has a million tiles, a few hundred of
+ * which hold treasure. A bit array as used by LargeBitArray would take 125 kB, while this class takes a few hundred bytes.
+ * The methods behave like the ones in LargeBitArray, so {@link #getBit(int)} and {@link #getNextTrueBit(int)} return the same
+ * as {@link LargeBitArray#getBit(long[], int)} and {@link LargeBitArray#getNextTrueBit(long[], int)} would for the same bits.
+ *
+ * Containers that hold the strings of true bits are only created by {@link #setBits(int, int, boolean)} and
+ * {@link #optimize()}. Call the latter after making many changes.
+ */
+public final class CompressedBitArray {
+	/**
+	 * A container that holds the sorted positions of the true bits in the chunk. Used for chunks with at most
+	 * {@link CompressedBitArray#ARRAY_CONTAINER_MAXIMUM_COUNT} true bits.
+	 */
+	private static final class ArrayContainer extends Container {
+		/**
+		 * The number of true bits.
+		 */
+		private int count;
+		/**
+		 * The positions of the true bits, sorted. Every value with an index that equals the count or greater is garbage.
+		 */
+		private char[] values;
+		public ArrayContainer(char[] values, int count) {
+			this.values = values;
+			this.count = count;
+		}
+		@Override
+		public final Container and(Container other) {
+			final char[] resultValues = new char[count];
+			int resultCount = 0;
+			if (other instanceof ArrayContainer) {
+				// Merge the two sorted arrays.
+				final ArrayContainer otherArray = (ArrayContainer) other;
+				int index = 0, otherIndex = 0;
+				while (count != index && otherArray.count != otherIndex) {
+					final char value = values[index];
+					final char otherValue = otherArray.values[otherIndex];
+					if (value < otherValue) {
+						index++;
+					} else if (value > otherValue) {
+						otherIndex++;
+					} else /* if (value == otherValue) */ {
+						resultValues[resultCount++] = value;
+						index++;
+						otherIndex++;
+					}
+				}
+			} else /* if (false == other instanceof ArrayContainer) */ {
+				for (int index = 0; count != index; index++) {
+					if (other.getBit(values[index])) {
+						resultValues[resultCount++] = values[index];
+					}
+				}
+			}
+			return 0 == resultCount ? null : new ArrayContainer(resultValues, resultCount);
+		}
+		@Override
+		public final Container copy() {
+			final char[] valuesCopy = new char[count];
+			System.arraycopy(values, 0, valuesCopy, 0, count);
+			return new ArrayContainer(valuesCopy, count);
+		}
+		@Override
+		public final void fillWords(long[] words) {
+			for (int index = 0; count != index; index++) {
+				words[values[index] >>> 6] |= 1l << values[index];
+			}
+		}
+		@Override
+		public final boolean getBit(int position) {
+			return search(values, count, position) >= 0;
+		}
+		@Override
+		public final int getNextTrueBit(int fromPosition) {
+			final int index = search(values, count, fromPosition);
+			if (index >= 0) {
+				return fromPosition;
+			}
+			return ~index == count ? NONE : values[~index];
+		}
+		@Override
+		public final int getSizeInBytes() {
+			return count << 1;
+		}
+		@Override
+		public final int getTrueBitCount() {
+			return count;
+		}
+		@Override
+		public final Container or(Container other) {
+			if (false == other instanceof ArrayContainer) {
+				return other.or(this);
+			}
+			// Merge the two sorted arrays.
+			final ArrayContainer otherArray = (ArrayContainer) other;
+			final char[] resultValues = new char[count + otherArray.count];
+			int resultCount = 0;
+			int index = 0, otherIndex = 0;
+			while (count != index || otherArray.count != otherIndex) {
+				if (otherArray.count == otherIndex || (count != index && values[index] < otherArray.values[otherIndex])) {
+					resultValues[resultCount++] = values[index++];
+				} else if (count == index || values[index] > otherArray.values[otherIndex]) {
+					resultValues[resultCount++] = otherArray.values[otherIndex++];
+				} else /* if (values[index] == otherArray.values[otherIndex]) */ {
+					resultValues[resultCount++] = values[index++];
+					otherIndex++;
+				}
+			}
+			if (resultCount > ARRAY_CONTAINER_MAXIMUM_COUNT) {
+				final long[] words = new long[CHUNK_WORD_COUNT];
+				fillWords(words);
+				other.fillWords(words);
+				return new BitmapContainer(words, resultCount);
+			}
+			return new ArrayContainer(resultValues, resultCount);
+		}
+		@Override
+		public final Container setBit(int position, boolean value) {
+			int index = search(values, count, position);
+			// Do nothing if the bit already has the passed value.
+			if (index >= 0 == value) {
+				return this;
+			}
+			if (value) {
+				// Switch to a bitmap container if this container is full.
+				if (ARRAY_CONTAINER_MAXIMUM_COUNT == count) {
+					final long[] words = new long[CHUNK_WORD_COUNT];
+					fillWords(words);
+					return new BitmapContainer(words, count).setBit(position, true);
+				}
+				// Increase the capacity if needed, and insert the position.
+				if (values.length == count) {
+					final char[] newValues = new char[Math.min(count << 1, ARRAY_CONTAINER_MAXIMUM_COUNT)];
+					System.arraycopy(values, 0, newValues, 0, count);
+					values = newValues;
+				}
+				index = ~index;
+				System.arraycopy(values, index, values, index + 1, count - index);
+				values[index] = (char) position;
+				count++;
+				return this;
+			} else /* if (false == value) */ {
+				// Remove the position, or this entire container if it was the only one.
+				if (0 == --count) {
+					return null;
+				}
+				System.arraycopy(values, index + 1, values, index, count - index);
+				return this;
+			}
+		}
+	}
+	/**
+	 * A container that holds a bit array of the entire chunk. Used for chunks with more than
+	 * {@link CompressedBitArray#ARRAY_CONTAINER_MAXIMUM_COUNT} true bits.
+	 */
+	private static final class BitmapContainer extends Container {
+		/**
+		 * The number of true bits.
+		 */
+		private int count;
+		/**
+		 * The bit array.
+		 */
+		private final long[] words;
+		public BitmapContainer(long[] words, int count) {
+			this.words = words;
+			this.count = count;
+		}
+		@Override
+		public final Container and(Container other) {
+			if (false == other instanceof BitmapContainer) {
+				return other.and(this);
+			}
+			final long[] otherWords = ((BitmapContainer) other).words;
+			final long[] resultWords = new long[CHUNK_WORD_COUNT];
+			int resultCount = 0;
+			for (int wordIndex = 0; CHUNK_WORD_COUNT != wordIndex; wordIndex++) {
+				resultCount += Long.bitCount(resultWords[wordIndex] = words[wordIndex] & otherWords[wordIndex]);
+			}
+			return createContainer(resultWords, resultCount);
+		}
+		@Override
+		public final Container copy() {
+			return new BitmapContainer(words.clone(), count);
+		}
+		@Override
+		public final void fillWords(long[] words) {
+			LargeBitArray.or(words, this.words);
+		}
+		@Override
+		public final boolean getBit(int position) {
+			return LargeBitArray.getBit(words, position);
+		}
+		@Override
+		public final int getNextTrueBit(int fromPosition) {
+			return LargeBitArray.getNextTrueBit(words, fromPosition);
+		}
+		@Override
+		public final int getSizeInBytes() {
+			return CHUNK_WORD_COUNT << 3;
+		}
+		@Override
+		public final int getTrueBitCount() {
+			return count;
+		}
+		@Override
+		public final Container or(Container other) {
+			if (other instanceof RunContainer) {
+				return other.or(this);
+			}
+			final long[] resultWords = words.clone();
+			other.fillWords(resultWords);
+			return new BitmapContainer(resultWords, LargeBitArray.getTrueBitCount(resultWords));
+		}
+		@Override
+		public final Container setBit(int position, boolean value) {
+			// Do nothing if the bit already has the passed value.
+			if (LargeBitArray.getBit(words, position) == value) {
+				return this;
+			}
+			LargeBitArray.setBit(words, position, value);
+			if (value) {
+				count++;
+				return this;
+			// Switch to an array container if this container has become small enough.
+			} else /* if (false == value) */ {
+				return --count > ARRAY_CONTAINER_MAXIMUM_COUNT ? this : createContainer(words, count);
+			}
+		}
+	}
+	/**
+	 * A container for a chunk.
+	 */
+	private static abstract class Container {
+		/**
+		 * Returns a new container that has true bits where both this container and the passed one have true bits, or null if
+		 * there are no such bits.
+		 */
+		public abstract Container and(Container other);
+		/**
+		 * Returns a new container with the same bits.
+		 */
+		public abstract Container copy();
+		/**
+		 * Sets the bits in the passed bit array to true where this container has true bits.
+		 */
+		public abstract void fillWords(long[] words);
+		public abstract boolean getBit(int position);
+		/**
+		 * Returns the lowest from the set of positions of true bits that are equal to or greater than the passed position.
+		 * Returns NONE if there are no such true bits.
+		 */
+		public abstract int getNextTrueBit(int fromPosition);
+		/**
+		 * Returns (roughly) the number of bytes the data of this container takes.
+		 */
+		public abstract int getSizeInBytes();
+		public abstract int getTrueBitCount();
+		/**
+		 * Returns a new container that has true bits where this container or the passed one has true bits.
+		 */
+		public abstract Container or(Container other);
+		/**
+		 * Sets the value of the bit at the passed position. Returns the container that replaces this one, which is this
+		 * container itself unless a different representation fits better. Returns null if there are no true bits left.
+		 */
+		public abstract Container setBit(int position, boolean value);
+	}
+	/**
+	 * A container that holds the strings of true bits in the chunk. Used for chunks where that takes less memory than the
+	 * other representations.
+	 */
+	private static final class RunContainer extends Container {
+		/**
+		 * The number of strings of true bits.
+		 */
+		private final int runCount;
+		/**
+		 * For every string of true bits, the position of the first bit followed by the length minus one.
+		 */
+		private final char[] runs;
+		public RunContainer(char[] runs, int runCount) {
+			this.runs = runs;
+			this.runCount = runCount;
+		}
+		@Override
+		public final Container and(Container other) {
+			if (other instanceof ArrayContainer) {
+				return other.and(this);
+			}
+			final long[] resultWords = new long[CHUNK_WORD_COUNT];
+			fillWords(resultWords);
+			final long[] otherWords = new long[CHUNK_WORD_COUNT];
+			other.fillWords(otherWords);
+			LargeBitArray.and(resultWords, otherWords);
+			return createContainer(resultWords, LargeBitArray.getTrueBitCount(resultWords));
+		}
+		@Override
+		public final Container copy() {
+			return new RunContainer(runs.clone(), runCount);
+		}
+		@Override
+		public final void fillWords(long[] words) {
+			for (int runIndex = 0; runCount != runIndex; runIndex++) {
+				LargeBitArray.setBits(words, runs[runIndex << 1], runs[(runIndex << 1) + 1] + 1, true);
+			}
+		}
+		/**
+		 * Returns the index of the last string of true bits that starts at or before the passed position, or -1 if there is
+		 * no such string.
+		 */
+		private final int findRun(int position) {
+			int low = -1, high = runCount - 1;
+			while (low != high) {
+				final int guess = low + high + 1 >> 1;
+				if (runs[guess << 1] <= position) {
+					low = guess;
+				} else /* if (runs[guess << 1] > position) */ {
+					high = guess - 1;
+				}
+			}
+			return low;
+		}
+		@Override
+		public final boolean getBit(int position) {
+			final int runIndex = findRun(position);
+			return -1 != runIndex && position <= runs[runIndex << 1] + runs[(runIndex << 1) + 1];
+		}
+		@Override
+		public final int getNextTrueBit(int fromPosition) {
+			final int runIndex = findRun(fromPosition);
+			if (-1 != runIndex && fromPosition <= runs[runIndex << 1] + runs[(runIndex << 1) + 1]) {
+				return fromPosition;
+			}
+			return runCount == runIndex + 1 ? NONE : runs[runIndex + 1 << 1];
+		}
+		@Override
+		public final int getSizeInBytes() {
+			return runCount << 2;
+		}
+		@Override
+		public final int getTrueBitCount() {
+			int result = runCount;
+			for (int runIndex = 0; runCount != runIndex; runIndex++) {
+				result += runs[(runIndex << 1) + 1];
+			}
+			return result;
+		}
+		@Override
+		public final Container or(Container other) {
+			// If either container is full, so is the result.
+			if (this.getIsFull()) {
+				return copy();
+			} else if (other instanceof RunContainer && ((RunContainer) other).getIsFull()) {
+				return other.copy();
+			}
+			final long[] resultWords = new long[CHUNK_WORD_COUNT];
+			fillWords(resultWords);
+			other.fillWords(resultWords);
+			return createContainer(resultWords, LargeBitArray.getTrueBitCount(resultWords));
+		}
+		/**
+		 * Returns whether every bit in the chunk is true.
+		 */
+		private final boolean getIsFull() {
+			return 1 == runCount && 0 == runs[0] && CHUNK_SIZE - 1 == runs[1];
+		}
+		@Override
+		public final Container setBit(int position, boolean value) {
+			// Do nothing if the bit already has the passed value.
+			if (getBit(position) == value) {
+				return this;
+			}
+			// Switch to one of the other representations.
+			final long[] words = new long[CHUNK_WORD_COUNT];
+			fillWords(words);
+			return createContainer(words, getTrueBitCount()).setBit(position, value);
+		}
+	}
+	/**
+	 * The maximum number of true bits an array container holds. Beyond this number a bitmap container takes less memory.
+	 */
+	private static final int ARRAY_CONTAINER_MAXIMUM_COUNT = 4096;
+	/**
+	 * The number of positions in a chunk.
+	 */
+	private static final int CHUNK_SIZE = 1 << 16;
+	/**
+	 * The number of longs in a bit array that holds an entire chunk.
+	 */
+	private static final int CHUNK_WORD_COUNT = CHUNK_SIZE >>> 6;
+	/**
+	 * The position of a bit that does not exist. Returned by getFirstTrueBit if there are no true bits, for example.
+	 */
+	public static final int NONE = BitArray.NONE;
+	/**
+	 * The number of containers.
+	 */
+	private int containerCount;
+	/**
+	 * The containers, sorted by the chunk they are for. Every value with an index that equals the container count or greater
+	 * is garbage.
+	 */
+	private Container[] containers;
+	/**
+	 * The chunks the containers are for, where chunk n holds the positions n * 65536…n * 65536 + 65535 (inclusive).
+	 * <pre>keys[index]</pre> is the chunk of <pre>containers[index]</pre>.
+	 */
+	private char[] keys;
+	/**
+	 * Creates a bit array with all false bits.
+	 */
+	public CompressedBitArray() {
+		containers = new Container[4];
+		keys = new char[4];
+	}
+	/**
+	 * Changes this bit array so that every bit is true if the corresponding bit in this bit array and the corresponding bit in
+	 * the passed source are both true.
+	 */
+	public final void and(CompressedBitArray source) {
+		int resultCount = 0;
+		int sourceIndex = 0;
+		for (int index = 0; containerCount != index; index++) {
+			// Find the container in the source for the same chunk, if any.
+			while (source.containerCount != sourceIndex && source.keys[sourceIndex] < keys[index]) {
+				sourceIndex++;
+			}
+			if (source.containerCount == sourceIndex || source.keys[sourceIndex] != keys[index]) {
+				continue;
+			}
+			// Keep the result if it has any true bits.
+			final Container result = containers[index].and(source.containers[sourceIndex]);
+			if (null != result) {
+				keys[resultCount] = keys[index];
+				containers[resultCount++] = result;
+			}
+		}
+		// Clear the references to the containers that are no longer used.
+		for (int index = resultCount; containerCount != index; index++) {
+			containers[index] = null;
+		}
+		containerCount = resultCount;
+	}
+	/**
+	 * Creates a container for the passed bit array of a chunk, picking the representation that takes the least memory
+	 * (except for strings of true bits). Returns null if the passed count is zero.
+	 */
+	private static final Container createContainer(long[] words, int count) {
+		if (0 == count) {
+			return null;
+		} else if (count > ARRAY_CONTAINER_MAXIMUM_COUNT) {
+			return new BitmapContainer(words, count);
+		}
+		final char[] values = new char[count];
+		int index = 0;
+		for (int wordIndex = 0; CHUNK_WORD_COUNT != wordIndex; wordIndex++) {
+			long word = words[wordIndex];
+			while (0 != word) {
+				values[index++] = (char) ((wordIndex << 6) + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+		return new ArrayContainer(values, count);
+	}
+	/**
+	 * Returns the bit with the passed position.
+	 */
+	public final boolean getBit(int position) {
+		final int index = search(keys, containerCount, position >>> 16);
+		return index >= 0 && containers[index].getBit(position & CHUNK_SIZE - 1);
+	}
+	/**
+	 * Returns the lowest from the set of positions of true bits. Returns NONE if there are no true bits.
+	 */
+	public final int getFirstTrueBit() {
+		return getNextTrueBit(0);
+	}
+	/**
+	 * Returns the lowest from the set of positions of true bits that are equal to or greater than the passed position.
+	 * Returns NONE if there are no such true bits.
+	 */
+	public final int getNextTrueBit(int fromPosition) {
+		int index = search(keys, containerCount, fromPosition >>> 16);
+		// If there is a container for the chunk of the passed position, look in there first.
+		if (index >= 0) {
+			final int result = containers[index].getNextTrueBit(fromPosition & CHUNK_SIZE - 1);
+			if (NONE != result) {
+				return keys[index] << 16 | result;
+			}
+			index++;
+		} else /* if (index < 0) */ {
+			index = ~index;
+		}
+		// Every container has at least one true bit, so the next true bit is the first one in the next container.
+		return containerCount == index ? NONE : keys[index] << 16 | containers[index].getNextTrueBit(0);
+	}
+	/**
+	 * Returns (roughly) the number of bytes the data of this bit array takes.
+	 */
+	public final int getSizeInBytes() {
+		int result = containerCount << 1;
+		for (int index = 0; containerCount != index; index++) {
+			result += containers[index].getSizeInBytes();
+		}
+		return result;
+	}
+	/**
+	 * Returns the number of true bits.
+	 */
+	public final int getTrueBitCount() {
+		int result = 0;
+		for (int index = 0; containerCount != index; index++) {
+			result += containers[index].getTrueBitCount();
+		}
+		return result;
+	}
+	/**
+	 * Inserts the passed container for the passed chunk at the passed index.
+	 */
+	private final void insertContainer(int index, int key, Container container) {
+		// Increase the capacity if needed.
+		if (containers.length == containerCount) {
+			final Container[] newContainers = new Container[containerCount << 1];
+			System.arraycopy(containers, 0, newContainers, 0, containerCount);
+			containers = newContainers;
+			final char[] newKeys = new char[containerCount << 1];
+			System.arraycopy(keys, 0, newKeys, 0, containerCount);
+			keys = newKeys;
+		}
+		System.arraycopy(containers, index, containers, index + 1, containerCount - index);
+		System.arraycopy(keys, index, keys, index + 1, containerCount - index);
+		containers[index] = container;
+		keys[index] = (char) key;
+		containerCount++;
+	}
+	/**
+	 * Switches every container to the representation that takes the least memory, which might be holding the strings of
+	 * true bits.
+	 */
+	public final void optimize() {
+		final long[] words = new long[CHUNK_WORD_COUNT];
+		for (int index = 0; containerCount != index; index++) {
+			final Container container = containers[index];
+			Arrays.fill(words, 0);
+			container.fillWords(words);
+			// Count the strings of true bits: every string ends where a true bit is followed by a false bit.
+			int runCount = 0;
+			for (int wordIndex = 0; CHUNK_WORD_COUNT != wordIndex; wordIndex++) {
+				final long nextWord = CHUNK_WORD_COUNT - 1 == wordIndex ? 0 : words[wordIndex + 1];
+				runCount += Long.bitCount(words[wordIndex] & ~(words[wordIndex] >>> 1 | nextWord << 63));
+			}
+			final int count = container.getTrueBitCount();
+			if (runCount << 2 < Math.min(count > ARRAY_CONTAINER_MAXIMUM_COUNT ? Integer.MAX_VALUE : count << 1,
+					CHUNK_WORD_COUNT << 3)) {
+				// Switch to a run container.
+				final char[] runs = new char[runCount << 1];
+				int runIndex = 0;
+				int position = LargeBitArray.getNextTrueBit(words, 0);
+				while (NONE != position) {
+					int end = LargeBitArray.getNextFalseBit(words, position, CHUNK_SIZE);
+					if (NONE == end) {
+						end = CHUNK_SIZE;
+					}
+					runs[runIndex++] = (char) position;
+					runs[runIndex++] = (char) (end - position - 1);
+					position = CHUNK_SIZE == end ? NONE : LargeBitArray.getNextTrueBit(words, end);
+				}
+				containers[index] = new RunContainer(runs, runCount);
+			} else if (container instanceof RunContainer) {
+				// Switch away from a run container.
+				containers[index] = createContainer(words.clone(), count);
+			}
+		}
+	}
+	/**
+	 * Changes this bit array so that every bit is true if the corresponding bit in this bit array or the corresponding bit in
+	 * the passed source is true.
+	 */
+	public final void or(CompressedBitArray source) {
+		int index = 0;
+		for (int sourceIndex = 0; source.containerCount != sourceIndex; sourceIndex++) {
+			final int key = source.keys[sourceIndex];
+			// Find the container in this bit array for the same chunk, if any.
+			while (containerCount != index && keys[index] < key) {
+				index++;
+			}
+			if (containerCount != index && keys[index] == key) {
+				containers[index] = containers[index].or(source.containers[sourceIndex]);
+			} else {
+				insertContainer(index, key, source.containers[sourceIndex].copy());
+			}
+		}
+	}
+	/**
+	 * Binary searches for the passed value in the passed sorted array, up to the passed count. Returns the index if found,
+	 * and (-(insertion point) - 1) otherwise.
+	 */
+	private static final int search(char[] array, int count, int value) {
+		int low = 0, high = count - 1;
+		while (low <= high) {
+			final int guess = low + high >>> 1;
+			if (array[guess] < value) {
+				low = guess + 1;
+			} else if (array[guess] > value) {
+				high = guess - 1;
+			} else /* if (array[guess] == value) */ {
+				return guess;
+			}
+		}
+		return ~low;
+	}
+	/**
+	 * Sets the value of the bit at the passed position.
+	 */
+	public final void setBit(int position, boolean value) {
+		final int key = position >>> 16;
+		final int index = search(keys, containerCount, key);
+		if (index >= 0) {
+			final Container container = containers[index].setBit(position & CHUNK_SIZE - 1, value);
+			if (null != container) {
+				containers[index] = container;
+			} else {
+				removeContainer(index);
+			}
+		} else if (value) {
+			insertContainer(~index, key, new ArrayContainer(new char[]{(char) position}, 1));
+		}
+	}
+	/**
+	 * Sets the value of the passed number of bits starting at the passed position. Chunks that become entirely true are held
+	 * as a single string of true bits.
+	 */
+	public final void setBits(int firstPosition, int count, boolean value) {
+		final int end = firstPosition + count;
+		int position = firstPosition;
+		while (end != position) {
+			final int key = position >>> 16;
+			final int relativePosition = position & CHUNK_SIZE - 1;
+			final int relativeCount = Math.min(end - position, CHUNK_SIZE - relativePosition);
+			final int chunkEnd = position + relativeCount;
+			int index = search(keys, containerCount, key);
+			if (CHUNK_SIZE == relativeCount) {
+				// The entire chunk is set.
+				if (value) {
+					final Container container = new RunContainer(new char[]{0, CHUNK_SIZE - 1}, 1);
+					if (index >= 0) {
+						containers[index] = container;
+					} else {
+						insertContainer(~index, key, container);
+					}
+				} else if (index >= 0) {
+					removeContainer(index);
+				}
+			} else if (index >= 0 || value) {
+				// Part of the chunk is set.
+				final long[] words = new long[CHUNK_WORD_COUNT];
+				if (index >= 0) {
+					containers[index].fillWords(words);
+				}
+				LargeBitArray.setBits(words, relativePosition, relativeCount, value);
+				final Container container = createContainer(words, LargeBitArray.getTrueBitCount(words));
+				if (index < 0) {
+					insertContainer(~index, key, container);
+				} else if (null != container) {
+					containers[index] = container;
+				} else {
+					removeContainer(index);
+				}
+			}
+			position = chunkEnd;
+		}
+	}
+	/**
+	 * Removes the container at the passed index.
+	 */
+	private final void removeContainer(int index) {
+		System.arraycopy(containers, index + 1, containers, index, containerCount - index - 1);
+		System.arraycopy(keys, index + 1, keys, index, containerCount - index - 1);
+		containers[--containerCount] = null;
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2013 Pimm Hogeling
+ *
+ * Giant Snail open is free software. Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Alternatively, the Software may be used under the terms of either the GNU General Public License Version 3 or later (the
+ * "GPL"), or the GNU Lesser General Public License Version 3 or later (the "LGPL"), in which case the provisions of the GPL or
+ * the LGPL are applicable instead of those above.
+ */
+
+package org.ilumbo.giantsnail.mathematics;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A random number generator that is faster than {@link Random}. A random does a compare-and-set on an atomic long for every
+ * number it generates, so it can be shared between threads. Subclasses of this class do not: use one instance per thread,
+ * for example the one returned by {@link #getThreadInstance()}.
+ *
+ * As this class extends Random, instances can be passed to every method that accepts a random, such as
+ * {@link BitArray#getRandomTrueBit(int, Random)}. Two instances of the same subclass created with the same seed generate the
+ * same numbers, which makes them a good fit for deterministic level generation. Use {@link #split()} to derive an
+ * independent generator, for example one per room in a level, without disturbing the sequence of the original one.
+ */
+public abstract class FastRandom extends Random {
+	/**
+	 * The golden ratio as a 64-bit fraction, used to derive seeds.
+	 */
+	protected static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15l;
+	private static final long serialVersionUID = 1l;
+	/**
+	 * The seed for the next thread instance.
+	 */
+	private static final AtomicLong nextThreadInstanceSeed = new AtomicLong(System.nanoTime());
+	/**
+	 * The instances for every thread.
+	 */
+	private static final ThreadLocal<FastRandom> threadInstances = new ThreadLocal<FastRandom>() {
+		@Override
+		protected final FastRandom initialValue() {
+			return new Xoroshiro128PlusPlusRandom(nextThreadInstanceSeed.getAndAdd(GOLDEN_GAMMA) ^ System.nanoTime());
+		}
+	};
+	protected FastRandom(long seed) {
+		// This constructor calls setSeed, which the subclass overrides.
+		super(seed);
+	}
+	/**
+	 * Returns the instance for the calling thread. This instance can be used over and over again by that thread, but must
+	 * not be passed to other threads.
+	 */
+	public static final FastRandom getThreadInstance() {
+		return threadInstances.get();
+	}
+	/**
+	 * Scrambles the passed value into a value that has no apparent relation to it, using the SplitMix64 output function.
+	 * Useful to turn seeds that are similar to each other into seeds that are not.
+	 */
+	protected static final long mix(long value) {
+		value = (value ^ value >>> 30) * 0xBF58476D1CE4E5B9l;
+		value = (value ^ value >>> 27) * 0x94D049BB133111EBl;
+		return value ^ value >>> 31;
+	}
+	@Override
+	protected final int next(int bits) {
+		return (int) (nextLong() >>> Long.SIZE - bits);
+	}
+	@Override
+	public final boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+	@Override
+	public final double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+	@Override
+	public final float nextFloat() {
+		return (nextInt() >>> 8) * 0x1.0p-24f;
+	}
+	@Override
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+	/**
+	 * Returns a pseudorandom, uniformly distributed int value between 0 (inclusive) and the passed bound (exclusive). Uses
+	 * Daniel Lemire's multiply-and-shift method, which divides only in the rare case that a number is rejected.
+	 */
+	@Override
+	public final int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("The bound must be positive");
+		}
+		// Multiply a random 32-bit number by the bound. The upper 32 bits of the product are the result, unless the lower 32
+		// bits are so small that some results would be slightly more likely than others.
+		long product = (nextInt() & 0xFFFFFFFFl) * bound;
+		if ((product & 0xFFFFFFFFl) < bound) {
+			final long threshold = (0x100000000l - bound) % bound;
+			while ((product & 0xFFFFFFFFl) < threshold) {
+				product = (nextInt() & 0xFFFFFFFFl) * bound;
+			}
+		}
+		return (int) (product >>> 32);
+	}
+	@Override
+	public abstract long nextLong();
+	/**
+	 * Resets the state of this generator, so that it generates the same numbers as a new instance of the same class created
+	 * with the passed seed.
+	 */
+	@Override
+	public abstract void setSeed(long seed);
+	/**
+	 * Returns a new generator of the same class, seeded by this generator. The numbers generated by the returned generator
+	 * are independent of the numbers generated by this one.
+	 */
+	public abstract FastRandom split();
+}
@@ -0,0 +1,340 @@
+/**
+ * Copyright 2013 Pimm Hogeling
+ *
+ * Giant Snail open is free software. Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Alternatively, the Software may be used under the terms of either the GNU General Public License Version 3 or later (the
+ * "GPL"), or the GNU Lesser General Public License Version 3 or later (the "LGPL"), in which case the provisions of the GPL or
+ * the LGPL are applicable instead of those above.
+ */
+
+package org.ilumbo.giantsnail.mathematics;
+
+import java.util.Random;
+
+/**
+ * An array of bits of arbitrary length. The actual data is represented by an array of longs, where the bit with position p is
+ * bit (p % 64) of the long with index (p / 64). Bits in the last long with positions greater than or equal to the length of
+ * the bit array must be false.
+ *
+ * This class is the counterpart of {@link BitArray} for bit arrays that do not fit in a single primitive. Say your town has a
+ * few thousand buildings, some of which are on fire. Then a bit array generated by {@link Generator#generateFalseArray(int)}
+ * can hold which buildings are on fire using one bit per building. Unlike the methods in {@link BitArray}, the methods in this
+ * class that change bits modify the passed array rather than returning a new one.
+ */
+public final class LargeBitArray {
+	/**
+	 * Generates large bit arrays.
+	 */
+	public static final class Generator {
+		/**
+		 * Generates a bit array with the passed length and all false bits.
+		 */
+		public static final long[] generateFalseArray(final int length) {
+			return new long[getWordCount(length)];
+		}
+		/**
+		 * Generates a random bit array with the passed length that has the passed number of true bits.
+		 *
+		 * Throws an IllegalArgumentException if the trueBitCount argument is negative or greater than the length argument.
+		 */
+		public static final long[] generateRandomArray(final int length, final int trueBitCount) {
+			return generateRandomArray(length, trueBitCount, FastRandom.getThreadInstance());
+		}
+		/**
+		 * Generates a random bit array with the passed length that has the passed number of true bits. Every possible result
+		 * has equal probability of being returned. Draws at most (length / 2) random numbers, no matter the number of true
+		 * bits.
+		 *
+		 * Throws an IllegalArgumentException if the trueBitCount argument is negative or greater than the length argument.
+		 */
+		public static final long[] generateRandomArray(final int length, final int trueBitCount, final Random random) {
+			if (trueBitCount < 0 || trueBitCount > length) {
+				throw new IllegalArgumentException("The true bit count must be between 0 and the length (inclusive)");
+			}
+			// If more than half of the bits must be true, start with all true bits and choose which bits are flipped to false.
+			final boolean flipToFalse = trueBitCount << 1 > length;
+			final long[] result = flipToFalse ? generateTrueArray(length) : generateFalseArray(length);
+			final int flipCount = flipToFalse ? length - trueBitCount : trueBitCount;
+			// Robert Floyd's sampling algorithm. For every position from (length - flipCount) up to (length - 1), draw a
+			// position between 0 and that position (inclusive). If the drawn position is already flipped, flip the upper
+			// position instead.
+			for (int upperPosition = length - flipCount; length != upperPosition; upperPosition++) {
+				final int position = random.nextInt(upperPosition + 1);
+				final long bit = 1l << position;
+				if (flipToFalse != (0 == (result[position >>> 6] & bit))) {
+					result[position >>> 6] ^= bit;
+				} else {
+					result[upperPosition >>> 6] ^= 1l << upperPosition;
+				}
+			}
+			return result;
+		}
+		/**
+		 * Generates a bit array that has the passed number of true bits, filling all of the positions smaller than the passed
+		 * length.
+		 */
+		public static final long[] generateTrueArray(final int length) {
+			final long[] result = new long[getWordCount(length)];
+			final int lastWordIndex = result.length - 1;
+			for (int wordIndex = 0; lastWordIndex > wordIndex; wordIndex++) {
+				result[wordIndex] = -1l;
+			}
+			// -1l >>> -length keeps the lowest (length % 64) bits, or all of them if the length is a multiple of 64.
+			if (-1 != lastWordIndex) {
+				result[lastWordIndex] = -1l >>> -length;
+			}
+			return result;
+		}
+	}
+	/**
+	 * The position of a bit that does not exist. Returned by getFirstTrueBit if there are no true bits, for example.
+	 */
+	public static final int NONE = BitArray.NONE;
+	private static final char ONE = '1';
+	private static final char ZERO = '0';
+	/**
+	 * Changes the passed destination so that every bit is true if the corresponding bit in the destination and the
+	 * corresponding bit in the passed source are both true. Both arrays must have the same length.
+	 */
+	public static final void and(final long[] destination, final long[] source) {
+		for (int wordIndex = 0; destination.length != wordIndex; wordIndex++) {
+			destination[wordIndex] &= source[wordIndex];
+		}
+	}
+	/**
+	 * Changes the passed destination so that every bit is true if the corresponding bit in the destination is true and the
+	 * corresponding bit in the passed source is false. Both arrays must have the same length.
+	 */
+	public static final void andNot(final long[] destination, final long[] source) {
+		for (int wordIndex = 0; destination.length != wordIndex; wordIndex++) {
+			destination[wordIndex] &= ~source[wordIndex];
+		}
+	}
+	/**
+	 * Returns the bit with the passed position.
+	 */
+	public static final boolean getBit(final long[] input, final int position) {
+		return 0 != (input[position >>> 6] & 1l << position);
+	}
+	/**
+	 * Returns whether the bit with the passed first position is the first bit in a string of the passed number of true bits.
+	 */
+	public static final boolean getBitsAnd(final long[] input, final int firstPosition, final int count) {
+		if (0 == count) {
+			return true;
+		}
+		final int end = firstPosition + count;
+		int wordIndex = firstPosition >>> 6;
+		final int lastWordIndex = end - 1 >>> 6;
+		long mask = -1l << firstPosition;
+		// Check every word but the last one.
+		while (lastWordIndex != wordIndex) {
+			if (mask != (input[wordIndex++] & mask)) {
+				return false;
+			}
+			mask = -1l;
+		}
+		// Check the last word, ignoring the bits beyond the end of the string.
+		mask &= -1l >>> -end;
+		return mask == (input[wordIndex] & mask);
+	}
+	/**
+	 * Returns whether the string of the passed number of bits starting at the passed position contains at least one true bit.
+	 */
+	public static final boolean getBitsOr(final long[] input, final int firstPosition, final int count) {
+		if (0 == count) {
+			return false;
+		}
+		final int end = firstPosition + count;
+		int wordIndex = firstPosition >>> 6;
+		final int lastWordIndex = end - 1 >>> 6;
+		long mask = -1l << firstPosition;
+		// Check every word but the last one.
+		while (lastWordIndex != wordIndex) {
+			if (0 != (input[wordIndex++] & mask)) {
+				return true;
+			}
+			mask = -1l;
+		}
+		// Check the last word, ignoring the bits beyond the end of the string.
+		return 0 != (input[wordIndex] & mask & -1l >>> -end);
+	}
+	/**
+	 * Returns the lowest from the set of positions of true bits. Returns NONE if there are no true bits.
+	 */
+	public static final int getFirstTrueBit(final long[] input) {
+		return getNextTrueBit(input, 0);
+	}
+	/**
+	 * Returns the lowest from the set of positions of false bits that are equal to or greater than the passed position and
+	 * smaller than the passed length. Returns NONE if there are no such false bits.
+	 */
+	public static final int getNextFalseBit(final long[] input, final int fromPosition, final int length) {
+		if (fromPosition >= length) {
+			return NONE;
+		}
+		int wordIndex = fromPosition >>> 6;
+		// Invert the word, so the false bits become true bits. Ignore the bits before the passed position.
+		long word = ~input[wordIndex] & -1l << fromPosition;
+		final int lastWordIndex = length - 1 >>> 6;
+		while (0 == word) {
+			if (lastWordIndex == wordIndex) {
+				return NONE;
+			}
+			word = ~input[++wordIndex];
+		}
+		final int result = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+		return result < length ? result : NONE;
+	}
+	/**
+	 * Returns the lowest from the set of positions of true bits that are equal to or greater than the passed position.
+	 * Returns NONE if there are no such true bits.
+	 */
+	public static final int getNextTrueBit(final long[] input, final int fromPosition) {
+		int wordIndex = fromPosition >>> 6;
+		if (wordIndex >= input.length) {
+			return NONE;
+		}
+		// Ignore the bits before the passed position.
+		long word = input[wordIndex] & -1l << fromPosition;
+		while (0 == word) {
+			if (input.length == ++wordIndex) {
+				return NONE;
+			}
+			word = input[wordIndex];
+		}
+		return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+	}
+	/**
+	 * Returns the number of true bits.
+	 */
+	public static final int getTrueBitCount(final long[] input) {
+		int result = 0;
+		for (int wordIndex = 0; input.length != wordIndex; wordIndex++) {
+			result += Long.bitCount(input[wordIndex]);
+		}
+		return result;
+	}
+	/**
+	 * Returns the positions of the true bits, in ascending order.
+	 */
+	public static final int[] getTrueBitPositions(final long[] input) {
+		final int[] result = new int[getTrueBitCount(input)];
+		int index = 0;
+		for (int wordIndex = 0; input.length != wordIndex; wordIndex++) {
+			long word = input[wordIndex];
+			// Add the position of the lowest true bit, then flip that bit.
+			while (0 != word) {
+				result[index++] = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+			}
+		}
+		return result;
+	}
+	/**
+	 * Returns the number of longs needed to represent a bit array of the passed length.
+	 */
+	public static final int getWordCount(final int length) {
+		return length + 63 >>> 6;
+	}
+	/**
+	 * Changes the passed destination so that every bit is true if the corresponding bit in the destination or the
+	 * corresponding bit in the passed source is true. Both arrays must have the same length.
+	 */
+	public static final void or(final long[] destination, final long[] source) {
+		for (int wordIndex = 0; destination.length != wordIndex; wordIndex++) {
+			destination[wordIndex] |= source[wordIndex];
+		}
+	}
+	/**
+	 * Returns a bit array with the same bits but in the reversed order.
+	 */
+	public static final long[] reverse(final long[] input, final int length) {
+		final int wordCount = getWordCount(length);
+		final long[] result = new long[wordCount];
+		if (0 == wordCount) {
+			return result;
+		}
+		// Reversing the order of the words and the order of the bits in those words reverses the entire array, as if the
+		// length were a multiple of 64. The result of that must then be shifted towards position 0 by the number of unused
+		// bits in the last word.
+		final int shift = (wordCount << 6) - length;
+		final int lastWordIndex = wordCount - 1;
+		long word = Long.reverse(input[lastWordIndex]);
+		for (int wordIndex = 0; lastWordIndex != wordIndex; wordIndex++) {
+			final long nextWord = Long.reverse(input[lastWordIndex - 1 - wordIndex]);
+			// (nextWord << 64 would be nextWord << 0 in Java, hence the check.)
+			result[wordIndex] = 0 == shift ? word : word >>> shift | nextWord << -shift;
+			word = nextWord;
+		}
+		result[lastWordIndex] = word >>> shift;
+		return result;
+	}
+	/**
+	 * Sets the value of the bit at the passed position.
+	 */
+	public static final void setBit(final long[] input, final int position, final boolean value) {
+		if (value) {
+			input[position >>> 6] |= 1l << position;
+		} else {
+			input[position >>> 6] &= ~(1l << position);
+		}
+	}
+	/**
+	 * Sets the value of the passed number of bits starting at the passed position.
+	 */
+	public static final void setBits(final long[] input, final int firstPosition, final int count, final boolean value) {
+		if (0 == count) {
+			return;
+		}
+		final int end = firstPosition + count;
+		int wordIndex = firstPosition >>> 6;
+		final int lastWordIndex = end - 1 >>> 6;
+		long mask = -1l << firstPosition;
+		// Set the bits in every word but the last one.
+		while (lastWordIndex != wordIndex) {
+			if (value) {
+				input[wordIndex++] |= mask;
+			} else {
+				input[wordIndex++] &= ~mask;
+			}
+			mask = -1l;
+		}
+		// Set the bits in the last word, leaving the bits beyond the end of the string untouched.
+		mask &= -1l >>> -end;
+		if (value) {
+			input[wordIndex] |= mask;
+		} else {
+			input[wordIndex] &= ~mask;
+		}
+	}
+	public final static String toString(final long[] input, final int size) {
+		// The bit with position 0 appears in the resulting string form first, consistent with BitArray.
+		final StringBuilder resultBuilder = new StringBuilder(size);
+		for (int position = 0; size != position; position++) {
+			resultBuilder.append(0 != (input[position >>> 6] & 1l << position) ? ONE : ZERO);
+		}
+		return resultBuilder.toString();
+	}
+	/**
+	 * Changes the passed destination so that every bit is true if exactly one of the corresponding bit in the destination and
+	 * the corresponding bit in the passed source is true. Both arrays must have the same length.
+	 */
+	public static final void xor(final long[] destination, final long[] source) {
+		for (int wordIndex = 0; destination.length != wordIndex; wordIndex++) {
+			destination[wordIndex] ^= source[wordIndex];
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2013 Pimm Hogeling
+ *
+ * Giant Snail open is free software. Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Alternatively, the Software may be used under the terms of either the GNU General Public License Version 3 or later (the
+ * "GPL"), or the GNU Lesser General Public License Version 3 or later (the "LGPL"), in which case the provisions of the GPL or
+ * the LGPL are applicable instead of those above.
+ */
+
+package org.ilumbo.giantsnail.mathematics;
+
+/**
+ * The PCG32 generator (XSH RR variant) by Melissa O'Neill, which has 64 bits of state and generates 32-bit numbers.
+ * Besides the seed, a stream can be chosen: generators with different streams generate different numbers, even if their
+ * seeds are equal.
+ */
+public final class Pcg32Random extends FastRandom {
+	/**
+	 * The increment used if no stream is chosen.
+	 */
+	private static final long DEFAULT_INCREMENT = 1442695040888963407l;
+	private static final long MULTIPLIER = 6364136223846793005l;
+	private static final long serialVersionUID = 1l;
+	/**
+	 * The increment, which is derived from the stream and is always odd.
+	 */
+	private long increment;
+	/**
+	 * The state.
+	 */
+	private long state;
+	public Pcg32Random(long seed) {
+		super(seed);
+	}
+	public Pcg32Random(long seed, long stream) {
+		super(seed);
+		setSeed(seed, stream);
+	}
+	@Override
+	public final int nextInt() {
+		final long previousState = state;
+		state = previousState * MULTIPLIER + increment;
+		// Output function: xorshift the high bits, then rotate them by an amount that depends on the highest bits.
+		return Integer.rotateRight((int) ((previousState >>> 18 ^ previousState) >>> 27), (int) (previousState >>> 59));
+	}
+	@Override
+	public final long nextLong() {
+		return (long) nextInt() << 32 | nextInt() & 0xFFFFFFFFl;
+	}
+	/**
+	 * Resets the state of this generator, keeping the stream.
+	 */
+	@Override
+	public final void setSeed(long seed) {
+		// (This method is called by the Random constructor, before the increment is set.)
+		if (0 == increment) {
+			increment = DEFAULT_INCREMENT;
+		}
+		state = 0;
+		nextInt();
+		state += seed;
+		nextInt();
+	}
+	/**
+	 * Resets the state of this generator, so that it generates the same numbers as a new instance created with the passed
+	 * seed and stream.
+	 */
+	public final void setSeed(long seed, long stream) {
+		increment = stream << 1 | 1;
+		setSeed(seed);
+	}
+	@Override
+	public final FastRandom split() {
+		return new Pcg32Random(nextLong(), nextLong());
+	}
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2013 Pimm Hogeling
+ *
+ * Giant Snail open is free software. Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Alternatively, the Software may be used under the terms of either the GNU General Public License Version 3 or later (the
+ * "GPL"), or the GNU Lesser General Public License Version 3 or later (the "LGPL"), in which case the provisions of the GPL or
+ * the LGPL are applicable instead of those above.
+ */
+
+package org.ilumbo.giantsnail.mathematics;
+
+import java.util.Random;
+
+/**
+ * An index over a bit array as used by {@link LargeBitArray}, which answers rank and select queries in (nearly) constant time.
+ * The rank of a position is the number of true bits before that position. Selecting an index finds the position of the true
+ * bit that has that rank.
+ *
+ * The index stores the number of true bits before every block of 512 bits, and for every long in such a block the number of
+ * true bits before that long relative to the block. Together these take 25% of the memory the bit array takes. Additionally,
+ * the index remembers in which block every 512th true bit is, which narrows down the search in {@link #select(int)}.
+ *
+ * This class can be useful to pick random true bits from large bit arrays. Say your town has thousands of spawn points, some
+ * of which are free. {@link #getRandomTrueBit(Random)} picks one of the free spawn points without visiting the others. The
+ * index does not notice changes to the bit array it was created for: create a new index after changing the bit array.
+ */
+public final class RankSelectIndex {
+	/**
+	 * The number of longs in a block. Must be 8, as the relative counts of 7 longs are packed into a single long.
+	 */
+	private static final int BLOCK_WORD_COUNT = 8;
+	/**
+	 * Every true bit with an index that is a multiple of this number has its block remembered in {@link #selectSamples}.
+	 */
+	private static final int SELECT_SAMPLE_INTERVAL = 512;
+	/**
+	 * For every block, two longs. The first long is the number of true bits before the block. The second long holds seven
+	 * 9-bit numbers: number k (where k is 1…7) is the number of true bits in the longs with indexes 0…k-1 in the block.
+	 */
+	private final long[] counts;
+	/**
+	 * The bit array this index was created for.
+	 */
+	private final long[] input;
+	/**
+	 * The block of every true bit with an index that is a multiple of {@link #SELECT_SAMPLE_INTERVAL}, followed by the index
+	 * of the last block.
+	 */
+	private final int[] selectSamples;
+	/**
+	 * The number of true bits in the bit array.
+	 */
+	private final int trueBitCount;
+	public RankSelectIndex(long[] input) {
+		this.input = input;
+		final int blockCount = (input.length + BLOCK_WORD_COUNT - 1) / BLOCK_WORD_COUNT;
+		counts = new long[blockCount << 1];
+		int trueBitCount = 0;
+		for (int blockIndex = 0; blockCount != blockIndex; blockIndex++) {
+			counts[blockIndex << 1] = trueBitCount;
+			// Count the true bits in the block, saving the count so far before every long (apart from the first one).
+			long relativeCounts = 0;
+			int relativeCount = 0;
+			final int firstWordIndex = blockIndex * BLOCK_WORD_COUNT;
+			final int end = Math.min(firstWordIndex + BLOCK_WORD_COUNT, input.length);
+			for (int wordIndex = firstWordIndex; end != wordIndex; wordIndex++) {
+				if (firstWordIndex != wordIndex) {
+					relativeCounts |= (long) relativeCount << 9 * (wordIndex - firstWordIndex - 1);
+				}
+				relativeCount += Long.bitCount(input[wordIndex]);
+			}
+			// Pretend that any missing longs in the last block are empty.
+			for (int wordIndex = end; firstWordIndex + BLOCK_WORD_COUNT != wordIndex; wordIndex++) {
+				relativeCounts |= (long) relativeCount << 9 * (wordIndex - firstWordIndex - 1);
+			}
+			counts[(blockIndex << 1) + 1] = relativeCounts;
+			trueBitCount += relativeCount;
+		}
+		this.trueBitCount = trueBitCount;
+		// Remember the blocks of the sampled true bits.
+		selectSamples = new int[(trueBitCount + SELECT_SAMPLE_INTERVAL - 1) / SELECT_SAMPLE_INTERVAL + 1];
+		int sampleIndex = 0;
+		for (int blockIndex = 0; blockCount != blockIndex; blockIndex++) {
+			final long blockEnd = blockCount - 1 == blockIndex ? trueBitCount : counts[blockIndex + 1 << 1];
+			while ((long) sampleIndex * SELECT_SAMPLE_INTERVAL < blockEnd) {
+				selectSamples[sampleIndex++] = blockIndex;
+			}
+		}
+		selectSamples[sampleIndex] = Math.max(0, blockCount - 1);
+	}
+	/**
+	 * Returns the lowest from the set of positions of true bits that are equal to or greater than the passed position.
+	 * Returns NONE if there are no such true bits. This method takes the same time no matter how many false bits are between
+	 * the passed position and the returned one, which makes it a good fit for sparse bit arrays. For dense bit arrays,
+	 * {@link LargeBitArray#getNextTrueBit(long[], int)} is faster.
+	 */
+	public final int getNextTrueBit(int fromPosition) {
+		if (fromPosition >= input.length << 6) {
+			return LargeBitArray.NONE;
+		}
+		// The next true bit is the one that has as many true bits before it as the passed position has.
+		return select(rank(fromPosition));
+	}
+	/**
+	 * Returns the position of a random true bit. Every true bit has (approximately) equal probability of being returned.
+	 * Returns NONE if there are no true bits.
+	 */
+	public final int getRandomTrueBit(Random random) {
+		if (0 == trueBitCount) {
+			return LargeBitArray.NONE;
+		}
+		return select(random.nextInt(trueBitCount));
+	}
+	/**
+	 * Returns the number of true bits.
+	 */
+	public final int getTrueBitCount() {
+		return trueBitCount;
+	}
+	/**
+	 * Returns the number of true bits with a position smaller than the passed position.
+	 */
+	public final int rank(int position) {
+		final int wordIndex = position >>> 6;
+		if (wordIndex >= input.length) {
+			return trueBitCount;
+		}
+		final int blockIndex = wordIndex / BLOCK_WORD_COUNT;
+		final int relativeWordIndex = wordIndex % BLOCK_WORD_COUNT;
+		int result = (int) counts[blockIndex << 1];
+		if (0 != relativeWordIndex) {
+			result += (int) (counts[(blockIndex << 1) + 1] >>> 9 * (relativeWordIndex - 1)) & 0x1FF;
+		}
+		// (1l << position) - 1 keeps the bits of the long before the passed position. The shift distance is taken modulo 64,
+		// so if the position is a multiple of 64 the mask is 0 and none of them are kept, which is correct as none precede it.
+		return result + Long.bitCount(input[wordIndex] & (1l << position) - 1);
+	}
+	/**
+	 * Returns the position of the true bit that is preceded by the passed number of true bits. In other words: returns the
+	 * position of the true bit with the passed index, where the true bit with the lowest position has index 0. Returns NONE
+	 * if there are not that many true bits.
+	 */
+	public final int select(int index) {
+		if (index < 0 || index >= trueBitCount) {
+			return LargeBitArray.NONE;
+		}
+		// Binary search for the last block with no more than the passed number of true bits before it, between the blocks of
+		// the surrounding samples.
+		final int sampleIndex = index / SELECT_SAMPLE_INTERVAL;
+		int low = selectSamples[sampleIndex];
+		int high = selectSamples[sampleIndex + 1];
+		while (low != high) {
+			final int guess = low + high + 1 >>> 1;
+			if (counts[guess << 1] <= index) {
+				low = guess;
+			} else /* if (counts[guess << 1] > index) */ {
+				high = guess - 1;
+			}
+		}
+		final int blockIndex = low;
+		index -= (int) counts[blockIndex << 1];
+		// Find the long in the block, using the relative counts.
+		final long relativeCounts = counts[(blockIndex << 1) + 1];
+		int relativeWordIndex = 0;
+		int relativeCount = 0;
+		while (BLOCK_WORD_COUNT - 1 != relativeWordIndex) {
+			final int nextRelativeCount = (int) (relativeCounts >>> 9 * relativeWordIndex) & 0x1FF;
+			if (nextRelativeCount > index) {
+				break;
+			}
+			relativeCount = nextRelativeCount;
+			relativeWordIndex++;
+		}
+		final int wordIndex = blockIndex * BLOCK_WORD_COUNT + relativeWordIndex;
+		return (wordIndex << 6) + BitArray.select(input[wordIndex], index - relativeCount);
+	}
+}
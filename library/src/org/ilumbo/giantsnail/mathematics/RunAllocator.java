@@ -0,0 +1,253 @@
+/**
+ * Copyright 2013 Pimm Hogeling
+ *
+ * Giant Snail open is free software. Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Alternatively, the Software may be used under the terms of either the GNU General Public License Version 3 or later (the
+ * "GPL"), or the GNU Lesser General Public License Version 3 or later (the "LGPL"), in which case the provisions of the GPL or
+ * the LGPL are applicable instead of those above.
+ */
+
+package org.ilumbo.giantsnail.mathematics;
+
+import java.util.Random;
+
+/**
+ * Allocates and frees strings of contiguous positions in a range of positions of arbitrary length. The state is represented
+ * by a bit array as used by {@link LargeBitArray}, where a true bit means that the position is free.
+ *
+ * This class can be useful in game development. Say you are placing buildings along a street with 500 lots, where a shop
+ * takes 3 adjacent lots and a house takes 2. Then {@link #allocateRandomFit(int, Random)} places a building of either type on
+ * a random free spot, and {@link #free(int, int)} makes the lots available again once the building is demolished.
+ *
+ * For strings of up to 64 positions, the free strings are found by and-ing every long with shifted versions of itself in
+ * log(count) steps, as {@link BitArray#getRandomTrueBitsAnd(long, int, Random)} does. Longer strings, as well as the
+ * best-fit strategy, walk the strings of free positions a long at a time.
+ */
+public final class RunAllocator {
+	/**
+	 * The bit array which holds which positions are free (true) and which are allocated (false).
+	 */
+	private final long[] freeBits;
+	/**
+	 * The number of positions.
+	 */
+	private final int length;
+	/**
+	 * Creates an allocator where all of the passed number of positions are free.
+	 */
+	public RunAllocator(int length) {
+		this(LargeBitArray.Generator.generateTrueArray(length), length);
+	}
+	/**
+	 * Creates an allocator backed by the passed bit array, in which true bits are free positions. The allocator modifies the
+	 * passed bit array.
+	 */
+	public RunAllocator(long[] freeBits, int length) {
+		this.freeBits = freeBits;
+		this.length = length;
+	}
+	/**
+	 * Allocates a string of the passed number of free positions, and returns the first position. Of all strings of free
+	 * positions that are long enough, the string that is the shortest is used (the first one, if multiple are equally short).
+	 * This leaves long strings of free positions intact for future allocations. Returns NONE if no such string exists. Throws
+	 * an IllegalArgumentException if the passed number is not positive.
+	 */
+	public final int allocateBestFit(int count) {
+		if (count <= 0) {
+			throw new IllegalArgumentException("The number of positions must be positive");
+		}
+		int bestPosition = LargeBitArray.NONE;
+		int bestLength = Integer.MAX_VALUE;
+		int position = LargeBitArray.getNextTrueBit(freeBits, 0);
+		while (LargeBitArray.NONE != position) {
+			// Determine the end of the string of free positions.
+			int end = LargeBitArray.getNextFalseBit(freeBits, position, length);
+			if (LargeBitArray.NONE == end) {
+				end = length;
+			}
+			final int runLength = end - position;
+			if (runLength >= count && runLength < bestLength) {
+				bestPosition = position;
+				bestLength = runLength;
+				// A string that has exactly the passed length cannot be beaten.
+				if (count == runLength) {
+					break;
+				}
+			}
+			position = LargeBitArray.getNextTrueBit(freeBits, end);
+		}
+		if (LargeBitArray.NONE != bestPosition) {
+			LargeBitArray.setBits(freeBits, bestPosition, count, false);
+		}
+		return bestPosition;
+	}
+	/**
+	 * Allocates a string of the passed number of free positions, and returns the first position. The string with the lowest
+	 * first position is used. Returns NONE if no such string exists. Throws an IllegalArgumentException if the passed number
+	 * is not positive.
+	 */
+	public final int allocateFirstFit(int count) {
+		if (count <= 0) {
+			throw new IllegalArgumentException("The number of positions must be positive");
+		}
+		int result = LargeBitArray.NONE;
+		if (count <= Long.SIZE) {
+			for (int wordIndex = 0; freeBits.length != wordIndex; wordIndex++) {
+				final long canditates = getCanditates(wordIndex, count);
+				if (0 != canditates) {
+					result = (wordIndex << 6) + Long.numberOfTrailingZeros(canditates);
+					break;
+				}
+			}
+		} else /* if (count > Long.SIZE) */ {
+			int position = LargeBitArray.getNextTrueBit(freeBits, 0);
+			while (LargeBitArray.NONE != position) {
+				int end = LargeBitArray.getNextFalseBit(freeBits, position, length);
+				if (LargeBitArray.NONE == end) {
+					end = length;
+				}
+				if (end - position >= count) {
+					result = position;
+					break;
+				}
+				position = LargeBitArray.getNextTrueBit(freeBits, end);
+			}
+		}
+		if (LargeBitArray.NONE != result) {
+			LargeBitArray.setBits(freeBits, result, count, false);
+		}
+		return result;
+	}
+	/**
+	 * Allocates a string of the passed number of free positions, and returns the first position. If multiple first positions
+	 * would be correct, one of those positions is chosen at random where every position has (approximately) equal probability
+	 * of being chosen. Returns NONE if no such string exists. Throws an IllegalArgumentException if the passed number is not
+	 * positive.
+	 */
+	public final int allocateRandomFit(int count) {
+		return allocateRandomFit(count, FastRandom.getThreadInstance());
+	}
+	/**
+	 * Allocates a string of the passed number of free positions, and returns the first position. If multiple first positions
+	 * would be correct, one of those positions is chosen at random where every position has (approximately) equal probability
+	 * of being chosen. Returns NONE if no such string exists. Throws an IllegalArgumentException if the passed number is not
+	 * positive.
+	 */
+	public final int allocateRandomFit(int count, Random random) {
+		if (count <= 0) {
+			throw new IllegalArgumentException("The number of positions must be positive");
+		}
+		int result = LargeBitArray.NONE;
+		if (count <= Long.SIZE) {
+			// Count the candidates, then select a random one.
+			int canditateCount = 0;
+			for (int wordIndex = 0; freeBits.length != wordIndex; wordIndex++) {
+				canditateCount += Long.bitCount(getCanditates(wordIndex, count));
+			}
+			if (0 != canditateCount) {
+				int canditateIndex = random.nextInt(canditateCount);
+				for (int wordIndex = 0; /* freeBits.length != wordIndex */; wordIndex++) {
+					final long canditates = getCanditates(wordIndex, count);
+					final int wordCanditateCount = Long.bitCount(canditates);
+					if (canditateIndex < wordCanditateCount) {
+						result = (wordIndex << 6) + BitArray.select(canditates, canditateIndex);
+						break;
+					}
+					canditateIndex -= wordCanditateCount;
+				}
+			}
+		} else /* if (count > Long.SIZE) */ {
+			// Count the candidates, then select a random one. A string of n free positions contains (n - count + 1)
+			// candidates.
+			int canditateCount = 0;
+			int position = LargeBitArray.getNextTrueBit(freeBits, 0);
+			while (LargeBitArray.NONE != position) {
+				int end = LargeBitArray.getNextFalseBit(freeBits, position, length);
+				if (LargeBitArray.NONE == end) {
+					end = length;
+				}
+				canditateCount += Math.max(0, end - position - count + 1);
+				position = LargeBitArray.getNextTrueBit(freeBits, end);
+			}
+			if (0 != canditateCount) {
+				int canditateIndex = random.nextInt(canditateCount);
+				position = LargeBitArray.getNextTrueBit(freeBits, 0);
+				while (true) {
+					int end = LargeBitArray.getNextFalseBit(freeBits, position, length);
+					if (LargeBitArray.NONE == end) {
+						end = length;
+					}
+					final int runCanditateCount = Math.max(0, end - position - count + 1);
+					if (canditateIndex < runCanditateCount) {
+						result = position + canditateIndex;
+						break;
+					}
+					canditateIndex -= runCanditateCount;
+					position = LargeBitArray.getNextTrueBit(freeBits, end);
+				}
+			}
+		}
+		if (LargeBitArray.NONE != result) {
+			LargeBitArray.setBits(freeBits, result, count, false);
+		}
+		return result;
+	}
+	/**
+	 * Frees the passed number of positions starting at the passed position, which must have been allocated before. Throws an
+	 * IllegalArgumentException if the passed number is not positive.
+	 */
+	public final void free(int position, int count) {
+		// Check sanity.
+		if (count <= 0) {
+			throw new IllegalArgumentException("The number of positions must be positive");
+		}
+		if (LargeBitArray.getBitsOr(freeBits, position, count)) {
+			throw new IllegalStateException("Some of the passed positions are not allocated");
+		}
+		LargeBitArray.setBits(freeBits, position, count, true);
+	}
+	/**
+	 * Returns the candidates in the long with the passed index: the positions which point to a string of the passed number of
+	 * free positions, where the passed number is at most 64.
+	 */
+	private final long getCanditates(int wordIndex, int count) {
+		// Treat the long and the one after it as a single 128-bit value. As strings are at most 64 positions long, the bits in
+		// the long after that are not needed.
+		long low = freeBits[wordIndex];
+		long high = freeBits.length - 1 == wordIndex ? 0 : freeBits[wordIndex + 1];
+		int coveredCount = 1;
+		while (coveredCount << 1 <= count) {
+			low &= low >>> coveredCount | high << -coveredCount;
+			high &= high >>> coveredCount;
+			coveredCount <<= 1;
+		}
+		if (coveredCount != count) {
+			low &= low >>> count - coveredCount | high << coveredCount - count;
+		}
+		return low;
+	}
+	/**
+	 * Returns whether the position is free.
+	 */
+	public final boolean getIsFree(int position) {
+		return LargeBitArray.getBit(freeBits, position);
+	}
+	/**
+	 * Returns the number of positions.
+	 */
+	public final int getLength() {
+		return length;
+	}
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright 2013 Pimm Hogeling
+ *
+ * Giant Snail open is free software. Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Alternatively, the Software may be used under the terms of either the GNU General Public License Version 3 or later (the
+ * "GPL"), or the GNU Lesser General Public License Version 3 or later (the "LGPL"), in which case the provisions of the GPL or
+ * the LGPL are applicable instead of those above.
+ */
+
+package org.ilumbo.giantsnail.mathematics;
+
+/**
+ * The SplitMix64 generator by Guy Steele, Doug Lea and Christine Flood, which has 64 bits of state. It is the fastest
+ * subclass of {@link FastRandom}, but has a period of only 2⁶⁴ numbers.
+ */
+public final class SplitMix64Random extends FastRandom {
+	private static final long serialVersionUID = 1l;
+	/**
+	 * The state, which is increased by the golden gamma for every number.
+	 */
+	private long state;
+	public SplitMix64Random(long seed) {
+		super(seed);
+	}
+	@Override
+	public final long nextLong() {
+		return mix(state += GOLDEN_GAMMA);
+	}
+	@Override
+	public final void setSeed(long seed) {
+		state = seed;
+	}
+	@Override
+	public final FastRandom split() {
+		return new SplitMix64Random(nextLong());
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2013 Pimm Hogeling
+ *
+ * Giant Snail open is free software. Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and
+ * to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * Alternatively, the Software may be used under the terms of either the GNU General Public License Version 3 or later (the
+ * "GPL"), or the GNU Lesser General Public License Version 3 or later (the "LGPL"), in which case the provisions of the GPL or
+ * the LGPL are applicable instead of those above.
+ */
+
+package org.ilumbo.giantsnail.mathematics;
+
+/**
+ * The xoroshiro128++ generator by David Blackman and Sebastiano Vigna, which has 128 bits of state and a period of
+ * 2¹²⁸ - 1 numbers. This is the generator behind {@link FastRandom#getThreadInstance()}.
+ */
+public final class Xoroshiro128PlusPlusRandom extends FastRandom {
+	private static final long serialVersionUID = 1l;
+	/**
+	 * The first half of the state.
+	 */
+	private long state0;
+	/**
+	 * The second half of the state.
+	 */
+	private long state1;
+	public Xoroshiro128PlusPlusRandom(long seed) {
+		super(seed);
+	}
+	@Override
+	public final long nextLong() {
+		final long state0 = this.state0;
+		long state1 = this.state1;
+		final long result = Long.rotateLeft(state0 + state1, 17) + state0;
+		state1 ^= state0;
+		this.state0 = Long.rotateLeft(state0, 49) ^ state1 ^ state1 << 21;
+		this.state1 = Long.rotateLeft(state1, 28);
+		return result;
+	}
+	@Override
+	public final void setSeed(long seed) {
+		// Expand the seed into the state using SplitMix64, as recommended by the authors. This also ensures the state is not
+		// all zeroes.
+		state0 = mix(seed += GOLDEN_GAMMA);
+		state1 = mix(seed + GOLDEN_GAMMA);
+	}
+	@Override
+	public final FastRandom split() {
+		return new Xoroshiro128PlusPlusRandom(nextLong());
+	}
+}
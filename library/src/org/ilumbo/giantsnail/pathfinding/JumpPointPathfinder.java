@@ -0,0 +1,460 @@
+package org.ilumbo.giantsnail.pathfinding;
+
+import java.util.Arrays;
+
+import org.ilumbo.giantsnail.mathematics.BitGrid;
+import org.ilumbo.giantsnail.mathematics.LargeBitArray;
+
+/**
+ * Finds shortest paths on a grid of walkable and blocked tiles, using A* with jump point search. Paths move in eight
+ * directions, but never diagonally past a blocked tile (no corner cutting). A straight step costs {@link #STRAIGHT_COST} and
+ * a diagonal step costs {@link #DIAGONAL_COST}.
+ *
+ * Jump point search skips over the tiles of straight and diagonal lines that cannot be turning points of a shortest path,
+ * only adding the tiles at which that might change (the jump points) to the open list. This class stores the walkable tiles
+ * as rows of longs, as {@link BitGrid} does, and additionally as columns. This way, the straight scans for jump points
+ * examine 64 tiles at a time, both horizontally and vertically.
+ *
+ * All state needed for a search is allocated when the pathfinder is created, so searching does not allocate anything. An
+ * instance must not be used by multiple threads at the same time.
+ */
+public final class JumpPointPathfinder {
+	/**
+	 * The value {@link #heapPositions} holds for tiles that are closed.
+	 */
+	private static final int CLOSED = -1;
+	/**
+	 * The cost of a diagonal step, which is roughly √2 × {@link #STRAIGHT_COST}.
+	 */
+	public static final int DIAGONAL_COST = 1414;
+	/**
+	 * Returned when no path exists.
+	 */
+	public static final int NONE = LargeBitArray.NONE;
+	/**
+	 * The cost of a straight step.
+	 */
+	public static final int STRAIGHT_COST = 1000;
+	/**
+	 * The walkable tiles, stored as columns: the bit for (x, y) is bit y of column x.
+	 */
+	private final long[] columns;
+	/**
+	 * The number of longs per column.
+	 */
+	private final int columnWordCount;
+	/**
+	 * For every tile, the cost of the cheapest path found so far plus the estimated remaining cost.
+	 */
+	private final int[] estimatedCosts;
+	/**
+	 * The generation of the current search. A tile has been visited during the current search if its generation equals this
+	 * value, so the arrays need not be cleared between searches.
+	 */
+	private int generation;
+	/**
+	 * For every tile, the generation of the search that last visited the tile.
+	 */
+	private final int[] generations;
+	/**
+	 * The open list: a binary heap of tiles, ordered by their estimated costs.
+	 */
+	private final int[] heap;
+	/**
+	 * For every tile, the position of the tile in the heap, or {@link #CLOSED}.
+	 */
+	private final int[] heapPositions;
+	/**
+	 * The number of tiles in the heap.
+	 */
+	private int heapSize;
+	private final int height;
+	/**
+	 * The neighbours of the tile being expanded.
+	 */
+	private final int[] neighbours;
+	/**
+	 * For every tile, the tile from which the cheapest path found so far arrives.
+	 */
+	private final int[] parents;
+	/**
+	 * For every tile, the cost of the cheapest path found so far.
+	 */
+	private final int[] pathCosts;
+	/**
+	 * The walkable tiles, stored as rows: the bit for (x, y) is bit x of row y.
+	 */
+	private final long[] rows;
+	/**
+	 * The number of longs per row.
+	 */
+	private final int rowWordCount;
+	private final int width;
+	/**
+	 * Creates a pathfinder for a grid in which the true bits of the passed grid are the walkable tiles. The pathfinder does
+	 * not keep a reference to the passed grid; use {@link #setWalkable(int, int, boolean)} to change tiles afterwards.
+	 */
+	public JumpPointPathfinder(BitGrid walkableTiles) {
+		width = walkableTiles.getWidth();
+		height = walkableTiles.getHeight();
+		rows = walkableTiles.getWords().clone();
+		rowWordCount = walkableTiles.getWordsPerRow();
+		columnWordCount = LargeBitArray.getWordCount(height);
+		columns = new long[columnWordCount * width];
+		for (int y = 0; height != y; y++) {
+			for (int x = 0; width != x; x++) {
+				if (walkableTiles.getBit(x, y)) {
+					columns[x * columnWordCount + (y >>> 6)] |= 1l << y;
+				}
+			}
+		}
+		final int tileCount = width * height;
+		estimatedCosts = new int[tileCount];
+		generations = new int[tileCount];
+		heap = new int[tileCount];
+		heapPositions = new int[tileCount];
+		parents = new int[tileCount];
+		pathCosts = new int[tileCount];
+		neighbours = new int[8];
+	}
+	/**
+	 * Adds the passed tile to the passed neighbours at the passed index if it is walkable, and returns the new number of
+	 * neighbours.
+	 */
+	private final int addNeighbour(int x, int y, int neighbourCount) {
+		if (getIsWalkable(x, y)) {
+			neighbours[neighbourCount++] = y * width + x;
+		}
+		return neighbourCount;
+	}
+	/**
+	 * Determines the tiles to jump from when expanding the passed tile, which was reached from the passed parent (or
+	 * {@link #NONE} for the start tile). Tiles that a shortest path through the parent would not continue to are pruned.
+	 * Returns the number of neighbours.
+	 */
+	private final int determineNeighbours(int x, int y, int parent) {
+		int neighbourCount = 0;
+		if (NONE == parent) {
+			final boolean isLeftWalkable = getIsWalkable(x - 1, y);
+			final boolean isRightWalkable = getIsWalkable(x + 1, y);
+			final boolean isUpWalkable = getIsWalkable(x, y - 1);
+			final boolean isDownWalkable = getIsWalkable(x, y + 1);
+			neighbourCount = addNeighbour(x - 1, y, neighbourCount);
+			neighbourCount = addNeighbour(x + 1, y, neighbourCount);
+			neighbourCount = addNeighbour(x, y - 1, neighbourCount);
+			neighbourCount = addNeighbour(x, y + 1, neighbourCount);
+			if (isLeftWalkable && isUpWalkable) {
+				neighbourCount = addNeighbour(x - 1, y - 1, neighbourCount);
+			}
+			if (isRightWalkable && isUpWalkable) {
+				neighbourCount = addNeighbour(x + 1, y - 1, neighbourCount);
+			}
+			if (isLeftWalkable && isDownWalkable) {
+				neighbourCount = addNeighbour(x - 1, y + 1, neighbourCount);
+			}
+			if (isRightWalkable && isDownWalkable) {
+				neighbourCount = addNeighbour(x + 1, y + 1, neighbourCount);
+			}
+			return neighbourCount;
+		}
+		final int directionX = Integer.signum(x - parent % width);
+		final int directionY = Integer.signum(y - parent / width);
+		if (0 != directionX && 0 != directionY) {
+			final boolean isNextXWalkable = getIsWalkable(x + directionX, y);
+			final boolean isNextYWalkable = getIsWalkable(x, y + directionY);
+			neighbourCount = addNeighbour(x, y + directionY, neighbourCount);
+			neighbourCount = addNeighbour(x + directionX, y, neighbourCount);
+			if (isNextXWalkable && isNextYWalkable) {
+				neighbourCount = addNeighbour(x + directionX, y + directionY, neighbourCount);
+			}
+		} else if (0 != directionX) {
+			final boolean isUpWalkable = getIsWalkable(x, y - 1);
+			final boolean isDownWalkable = getIsWalkable(x, y + 1);
+			if (getIsWalkable(x + directionX, y)) {
+				neighbourCount = addNeighbour(x + directionX, y, neighbourCount);
+				if (isUpWalkable) {
+					neighbourCount = addNeighbour(x + directionX, y - 1, neighbourCount);
+				}
+				if (isDownWalkable) {
+					neighbourCount = addNeighbour(x + directionX, y + 1, neighbourCount);
+				}
+			}
+			neighbourCount = addNeighbour(x, y - 1, neighbourCount);
+			neighbourCount = addNeighbour(x, y + 1, neighbourCount);
+		} else /* if (0 != directionY) */ {
+			final boolean isLeftWalkable = getIsWalkable(x - 1, y);
+			final boolean isRightWalkable = getIsWalkable(x + 1, y);
+			if (getIsWalkable(x, y + directionY)) {
+				neighbourCount = addNeighbour(x, y + directionY, neighbourCount);
+				if (isLeftWalkable) {
+					neighbourCount = addNeighbour(x - 1, y + directionY, neighbourCount);
+				}
+				if (isRightWalkable) {
+					neighbourCount = addNeighbour(x + 1, y + directionY, neighbourCount);
+				}
+			}
+			neighbourCount = addNeighbour(x - 1, y, neighbourCount);
+			neighbourCount = addNeighbour(x + 1, y, neighbourCount);
+		}
+		return neighbourCount;
+	}
+	/**
+	 * Finds a shortest path from the passed start tile to the passed goal tile. The tiles of the path at which it changes
+	 * direction (including the start and the goal) are written into the passed output, as y × width + x. Between two
+	 * consecutive tiles, the path is a straight or a diagonal line. Returns the number of tiles; if that number exceeds the
+	 * length of the output, only the first tiles are written. Returns NONE if no path exists.
+	 */
+	public final int findPath(int startX, int startY, int goalX, int goalY, int[] output) {
+		if (false == getIsWalkable(startX, startY) || false == getIsWalkable(goalX, goalY)) {
+			return NONE;
+		}
+		// Start a new generation, which marks every tile as unvisited.
+		if (0 == ++generation) {
+			Arrays.fill(generations, 0);
+			generation = 1;
+		}
+		heapSize = 0;
+		final int start = startY * width + startX;
+		final int goal = goalY * width + goalX;
+		generations[start] = generation;
+		parents[start] = NONE;
+		pathCosts[start] = 0;
+		estimatedCosts[start] = getCost(startX, startY, goalX, goalY);
+		push(start);
+		while (0 != heapSize) {
+			final int tile = pop();
+			if (goal == tile) {
+				return writePath(goal, output);
+			}
+			final int x = tile % width;
+			final int y = tile / width;
+			final int neighbourCount = determineNeighbours(x, y, parents[tile]);
+			for (int index = 0; neighbourCount != index; index++) {
+				final int neighbour = neighbours[index];
+				final int neighbourX = neighbour % width;
+				final int neighbourY = neighbour / width;
+				final int jumpPoint = jump(neighbourX, neighbourY, neighbourX - x, neighbourY - y, goalX, goalY);
+				if (NONE == jumpPoint) {
+					continue;
+				}
+				final boolean visited = generation == generations[jumpPoint];
+				if (visited && CLOSED == heapPositions[jumpPoint]) {
+					continue;
+				}
+				final int jumpPointX = jumpPoint % width;
+				final int jumpPointY = jumpPoint / width;
+				final int pathCost = pathCosts[tile] + getCost(x, y, jumpPointX, jumpPointY);
+				if (false == visited || pathCost < pathCosts[jumpPoint]) {
+					parents[jumpPoint] = tile;
+					pathCosts[jumpPoint] = pathCost;
+					estimatedCosts[jumpPoint] = pathCost + getCost(jumpPointX, jumpPointY, goalX, goalY);
+					if (visited) {
+						siftUp(heapPositions[jumpPoint]);
+					} else /* if (false == visited) */ {
+						generations[jumpPoint] = generation;
+						push(jumpPoint);
+					}
+				}
+			}
+		}
+		return NONE;
+	}
+	/**
+	 * Returns the cost of the cheapest path between the passed tiles if no tiles were blocked (the octile distance).
+	 */
+	public static final int getCost(int x, int y, int otherX, int otherY) {
+		final int distanceX = Math.abs(otherX - x);
+		final int distanceY = Math.abs(otherY - y);
+		return STRAIGHT_COST * Math.max(distanceX, distanceY) +
+				(DIAGONAL_COST - STRAIGHT_COST) * Math.min(distanceX, distanceY);
+	}
+	/**
+	 * Returns the positions in the long with the passed index of the passed adjacent line where that line is walkable, but
+	 * not at the previous position in the passed direction.
+	 */
+	private static final long getForcedNeighbours(long[] lines, int lineWordCount, int offset, int wordIndex,
+			int direction) {
+		final long word = lines[offset + wordIndex];
+		final long previousWord;
+		if (1 == direction) {
+			previousWord = word << 1 | (0 == wordIndex ? 0 : lines[offset + wordIndex - 1] >>> 63);
+		} else /* if (-1 == direction) */ {
+			previousWord = word >>> 1 | (lineWordCount - 1 == wordIndex ? 0 : lines[offset + wordIndex + 1] << 63);
+		}
+		return word & ~previousWord;
+	}
+	/**
+	 * Returns whether the passed tile is walkable. Tiles outside the grid are not.
+	 */
+	public final boolean getIsWalkable(int x, int y) {
+		return x >= 0 && y >= 0 && x < width && y < height && 0 != (rows[y * rowWordCount + (x >>> 6)] & 1l << x);
+	}
+	/**
+	 * Moves from the passed tile in the passed direction until a jump point is found, and returns that jump point (as y ×
+	 * width + x). Returns NONE if a blocked tile or the edge of the grid is reached first.
+	 */
+	private final int jump(int x, int y, int directionX, int directionY, int goalX, int goalY) {
+		if (0 == directionY) {
+			final int jumpPointX = scan(rows, rowWordCount, height, width, y, x, directionX, y == goalY ? goalX : NONE);
+			return NONE == jumpPointX ? NONE : y * width + jumpPointX;
+		} else if (0 == directionX) {
+			final int jumpPointY = scan(columns, columnWordCount, width, height, x, y, directionY, x == goalX ? goalY : NONE);
+			return NONE == jumpPointY ? NONE : jumpPointY * width + x;
+		}
+		// Move diagonally. A tile is a jump point if a straight scan from it in either component direction finds one.
+		while (getIsWalkable(x, y)) {
+			if ((goalX == x && goalY == y) ||
+					NONE != scan(rows, rowWordCount, height, width, y, x + directionX, directionX,
+							y == goalY ? goalX : NONE) ||
+					NONE != scan(columns, columnWordCount, width, height, x, y + directionY, directionY,
+							x == goalX ? goalY : NONE)) {
+				return y * width + x;
+			}
+			// Moving diagonally requires both tiles beside the diagonal step to be walkable.
+			if (false == getIsWalkable(x + directionX, y) || false == getIsWalkable(x, y + directionY)) {
+				return NONE;
+			}
+			x += directionX;
+			y += directionY;
+		}
+		return NONE;
+	}
+	/**
+	 * Removes the tile with the lowest estimated cost from the heap, marks it closed and returns it.
+	 */
+	private final int pop() {
+		final int result = heap[0];
+		heapPositions[result] = CLOSED;
+		if (0 != --heapSize) {
+			final int last = heap[heapSize];
+			heap[0] = last;
+			heapPositions[last] = 0;
+			siftDown(0);
+		}
+		return result;
+	}
+	/**
+	 * Adds the passed tile to the heap.
+	 */
+	private final void push(int tile) {
+		heap[heapSize] = tile;
+		heapPositions[tile] = heapSize;
+		siftUp(heapSize++);
+	}
+	/**
+	 * Scans the passed line (a row or a column) from the passed position in the passed direction (1 or -1) for a jump point,
+	 * 64 positions at a time. A position is a jump point if it is the passed goal position, or if a tile beside it on an
+	 * adjacent line is walkable while the tile beside the previous position on that line is blocked (a forced neighbour).
+	 * Returns the position of the jump point, or NONE if a blocked tile or the end of the line is reached first.
+	 */
+	private static final int scan(long[] lines, int lineWordCount, int lineCount, int lineLength, int line, int position,
+			int direction, int goalPosition) {
+		if (position < 0 || position >= lineLength) {
+			return NONE;
+		}
+		final int offset = line * lineWordCount;
+		final int previousOffset = 0 == line ? NONE : offset - lineWordCount;
+		final int nextOffset = lineCount - 1 == line ? NONE : offset + lineWordCount;
+		int wordIndex = position >>> 6;
+		long mask = 1 == direction ? -1l << position : -1l >>> ~position;
+		while (true) {
+			// Blocked tiles (including the padding beyond the end of the line) end the scan.
+			long candidates = ~lines[offset + wordIndex];
+			if (NONE != previousOffset) {
+				candidates |= getForcedNeighbours(lines, lineWordCount, previousOffset, wordIndex, direction);
+			}
+			if (NONE != nextOffset) {
+				candidates |= getForcedNeighbours(lines, lineWordCount, nextOffset, wordIndex, direction);
+			}
+			if (NONE != goalPosition && goalPosition >>> 6 == wordIndex) {
+				candidates |= 1l << goalPosition;
+			}
+			candidates &= mask;
+			if (0 != candidates) {
+				final int result = (wordIndex << 6) +
+						(1 == direction ? Long.numberOfTrailingZeros(candidates) : 63 - Long.numberOfLeadingZeros(candidates));
+				return 0 == (lines[offset + (result >>> 6)] & 1l << result) ? NONE : result;
+			}
+			wordIndex += direction;
+			if (-1 == wordIndex || lineWordCount == wordIndex) {
+				return NONE;
+			}
+			mask = -1l;
+		}
+	}
+	/**
+	 * Sets whether the passed tile is walkable.
+	 */
+	public final void setWalkable(int x, int y, boolean value) {
+		final int rowIndex = y * rowWordCount + (x >>> 6);
+		final int columnIndex = x * columnWordCount + (y >>> 6);
+		if (value) {
+			rows[rowIndex] |= 1l << x;
+			columns[columnIndex] |= 1l << y;
+		} else /* if (false == value) */ {
+			rows[rowIndex] &= ~(1l << x);
+			columns[columnIndex] &= ~(1l << y);
+		}
+	}
+	/**
+	 * Moves the tile at the passed position in the heap down, until its children have higher estimated costs.
+	 */
+	private final void siftDown(int position) {
+		final int tile = heap[position];
+		final int estimatedCost = estimatedCosts[tile];
+		while (true) {
+			int childPosition = (position << 1) + 1;
+			if (childPosition >= heapSize) {
+				break;
+			}
+			if (childPosition + 1 < heapSize &&
+					estimatedCosts[heap[childPosition + 1]] < estimatedCosts[heap[childPosition]]) {
+				childPosition++;
+			}
+			final int child = heap[childPosition];
+			if (estimatedCosts[child] >= estimatedCost) {
+				break;
+			}
+			heap[position] = child;
+			heapPositions[child] = position;
+			position = childPosition;
+		}
+		heap[position] = tile;
+		heapPositions[tile] = position;
+	}
+	/**
+	 * Moves the tile at the passed position in the heap up, until its parent has a lower estimated cost.
+	 */
+	private final void siftUp(int position) {
+		final int tile = heap[position];
+		final int estimatedCost = estimatedCosts[tile];
+		while (0 != position) {
+			final int parentPosition = position - 1 >>> 1;
+			final int parent = heap[parentPosition];
+			if (estimatedCosts[parent] <= estimatedCost) {
+				break;
+			}
+			heap[position] = parent;
+			heapPositions[parent] = position;
+			position = parentPosition;
+		}
+		heap[position] = tile;
+		heapPositions[tile] = position;
+	}
+	/**
+	 * Writes the path that ends at the passed tile into the passed output, and returns the number of tiles in the path.
+	 */
+	private final int writePath(int end, int[] output) {
+		int result = 0;
+		for (int tile = end; NONE != tile; tile = parents[tile]) {
+			result++;
+		}
+		int index = result;
+		for (int tile = end; NONE != tile; tile = parents[tile]) {
+			if (--index < output.length) {
+				output[index] = tile;
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,132 @@
+package org.ilumbo.giantsnail.test.cache;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.cache.CacheSupervisor;
+import org.ilumbo.giantsnail.cache.ConcurrentCacheSupervisor;
+
+public final class ConcurrentCacheSupervisorTest extends TestCase {
+	/**
+	 * Has the passed number of threads obtain the same identifiers in different orders, and checks that every identifier is
+	 * created exactly once.
+	 */
+	private static final void stress(final CacheSupervisor supervisor, int threadCount, final int identifierCount)
+			throws Exception {
+		// 0 means not created, 1 means being created, 2 means finished.
+		final AtomicIntegerArray states = new AtomicIntegerArray(identifierCount);
+		final AtomicIntegerArray createCounts = new AtomicIntegerArray(identifierCount);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final Thread[] threads = new Thread[threadCount];
+		for (int threadIndex = 0; threadCount != threadIndex; threadIndex++) {
+			final Random random = new Random(threadIndex);
+			threads[threadIndex] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						startLatch.await();
+						for (int iterationIdentifier = 0; identifierCount << 1 != iterationIdentifier; iterationIdentifier++) {
+							final int identifier = random.nextInt(identifierCount);
+							// Peek first. If the identifier was finished before peeking, it must be available.
+							final boolean finished = 2 == states.get(identifier);
+							final int peekedOperation = supervisor.peekObtainOperation(identifier);
+							if (finished && CacheSupervisor.OBTAIN_OPERATION_READ != peekedOperation) {
+								throw new AssertionError("A finished identifier is not available");
+							}
+							switch (supervisor.determineObtainOperation(identifier)) {
+							case CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE:
+								createCounts.incrementAndGet(identifier);
+								states.set(identifier, 1);
+								supervisor.finish(identifier);
+								states.set(identifier, 2);
+								break;
+							case CacheSupervisor.OBTAIN_OPERATION_READ:
+								if (0 == states.get(identifier)) {
+									throw new AssertionError("An identifier is available before it was created");
+								}
+								break;
+							}
+						}
+					} catch (Throwable throwable) {
+						failure.compareAndSet(null, throwable);
+					}
+				}
+			};
+			threads[threadIndex].start();
+		}
+		startLatch.countDown();
+		for (int threadIndex = 0; threadCount != threadIndex; threadIndex++) {
+			threads[threadIndex].join();
+		}
+		if (null != failure.get()) {
+			throw new AssertionError(failure.get());
+		}
+		for (int identifier = 0; identifierCount != identifier; identifier++) {
+			if (0 != createCounts.get(identifier)) {
+				assertEquals(1, createCounts.get(identifier));
+				assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.peekObtainOperation(identifier));
+			}
+		}
+	}
+	public final void testAbort() throws Exception {
+		final HashCacheSupervisorTest.ManualClockFailureRecords failureRecords =
+				new HashCacheSupervisorTest.ManualClockFailureRecords();
+		HashCacheSupervisorTest.checkAbort(new ConcurrentCacheSupervisor(new int[0], 4, failureRecords), failureRecords);
+		SynchronizedCacheSupervisorWrapperTest.checkAwaitAbort(new ConcurrentCacheSupervisor(new int[0]));
+	}
+	public final void testAwait() throws Exception {
+		SynchronizedCacheSupervisorWrapperTest.checkAwait(new ConcurrentCacheSupervisor(new int[0]));
+		// A single stripe makes all threads wait on the same lock.
+		SynchronizedCacheSupervisorWrapperTest.stressAwait(new ConcurrentCacheSupervisor(new int[0], 1), 8, 2000);
+		SynchronizedCacheSupervisorWrapperTest.stressAwait(new ConcurrentCacheSupervisor(new int[0]), 8, 2000);
+	}
+	public final void testLifecycle() throws Exception {
+		final CacheSupervisor supervisor = new ConcurrentCacheSupervisor(new int[]{0, -1, Integer.MIN_VALUE, 3, 3});
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.peekObtainOperation(0));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.peekObtainOperation(-1));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.determineObtainOperation(Integer.MIN_VALUE));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.peekObtainOperation(7));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.determineObtainOperation(7));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE, supervisor.peekObtainOperation(7));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE, supervisor.determineObtainOperation(7));
+		supervisor.finish(7);
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.determineObtainOperation(7));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.refreshAndDetermineObtainOperation(7));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE, supervisor.refreshAndDetermineObtainOperation(7));
+		supervisor.finish(7);
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.peekObtainOperation(7));
+		try {
+			supervisor.finish(8);
+			fail();
+		} catch (IllegalStateException exception) {
+		}
+		try {
+			new ConcurrentCacheSupervisor(new int[0], 0);
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+	}
+	public final void testManyIdentifiers() throws Exception {
+		final CacheSupervisor supervisor = new ConcurrentCacheSupervisor(new int[0], 4);
+		for (int identifier = 0; 100000 != identifier; identifier++) {
+			assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.determineObtainOperation(identifier));
+			if (0 == (identifier & 1)) {
+				supervisor.finish(identifier);
+			}
+		}
+		for (int identifier = 0; 100000 != identifier; identifier++) {
+			assertEquals(0 == (identifier & 1) ? CacheSupervisor.OBTAIN_OPERATION_READ :
+					CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE, supervisor.peekObtainOperation(identifier));
+		}
+	}
+	public final void testStress() throws Exception {
+		stress(new ConcurrentCacheSupervisor(new int[0]), 8, 100000);
+		// A single stripe makes all threads contend for the same lock and table.
+		stress(new ConcurrentCacheSupervisor(new int[0], 1), 8, 20000);
+	}
+}
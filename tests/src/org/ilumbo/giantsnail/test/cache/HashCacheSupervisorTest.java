@@ -0,0 +1,140 @@
+package org.ilumbo.giantsnail.test.cache;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.cache.CacheFailureRecords;
+import org.ilumbo.giantsnail.cache.CacheSupervisor;
+import org.ilumbo.giantsnail.cache.HashCacheSupervisor;
+
+public final class HashCacheSupervisorTest extends TestCase {
+	/**
+	 * Failure records with an initial backoff of 100 milliseconds and a maximum backoff of 200 milliseconds, which use a clock
+	 * that only moves when the time is changed.
+	 */
+	static final class ManualClockFailureRecords extends CacheFailureRecords {
+		/**
+		 * The time, in milliseconds.
+		 */
+		public long time;
+		public ManualClockFailureRecords() {
+			super(100, 200);
+		}
+		@Override
+		protected long getTime() {
+			return time;
+		}
+	}
+	/**
+	 * Checks aborting and backing off, for a supervisor which uses the passed failure records.
+	 */
+	static final void checkAbort(CacheSupervisor supervisor, ManualClockFailureRecords failureRecords) throws Exception {
+		final Exception cause = new Exception();
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.determineObtainOperation(1));
+		supervisor.abort(1, cause);
+		assertSame(cause, supervisor.getFailureCause(1));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_FAILED, supervisor.peekObtainOperation(1));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_FAILED, supervisor.determineObtainOperation(1));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_FAILED, supervisor.refreshAndDetermineObtainOperation(1));
+		failureRecords.time += 99;
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_FAILED, supervisor.determineObtainOperation(1));
+		// After the backoff, one caller creates the element again.
+		failureRecords.time += 1;
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.peekObtainOperation(1));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.determineObtainOperation(1));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE, supervisor.determineObtainOperation(1));
+		// The backoff doubles after the second failure.
+		supervisor.abort(1, null);
+		assertNull(supervisor.getFailureCause(1));
+		failureRecords.time += 199;
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_FAILED, supervisor.determineObtainOperation(1));
+		failureRecords.time += 1;
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.determineObtainOperation(1));
+		// The backoff does not exceed the maximum backoff.
+		supervisor.abort(1, cause);
+		failureRecords.time += 199;
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_FAILED, supervisor.determineObtainOperation(1));
+		failureRecords.time += 1;
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.determineObtainOperation(1));
+		supervisor.finish(1);
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.determineObtainOperation(1));
+		assertNull(supervisor.getFailureCause(1));
+		// After a success, the backoff starts at the initial backoff again.
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.refreshAndDetermineObtainOperation(1));
+		supervisor.abort(1, cause);
+		failureRecords.time += 99;
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_FAILED, supervisor.determineObtainOperation(1));
+		failureRecords.time += 1;
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.determineObtainOperation(1));
+		// Other elements are not affected.
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.determineObtainOperation(2));
+		assertNull(supervisor.getFailureCause(2));
+		try {
+			supervisor.abort(3, cause);
+			fail();
+		} catch (IllegalStateException exception) {
+		}
+	}
+	public final void testAbort() throws Exception {
+		final ManualClockFailureRecords failureRecords = new ManualClockFailureRecords();
+		checkAbort(new HashCacheSupervisor(new int[0], failureRecords), failureRecords);
+	}
+	public final void testInitialIdentifiers() throws Exception {
+		final CacheSupervisor supervisor = new HashCacheSupervisor(new int[]{0, -5, 12, 12, Integer.MIN_VALUE});
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.peekObtainOperation(0));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.determineObtainOperation(-5));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.determineObtainOperation(12));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.determineObtainOperation(Integer.MIN_VALUE));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.peekObtainOperation(1));
+	}
+	public final void testLifecycle() throws Exception {
+		final CacheSupervisor supervisor = new HashCacheSupervisor(new int[0]);
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.peekObtainOperation(7));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.determineObtainOperation(7));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE, supervisor.peekObtainOperation(7));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE, supervisor.determineObtainOperation(7));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE, supervisor.refreshAndDetermineObtainOperation(7));
+		supervisor.finish(7);
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.determineObtainOperation(7));
+		// The element turns out to be broken: the first caller recreates it, others wait.
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.refreshAndDetermineObtainOperation(7));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE, supervisor.refreshAndDetermineObtainOperation(7));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE, supervisor.determineObtainOperation(7));
+		supervisor.finish(7);
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.peekObtainOperation(7));
+		try {
+			supervisor.finish(8);
+			fail();
+		} catch (IllegalStateException exception) {
+		}
+		try {
+			supervisor.refreshAndDetermineObtainOperation(8);
+			fail();
+		} catch (IllegalStateException exception) {
+		}
+	}
+	public final void testManyIdentifiers() throws Exception {
+		final Random random = new Random(0);
+		final CacheSupervisor supervisor = new HashCacheSupervisor(new int[0]);
+		// Maps identifiers to whether they are available.
+		final HashMap<Integer, Boolean> expected = new HashMap<Integer, Boolean>();
+		for (int iterationIdentifier = 0; 200000 != iterationIdentifier; iterationIdentifier++) {
+			// Use sequential identifiers as well as random ones.
+			final int identifier = random.nextBoolean() ? random.nextInt(50000) : random.nextInt() << 10;
+			final Boolean status = expected.get(identifier);
+			if (null == status) {
+				assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE,
+						supervisor.determineObtainOperation(identifier));
+				expected.put(identifier, false);
+			} else if (status) {
+				assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.determineObtainOperation(identifier));
+			} else /* if (false == status) */ {
+				assertEquals(CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE, supervisor.peekObtainOperation(identifier));
+				supervisor.finish(identifier);
+				expected.put(identifier, true);
+			}
+		}
+	}
+}
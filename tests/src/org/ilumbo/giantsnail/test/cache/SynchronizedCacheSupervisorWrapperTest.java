@@ -0,0 +1,119 @@
+package org.ilumbo.giantsnail.test.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.cache.AwaitableCacheSupervisor;
+import org.ilumbo.giantsnail.cache.CacheSupervisor;
+import org.ilumbo.giantsnail.cache.HashCacheSupervisor;
+import org.ilumbo.giantsnail.cache.SimpleCacheSupervisor;
+import org.ilumbo.giantsnail.cache.SynchronizedCacheSupervisorWrapper;
+
+public final class SynchronizedCacheSupervisorWrapperTest extends TestCase {
+	/**
+	 * Has the passed number of threads await the same identifiers, and checks that every identifier is created exactly once
+	 * and that no thread times out.
+	 */
+	static final void stressAwait(final AwaitableCacheSupervisor supervisor, int threadCount, final int identifierCount)
+			throws Exception {
+		final AtomicIntegerArray createCounts = new AtomicIntegerArray(identifierCount);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		final Thread[] threads = new Thread[threadCount];
+		for (int threadIndex = 0; threadCount != threadIndex; threadIndex++) {
+			threads[threadIndex] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						for (int identifier = 0; identifierCount != identifier; identifier++) {
+							switch (supervisor.awaitObtainOperation(identifier, 60000)) {
+							case CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE:
+								createCounts.incrementAndGet(identifier);
+								// Give the other threads time to start waiting.
+								Thread.yield();
+								supervisor.finish(identifier);
+								break;
+							case CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE:
+								throw new AssertionError("Timed out");
+							}
+						}
+					} catch (Throwable throwable) {
+						failure.compareAndSet(null, throwable);
+					}
+				}
+			};
+			threads[threadIndex].start();
+		}
+		for (int threadIndex = 0; threadCount != threadIndex; threadIndex++) {
+			threads[threadIndex].join();
+		}
+		if (null != failure.get()) {
+			throw new AssertionError(failure.get());
+		}
+		for (int identifier = 0; identifierCount != identifier; identifier++) {
+			assertEquals(1, createCounts.get(identifier));
+		}
+	}
+	/**
+	 * Checks that threads awaiting an element which is being created are woken up when creating it is aborted.
+	 */
+	static final void checkAwaitAbort(final AwaitableCacheSupervisor supervisor) throws Exception {
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.determineObtainOperation(9));
+		final Thread aborter = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException exception) {
+				}
+				supervisor.abort(9, null);
+			}
+		};
+		aborter.start();
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_FAILED, supervisor.awaitObtainOperation(9, 60000));
+		aborter.join();
+	}
+	/**
+	 * Checks that threads awaiting an element which is being created are woken up when it is finished, and that awaiting
+	 * times out.
+	 */
+	static final void checkAwait(final AwaitableCacheSupervisor supervisor) throws Exception {
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_CREATE_AND_WRITE, supervisor.awaitObtainOperation(5, 1000));
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE, supervisor.awaitObtainOperation(5, 0));
+		long startTime = System.nanoTime();
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_WAIT_OR_CREATE, supervisor.awaitObtainOperation(5, 50));
+		assertTrue(System.nanoTime() - startTime >= 50000000l);
+		final Thread finisher = new Thread() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException exception) {
+				}
+				// Finishing another element must not wake the waiting thread for good.
+				supervisor.determineObtainOperation(6);
+				supervisor.finish(6);
+				supervisor.finish(5);
+			}
+		};
+		startTime = System.nanoTime();
+		finisher.start();
+		assertEquals(CacheSupervisor.OBTAIN_OPERATION_READ, supervisor.awaitObtainOperation(5, Long.MAX_VALUE));
+		assertTrue(System.nanoTime() - startTime >= 100000000l);
+		finisher.join();
+	}
+	public final void testAbort() throws Exception {
+		final HashCacheSupervisorTest.ManualClockFailureRecords failureRecords =
+				new HashCacheSupervisorTest.ManualClockFailureRecords();
+		HashCacheSupervisorTest.checkAbort(new SynchronizedCacheSupervisorWrapper(new SimpleCacheSupervisor(new int[0],
+				failureRecords)), failureRecords);
+		checkAwaitAbort(new SynchronizedCacheSupervisorWrapper(new HashCacheSupervisor(new int[0])));
+	}
+	public final void testAwait() throws Exception {
+		checkAwait(new SynchronizedCacheSupervisorWrapper(new HashCacheSupervisor(new int[0])));
+	}
+	public final void testStressAwait() throws Exception {
+		stressAwait(new SynchronizedCacheSupervisorWrapper(new HashCacheSupervisor(new int[0])), 8, 2000);
+	}
+}
@@ -0,0 +1,122 @@
+package org.ilumbo.giantsnail.test.cryptography;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.cryptography.BloomFilter;
+
+public final class BloomFilterTest extends TestCase {
+	/**
+	 * Adds 10000 random keys to the passed filter, and returns the rate of false positives of 100000 other keys.
+	 */
+	private static final double measureFalsePositiveRate(BloomFilter filter) {
+		final Random random = new Random(0);
+		final long[] keys = new long[10000];
+		for (int index = 0; keys.length != index; index++) {
+			keys[index] = random.nextLong() << 1;
+			filter.add(keys[index]);
+		}
+		for (int index = 0; keys.length != index; index++) {
+			assertTrue(filter.mightContain(keys[index]));
+		}
+		int falsePositiveCount = 0;
+		for (int index = 0; 100000 != index; index++) {
+			if (filter.mightContain(random.nextLong() << 1 | 1)) {
+				falsePositiveCount++;
+			}
+		}
+		return falsePositiveCount / 100000d;
+	}
+	public final void testCreate() throws Exception {
+		final BloomFilter filter = BloomFilter.create(1000, 0.01, false);
+		assertEquals(7, filter.getHashCount());
+		assertEquals(9600, filter.getBitCount());
+		assertEquals(0, BloomFilter.create(1000, 0.01, true).getBitCount() % BloomFilter.BLOCK_SIZE);
+		try {
+			BloomFilter.create(1000, 1, false);
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+		try {
+			new BloomFilter(0, 3, 0, false);
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+		// Sizes that cannot be represented are rejected rather than overflowing.
+		try {
+			new BloomFilter(Integer.MAX_VALUE, 3, 0, false);
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+		try {
+			new BloomFilter(BloomFilter.MAXIMUM_BIT_COUNT + 1, 3, 0, true);
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+		try {
+			new BloomFilter(64, 0, 0, false);
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+		// Filters with different seeds cannot be combined.
+		try {
+			BloomFilter.create(1000, 0.01, false, 1).union(BloomFilter.create(1000, 0.01, false, 2));
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+	}
+	public final void testFalsePositiveRate() throws Exception {
+		assertTrue(measureFalsePositiveRate(BloomFilter.create(10000, 0.01, false)) < 0.013);
+		assertTrue(measureFalsePositiveRate(BloomFilter.create(10000, 0.01, true)) < 0.02);
+	}
+	public final void testKeyTypes() throws Exception {
+		final BloomFilter filter = BloomFilter.create(100, 0.001, false);
+		filter.add("snail");
+		filter.add(new byte[]{1, 2, 3, 4, 5}, 1, 3);
+		assertTrue(filter.mightContain(new StringBuilder("snail")));
+		assertTrue(filter.mightContain(new byte[]{2, 3, 4}, 0, 3));
+		assertFalse(filter.mightContain("slug"));
+		assertFalse(filter.mightContain(new byte[]{1, 2, 3}, 0, 3));
+	}
+	public final void testSerialization() throws Exception {
+		final BloomFilter filter = BloomFilter.create(500, 0.01, true);
+		for (int key = 0; 500 != key; key++) {
+			filter.add(key);
+		}
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(filter.getSerializedSize() + 3).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.position(3);
+		filter.writeTo(buffer);
+		assertEquals(0, buffer.remaining());
+		buffer.position(3);
+		final BloomFilter wrapped = BloomFilter.wrap(buffer);
+		assertEquals(0, buffer.remaining());
+		assertEquals(filter.getBitCount(), wrapped.getBitCount());
+		for (int key = 0; 1000 != key; key++) {
+			assertEquals(filter.mightContain(key), wrapped.mightContain(key));
+		}
+		// Keys added to the wrapping filter are written into the buffer.
+		wrapped.add(-1);
+		buffer.position(3);
+		assertTrue(BloomFilter.wrap(buffer).mightContain(-1));
+	}
+	public final void testUnion() throws Exception {
+		final BloomFilter first = new BloomFilter(4096, 5, 7, false);
+		final BloomFilter second = new BloomFilter(4096, 5, 7, false);
+		for (int key = 0; 100 != key; key++) {
+			first.add(key);
+			second.add(key + 100);
+		}
+		first.union(second);
+		for (int key = 0; 200 != key; key++) {
+			assertTrue(first.mightContain(key));
+		}
+		try {
+			first.union(new BloomFilter(4096, 5, 8, false));
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+	}
+}
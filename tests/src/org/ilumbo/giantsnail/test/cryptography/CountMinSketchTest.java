@@ -0,0 +1,80 @@
+package org.ilumbo.giantsnail.test.cryptography;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.cryptography.CountMinSketch;
+
+public final class CountMinSketchTest extends TestCase {
+	public final void testAccuracy() throws Exception {
+		final CountMinSketch sketch = CountMinSketch.create(0.001, 0.01, 0);
+		assertEquals(2719, sketch.getWidth());
+		assertEquals(5, sketch.getDepth());
+		// Add keys with a skewed distribution: key k is added about 20000 / (k + 1) times.
+		final Random random = new Random(0);
+		final int[] counts = new int[10000];
+		int totalCount = 0;
+		for (int index = 0; 200000 != index; index++) {
+			final int key = (int) Math.floor(Math.exp(random.nextDouble() * Math.log(counts.length))) - 1;
+			sketch.add(key);
+			counts[key]++;
+			totalCount++;
+		}
+		int badEstimateCount = 0;
+		for (int key = 0; counts.length != key; key++) {
+			final int estimate = sketch.getCount(key);
+			assertTrue(estimate >= counts[key]);
+			if (estimate > counts[key] + 0.001 * totalCount) {
+				badEstimateCount++;
+			}
+		}
+		assertTrue(badEstimateCount < 0.01 * counts.length);
+		assertTrue(sketch.getCount(-1) <= 0.001 * totalCount);
+	}
+	public final void testAging() throws Exception {
+		final CountMinSketch sketch = new CountMinSketch(64, 4, 100, 0);
+		sketch.add(7, 60);
+		assertEquals(60, sketch.getCount(7));
+		sketch.add(8, 39);
+		assertEquals(60, sketch.getCount(7));
+		// The 100th addition halves all counters.
+		sketch.add(8);
+		assertEquals(30, sketch.getCount(7));
+		assertEquals(20, sketch.getCount(8));
+		sketch.age();
+		assertEquals(15, sketch.getCount(7));
+	}
+	public final void testConservativeUpdate() throws Exception {
+		// With a single counter per row, every key shares the counters.
+		final CountMinSketch sketch = new CountMinSketch(1, 3, 0, 0);
+		sketch.add(1, 5);
+		sketch.add(2, 3);
+		assertEquals(8, sketch.getCount(3));
+		sketch.add(2, Integer.MAX_VALUE);
+		assertEquals(Integer.MAX_VALUE, sketch.getCount(1));
+	}
+	public final void testMergeAndSerialization() throws Exception {
+		final CountMinSketch first = new CountMinSketch(1000, 4, 0, 3);
+		final CountMinSketch second = new CountMinSketch(1000, 4, 0, 3);
+		first.add("first".getBytes("UTF-8"), 0, 5);
+		first.add(42, 10);
+		second.add(42, 5);
+		second.add(43);
+		final ByteBuffer buffer = ByteBuffer.allocate(second.getSerializedSize());
+		second.writeTo(buffer);
+		assertEquals(0, buffer.remaining());
+		buffer.flip();
+		first.merge(CountMinSketch.readFrom(buffer));
+		assertEquals(0, buffer.remaining());
+		assertEquals(15, first.getCount(42));
+		assertEquals(1, first.getCount(43));
+		assertEquals(1, first.getCount("first".getBytes("UTF-8"), 0, 5));
+		try {
+			first.merge(new CountMinSketch(1000, 4, 0, 4));
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package org.ilumbo.giantsnail.test.cryptography;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.cryptography.HyperLogLog;
+
+public final class HyperLogLogTest extends TestCase {
+	public final void testAccuracy() throws Exception {
+		final Random random = new Random(0);
+		final int[] keyCounts = new int[]{0, 1, 10, 1000, 10000, 100000, 1000000};
+		for (int index = 0; keyCounts.length != index; index++) {
+			final HyperLogLog hyperLogLog = new HyperLogLog();
+			final long offset = random.nextLong();
+			for (int key = 0; keyCounts[index] != key; key++) {
+				hyperLogLog.add(offset + key);
+				// Adding a key again has no effect.
+				hyperLogLog.add(offset + key);
+			}
+			// Allow three times the standard error.
+			assertEquals(keyCounts[index], hyperLogLog.getEstimate(), keyCounts[index] * 3 * 1.04 / 64 + 0.5);
+		}
+	}
+	public final void testMergeAndSerialization() throws Exception {
+		final HyperLogLog first = new HyperLogLog(14, 1);
+		final HyperLogLog second = new HyperLogLog(14, 1);
+		for (int key = 0; 30000 != key; key++) {
+			first.add(key);
+			second.add(key + 20000);
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(second.getSerializedSize());
+		second.writeTo(buffer);
+		assertEquals(0, buffer.remaining());
+		buffer.flip();
+		first.merge(HyperLogLog.readFrom(buffer));
+		assertEquals(50000, first.getEstimate(), 50000 * 3 * 1.04 / 128);
+		first.add("snail".getBytes("UTF-8"), 0, 5);
+		first.clear();
+		assertEquals(0, first.getEstimate());
+		try {
+			first.merge(new HyperLogLog(13, 1));
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+		try {
+			new HyperLogLog(19, 0);
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+	}
+}
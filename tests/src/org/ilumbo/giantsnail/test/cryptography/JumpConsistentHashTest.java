@@ -0,0 +1,40 @@
+package org.ilumbo.giantsnail.test.cryptography;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.cryptography.JumpConsistentHash;
+
+public final class JumpConsistentHashTest extends TestCase {
+	private static final int KEY_COUNT = 100000;
+	public final void testJumpConsistentHash() throws Exception {
+		final int[] keys = new int[KEY_COUNT];
+		for (int index = 0; KEY_COUNT != index; index++) {
+			keys[index] = index;
+		}
+		int[] previousBuckets = null;
+		for (int bucketCount = 1; 20 != bucketCount; bucketCount++) {
+			final int[] buckets = new int[KEY_COUNT];
+			JumpConsistentHash.getBuckets(keys, 0, KEY_COUNT, 5, bucketCount, buckets);
+			final int[] bucketSizes = new int[bucketCount];
+			int movedKeyCount = 0;
+			for (int index = 0; KEY_COUNT != index; index++) {
+				assertEquals(JumpConsistentHash.getBucket(index, 5, bucketCount), buckets[index]);
+				bucketSizes[buckets[index]]++;
+				// Keys only move to the new bucket.
+				if (null != previousBuckets && previousBuckets[index] != buckets[index]) {
+					assertEquals(bucketCount - 1, buckets[index]);
+					movedKeyCount++;
+				}
+			}
+			// Roughly 1 / n of the keys move, and every bucket gets roughly 1 / n of them.
+			final int expectedBucketSize = KEY_COUNT / bucketCount;
+			if (null != previousBuckets) {
+				assertEquals(expectedBucketSize, movedKeyCount, expectedBucketSize / 10);
+			}
+			for (int bucket = 0; bucketCount != bucket; bucket++) {
+				assertEquals(expectedBucketSize, bucketSizes[bucket], expectedBucketSize / 10);
+			}
+			previousBuckets = buckets;
+		}
+	}
+}
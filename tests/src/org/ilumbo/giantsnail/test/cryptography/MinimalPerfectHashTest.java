@@ -0,0 +1,75 @@
+package org.ilumbo.giantsnail.test.cryptography;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.cryptography.MinimalPerfectHash;
+
+public final class MinimalPerfectHashTest extends TestCase {
+	/**
+	 * Checks that the passed function maps the passed keys to distinct indices from 0 to the number of keys.
+	 */
+	private static final void checkIndices(MinimalPerfectHash hash, long[] keys) {
+		final boolean[] used = new boolean[keys.length];
+		for (int index = 0; keys.length != index; index++) {
+			final int keyIndex = hash.getIndex(keys[index]);
+			assertTrue(keyIndex >= 0 && keyIndex < keys.length);
+			assertFalse(used[keyIndex]);
+			used[keyIndex] = true;
+		}
+	}
+	public final void testIntegerKeys() throws Exception {
+		final Random random = new Random(0);
+		final int[] sizes = new int[]{0, 1, 2, 63, 1000, 50000};
+		for (int sizeIndex = 0; sizes.length != sizeIndex; sizeIndex++) {
+			final HashSet<Integer> keySet = new HashSet<Integer>();
+			while (keySet.size() != sizes[sizeIndex]) {
+				keySet.add(random.nextInt());
+			}
+			final int[] keys = new int[keySet.size()];
+			final long[] longKeys = new long[keySet.size()];
+			int index = 0;
+			for (Integer key : keySet) {
+				longKeys[index] = key;
+				keys[index++] = key;
+			}
+			final MinimalPerfectHash hash = MinimalPerfectHash.create(keys, MinimalPerfectHash.DEFAULT_GAMMA, 1);
+			assertEquals(keys.length, hash.getKeyCount());
+			checkIndices(hash, longKeys);
+			for (index = 0; keys.length != index; index++) {
+				assertEquals(hash.getIndex(longKeys[index]), hash.getIndex(keys[index]));
+			}
+			// Serialize the function, and read it back.
+			final ByteBuffer buffer = ByteBuffer.allocate(hash.getSerializedSize() + 3);
+			buffer.position(3);
+			hash.writeTo(buffer);
+			assertEquals(buffer.capacity(), buffer.position());
+			if (50000 == keys.length) {
+				assertTrue(hash.getSerializedSize() * 8 < keys.length * 4);
+			}
+			buffer.position(3);
+			final MinimalPerfectHash readHash = MinimalPerfectHash.readFrom(buffer);
+			assertEquals(buffer.capacity(), buffer.position());
+			for (index = 0; keys.length != index; index++) {
+				assertEquals(hash.getIndex(keys[index]), readHash.getIndex(keys[index]));
+			}
+		}
+	}
+	public final void testLongKeys() throws Exception {
+		final Random random = new Random(0);
+		final long[] keys = new long[20000];
+		for (int index = 0; keys.length != index; index++) {
+			keys[index] = random.nextLong();
+		}
+		checkIndices(MinimalPerfectHash.create(keys, MinimalPerfectHash.DEFAULT_GAMMA, 0), keys);
+		checkIndices(MinimalPerfectHash.create(keys, 2, 0), keys);
+		try {
+			MinimalPerfectHash.create(new long[]{1, 2, 3, 2}, MinimalPerfectHash.DEFAULT_GAMMA, 0);
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+	}
+}
@@ -0,0 +1,271 @@
+package org.ilumbo.giantsnail.test.cryptography;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.cryptography.MurmurHash3;
+
+public final class MurmurHash3Test extends TestCase {
+	/**
+	 * "The quick brown fox jumps over the lazy dog" in ASCII.
+	 */
+	private static final byte[] fox;
+	static {
+		final String foxString = "The quick brown fox jumps over the lazy dog";
+		fox = new byte[foxString.length()];
+		for (int index = 0; foxString.length() != index; index++) {
+			fox[index] = (byte) foxString.charAt(index);
+		}
+	}
+	public final void testCalculate128() throws Exception {
+		final long[] output = new long[2];
+		MurmurHash3.calculate128(fox, 0, fox.length, 0, output);
+		assertEquals(0xE34BBC7BBC071B6Cl, output[0]);
+		assertEquals(0x7A433CA9C49A9347l, output[1]);
+		assertEquals(0xE34BBC7BBC071B6Cl, MurmurHash3.calculate64(fox, 0, fox.length, 0));
+		// The hash of no data with seed 0 is 0.
+		MurmurHash3.calculate128(fox, 0, 0, 0, output);
+		assertEquals(0, output[0]);
+		assertEquals(0, output[1]);
+	}
+	public final void testCalculate128Inputs() throws Exception {
+		final Random random = new Random(0);
+		final long[] expected = new long[2];
+		final long[] output = new long[2];
+		for (int length = 0; 40 != length; length++) {
+			// Compare hashing longs with hashing their bytes.
+			final long[] longs = new long[length + 1];
+			final byte[] bytes = new byte[(length << 3) + 3];
+			for (int index = 0; length != index; index++) {
+				longs[index + 1] = random.nextLong();
+				for (int byteIndex = 0; 8 != byteIndex; byteIndex++) {
+					bytes[(index << 3) + byteIndex + 3] = (byte) (longs[index + 1] >>> (byteIndex << 3));
+				}
+			}
+			MurmurHash3.calculate128(bytes, 3, length << 3, length, expected);
+			MurmurHash3.calculate128(longs, 1, length, length, output);
+			assertEquals(expected[0], output[0]);
+			assertEquals(expected[1], output[1]);
+			assertEquals(expected[0], MurmurHash3.calculate64(longs, 1, length, length));
+			if (1 == length) {
+				MurmurHash3.calculate128(longs[1], length, output);
+				assertEquals(expected[0], output[0]);
+				assertEquals(expected[1], output[1]);
+				assertEquals(expected[0], MurmurHash3.calculate64(longs[1], length));
+			}
+			// Compare hashing buffers (of both byte orders) with hashing byte arrays, for lengths that are not multiples of 8.
+			final int byteLength = bytes.length - 3 - length % 8;
+			MurmurHash3.calculate128(bytes, 3, byteLength, 7, expected);
+			final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			buffer.position(3);
+			buffer.limit(3 + byteLength);
+			MurmurHash3.calculate128(buffer, 7, output);
+			assertEquals(expected[0], output[0]);
+			assertEquals(expected[1], output[1]);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			assertEquals(expected[0], MurmurHash3.calculate64(buffer, 7));
+			assertEquals(3, buffer.position());
+		}
+	}
+	public final void testCalculate32() throws Exception {
+		assertEquals(0x2E4FF723, MurmurHash3.calculate(fox, 0, fox.length, 0));
+		assertEquals(0, MurmurHash3.calculate(fox, 0, 0, 0));
+	}
+	/**
+	 * Tests the hash functions the way SMHasher verifies them: the keys {}, {0}, {0, 1} and so on up to 255 bytes are
+	 * hashed with seed 256 - length, and the hashes are hashed with seed 0. The first four bytes of that are compared with
+	 * the verification value.
+	 */
+	public final void testCalculate32Inputs() throws Exception {
+		final Random random = new Random(0);
+		for (int length = 0; 40 != length; length++) {
+			final byte[] data = new byte[length];
+			random.nextBytes(data);
+			final int expected = MurmurHash3.calculate(data, 0, length, 7);
+			// Hash the same data at offsets that are not multiples of 4.
+			for (int offset = 1; 4 != offset; offset++) {
+				final byte[] shiftedData = new byte[offset + length];
+				System.arraycopy(data, 0, shiftedData, offset, length);
+				assertEquals(expected, MurmurHash3.calculate(shiftedData, offset, length, 7));
+				final ByteBuffer buffer = ByteBuffer.allocateDirect(offset + length);
+				buffer.position(offset);
+				buffer.put(data);
+				buffer.position(offset);
+				assertEquals(expected, MurmurHash3.calculate(buffer, 7));
+				assertEquals(expected, MurmurHash3.calculate(buffer.order(ByteOrder.LITTLE_ENDIAN), 7));
+				assertEquals(offset, buffer.position());
+			}
+		}
+	}
+	public final void testCalculateFile() throws Exception {
+		final Random random = new Random(0);
+		final byte[] data = new byte[100003];
+		random.nextBytes(data);
+		final File file = File.createTempFile("murmur", null);
+		try {
+			final FileOutputStream output = new FileOutputStream(file);
+			try {
+				output.write(data);
+			} finally {
+				output.close();
+			}
+			assertEquals(MurmurHash3.calculate(data, 0, data.length, 5), MurmurHash3.calculate(file, 5));
+			final long[] expected = new long[2];
+			MurmurHash3.calculate128(data, 0, data.length, 5, expected);
+			final long[] hash = new long[2];
+			MurmurHash3.calculate128(file, 5, hash);
+			assertEquals(expected[0], hash[0]);
+			assertEquals(expected[1], hash[1]);
+		} finally {
+			file.delete();
+		}
+	}
+	public final void testCalculateCharacters() throws Exception {
+		final Random random = new Random(0);
+		// Characters of one to four bytes in UTF-8, as well as both halves of surrogate pairs.
+		final char[] alphabet = new char[]{'a', 'Z', '?', '\u00E9', '\u07FF', '\u20AC', '\uFFFF', '\uD83D', '\uDE00'};
+		for (int iterationIdentifier = 0; 200 != iterationIdentifier; iterationIdentifier++) {
+			final char[] characters = new char[random.nextInt(20)];
+			for (int index = 0; characters.length != index; index++) {
+				characters[index] = alphabet[random.nextInt(alphabet.length)];
+			}
+			final String string = new String(characters);
+			final byte[] utf8Bytes = string.getBytes("UTF-8");
+			final int expectedUtf8 = MurmurHash3.calculate(utf8Bytes, 0, utf8Bytes.length, 3);
+			assertEquals(expectedUtf8, MurmurHash3.calculateUtf8(string, 3));
+			assertEquals(expectedUtf8, MurmurHash3.calculateUtf8(characters, 0, characters.length, 3));
+			// Lone surrogates are hashed as they are, so the code units cannot be encoded by getBytes("UTF-16LE").
+			final byte[] utf16Bytes = new byte[characters.length << 1];
+			for (int index = 0; characters.length != index; index++) {
+				utf16Bytes[index << 1] = (byte) characters[index];
+				utf16Bytes[(index << 1) + 1] = (byte) (characters[index] >>> 8);
+			}
+			final int expectedUtf16 = MurmurHash3.calculate(utf16Bytes, 0, utf16Bytes.length, 3);
+			assertEquals(expectedUtf16, MurmurHash3.calculate(string, 3));
+			assertEquals(expectedUtf16, MurmurHash3.calculate(characters, 0, characters.length, 3));
+			// Hash part of the characters.
+			if (characters.length > 2) {
+				final String substring = string.substring(1, characters.length - 1);
+				assertEquals(MurmurHash3.calculateUtf8(substring, 3),
+						MurmurHash3.calculateUtf8(characters, 1, characters.length - 2, 3));
+				assertEquals(MurmurHash3.calculate(substring, 3),
+						MurmurHash3.calculate(characters, 1, characters.length - 2, 3));
+			}
+		}
+	}
+	public final void testHashAll() throws Exception {
+		final Random random = new Random(0);
+		for (int length = 0; 20 != length; length++) {
+			final int[] intKeys = new int[length + 2];
+			final long[] longKeys = new long[length + 2];
+			for (int index = 0; intKeys.length != index; index++) {
+				intKeys[index] = random.nextInt();
+				longKeys[index] = random.nextLong();
+			}
+			final int[] intHashes = new int[length + 2];
+			MurmurHash3.hashAll(intKeys, 1, length, 11, intHashes);
+			final long[] longHashes = new long[length + 2];
+			MurmurHash3.hashAll(longKeys, 1, length, 11, longHashes);
+			final long[] output = new long[2];
+			for (int index = 1; length + 1 != index; index++) {
+				assertEquals(MurmurHash3.calculate(intKeys[index], 11), intHashes[index]);
+				MurmurHash3.calculate128(longKeys[index], 11, output);
+				assertEquals(output[0], longHashes[index]);
+				assertEquals(output[0], MurmurHash3.calculate64(longKeys[index], 11));
+			}
+			assertEquals(0, intHashes[0]);
+			assertEquals(0, longHashes[length + 1]);
+			// Hash in place.
+			MurmurHash3.hashAll(intKeys, 1, length, 11, intKeys);
+			for (int index = 1; length + 1 != index; index++) {
+				assertEquals(intHashes[index], intKeys[index]);
+			}
+		}
+	}
+	public final void testHashers() throws Exception {
+		final Random random = new Random(0);
+		final MurmurHash3.Hasher32 hasher32 = new MurmurHash3.Hasher32(42);
+		final MurmurHash3.Hasher128 hasher128 = new MurmurHash3.Hasher128(42);
+		final long[] expected = new long[2];
+		final long[] output = new long[2];
+		for (int iterationIdentifier = 0; 100 != iterationIdentifier; iterationIdentifier++) {
+			final byte[] data = new byte[random.nextInt(200)];
+			random.nextBytes(data);
+			final int expected32 = MurmurHash3.calculate(data, 0, data.length, 42);
+			MurmurHash3.calculate128(data, 0, data.length, 42, expected);
+			// Pass the data in random parts, alternating between arrays and buffers.
+			int offset = 0;
+			while (data.length != offset) {
+				final int length = random.nextInt(Math.min(data.length - offset, 40) + 1);
+				if (random.nextBoolean()) {
+					hasher32.update(data, offset, length);
+					hasher128.update(data, offset, length);
+				} else {
+					final ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+					hasher32.update(buffer);
+					assertEquals(offset + length, buffer.position());
+					buffer.position(offset);
+					hasher128.update(buffer.order(ByteOrder.LITTLE_ENDIAN));
+				}
+				offset += length;
+			}
+			assertEquals(expected32, hasher32.finish());
+			hasher128.finish(output);
+			assertEquals(expected[0], output[0]);
+			assertEquals(expected[1], output[1]);
+			// Pass the data as a stream and as a channel.
+			hasher32.update(new ByteArrayInputStream(data));
+			assertEquals(expected32, hasher32.finish());
+			hasher128.update(Channels.newChannel(new ByteArrayInputStream(data)));
+			hasher128.finish(output);
+			assertEquals(expected[0], output[0]);
+			assertEquals(expected[1], output[1]);
+		}
+		// A non-blocking channel is rejected rather than polled.
+		final Pipe pipe = Pipe.open();
+		try {
+			pipe.source().configureBlocking(false);
+			try {
+				new MurmurHash3.Hasher32(0).update(pipe.source());
+				fail();
+			} catch (IllegalArgumentException exception) {
+			}
+			try {
+				new MurmurHash3.Hasher128(0).update(pipe.source());
+				fail();
+			} catch (IllegalArgumentException exception) {
+			}
+		} finally {
+			pipe.source().close();
+			pipe.sink().close();
+		}
+	}
+	public final void testVerificationValues() throws Exception {
+		final byte[] key = new byte[256];
+		final byte[] hashes32 = new byte[256 * 4];
+		final byte[] hashes128 = new byte[256 * 16];
+		final long[] output = new long[2];
+		for (int length = 0; 256 != length; length++) {
+			key[length] = (byte) length;
+			final int hash32 = MurmurHash3.calculate(key, 0, length, 256 - length);
+			for (int byteIndex = 0; 4 != byteIndex; byteIndex++) {
+				hashes32[(length << 2) + byteIndex] = (byte) (hash32 >>> (byteIndex << 3));
+			}
+			MurmurHash3.calculate128(key, 0, length, 256 - length, output);
+			for (int byteIndex = 0; 16 != byteIndex; byteIndex++) {
+				hashes128[(length << 4) + byteIndex] = (byte) (output[byteIndex >>> 3] >>> ((byteIndex & 7) << 3));
+			}
+		}
+		assertEquals(0xB0F57EE3, MurmurHash3.calculate(hashes32, 0, hashes32.length, 0));
+		MurmurHash3.calculate128(hashes128, 0, hashes128.length, 0, output);
+		assertEquals(0x6384BA69, (int) output[0]);
+	}
+}
@@ -0,0 +1,57 @@
+package org.ilumbo.giantsnail.test.cryptography;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.cryptography.MurmurHash3;
+import org.ilumbo.giantsnail.cryptography.MurmurHash3TreeHash;
+
+public final class MurmurHash3TreeHashTest extends TestCase {
+	public final void testTreeHash() throws Exception {
+		final Random random = new Random(0);
+		final byte[] data = new byte[4096 * 7 + 100];
+		random.nextBytes(data);
+		final File file = File.createTempFile("tree", null);
+		try {
+			final FileOutputStream output = new FileOutputStream(file);
+			try {
+				output.write(data);
+			} finally {
+				output.close();
+			}
+			final long[] chunkHashes = MurmurHash3TreeHash.calculateChunkHashes(file, 4096, 9);
+			assertEquals(8 * 2, chunkHashes.length);
+			final long[] expected = new long[2];
+			for (int chunkIndex = 0; 8 != chunkIndex; chunkIndex++) {
+				MurmurHash3.calculate128(data, chunkIndex * 4096, Math.min(4096, data.length - chunkIndex * 4096), 9,
+						expected);
+				assertEquals(expected[0], chunkHashes[chunkIndex << 1]);
+				assertEquals(expected[1], chunkHashes[(chunkIndex << 1) + 1]);
+			}
+			final long[] rootHash = new long[2];
+			MurmurHash3TreeHash.calculateRootHash(file, 4096, 9, rootHash);
+			MurmurHash3.calculate128(chunkHashes, 0, chunkHashes.length, 9, expected);
+			assertEquals(expected[0], rootHash[0]);
+			assertEquals(expected[1], rootHash[1]);
+			// Change a byte in the third chunk, and rehash only that chunk.
+			final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+			try {
+				randomAccessFile.seek(4096 * 2 + 10);
+				randomAccessFile.write(data[4096 * 2 + 10] ^ 1);
+			} finally {
+				randomAccessFile.close();
+			}
+			final long[] updatedChunkHashes = chunkHashes.clone();
+			MurmurHash3TreeHash.calculateChunkHash(file, 4096, 2, 9, updatedChunkHashes);
+			assertTrue(Arrays.equals(MurmurHash3TreeHash.calculateChunkHashes(file, 4096, 9), updatedChunkHashes));
+			assertFalse(Arrays.equals(chunkHashes, updatedChunkHashes));
+		} finally {
+			file.delete();
+		}
+	}
+}
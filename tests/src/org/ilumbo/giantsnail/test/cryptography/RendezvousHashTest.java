@@ -0,0 +1,51 @@
+package org.ilumbo.giantsnail.test.cryptography;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.cryptography.RendezvousHash;
+
+public final class RendezvousHashTest extends TestCase {
+	private static final int KEY_COUNT = 100000;
+	public final void testRendezvousHash() throws Exception {
+		final String[] names = new String[]{"alpha", "bravo", "charlie", "delta", "echo"};
+		final double[] weights = new double[]{1, 1, 2, 1, 3};
+		final RendezvousHash hash = new RendezvousHash(names, weights);
+		final int[] keys = new int[KEY_COUNT];
+		for (int index = 0; KEY_COUNT != index; index++) {
+			keys[index] = index;
+		}
+		final int[] nodes = new int[KEY_COUNT];
+		hash.getNodes(keys, 0, KEY_COUNT, nodes);
+		final int[] nodeSizes = new int[names.length];
+		for (int index = 0; KEY_COUNT != index; index++) {
+			nodeSizes[nodes[index]]++;
+		}
+		// Every node gets a share proportional to its weight.
+		for (int nodeIndex = 0; names.length != nodeIndex; nodeIndex++) {
+			final int expectedNodeSize = (int) (KEY_COUNT * weights[nodeIndex] / 8);
+			assertEquals(expectedNodeSize, nodeSizes[nodeIndex], expectedNodeSize / 10);
+		}
+		// Remove "charlie". Only its keys move.
+		final RendezvousHash reducedHash = new RendezvousHash(new String[]{"alpha", "bravo", "delta", "echo"},
+				new double[]{1, 1, 1, 3});
+		final int[] reducedNodeIndices = new int[]{0, 1, -1, 2, 3};
+		for (int index = 0; KEY_COUNT != index; index++) {
+			final int reducedNode = reducedHash.getNode(index);
+			if (2 != nodes[index]) {
+				assertEquals(reducedNodeIndices[nodes[index]], reducedNode);
+			}
+		}
+		// Add "foxtrot". Only keys that move to it change nodes.
+		final RendezvousHash extendedHash = new RendezvousHash(new String[]{"alpha", "bravo", "charlie", "delta", "echo",
+				"foxtrot"}, new double[]{1, 1, 2, 1, 3, 2});
+		int movedKeyCount = 0;
+		for (int index = 0; KEY_COUNT != index; index++) {
+			final int extendedNode = extendedHash.getNode(index);
+			if (extendedNode != nodes[index]) {
+				assertEquals(5, extendedNode);
+				movedKeyCount++;
+			}
+		}
+		assertEquals(KEY_COUNT / 5, movedKeyCount, KEY_COUNT / 50);
+	}
+}
@@ -0,0 +1,76 @@
+package org.ilumbo.giantsnail.test.graphics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.graphics.CollisionMask;
+
+public final class CollisionMaskTest extends TestCase {
+	/**
+	 * Returns a sprite of the passed dimensions: a random blob with a transparent border, in ARGB format.
+	 */
+	private static final int[] createSprite(Random random, int width, int height) {
+		final int[] result = new int[width * height];
+		final int border = Math.min(width, height) / 4;
+		for (int y = border; height - border > y; y++) {
+			for (int x = border; width - border > x; x++) {
+				result[y * width + x] = random.nextInt(4) << 30 | 0xFF00FF;
+			}
+		}
+		return result;
+	}
+	/**
+	 * Returns whether the passed masks overlap at the passed offset, checking every pixel.
+	 */
+	private static final boolean getOverlaps(CollisionMask mask, CollisionMask other, int x, int y) {
+		for (int otherY = 0; other.getHeight() != otherY; otherY++) {
+			for (int otherX = 0; other.getWidth() != otherX; otherX++) {
+				final int maskX = otherX + x;
+				final int maskY = otherY + y;
+				if (maskX >= 0 && maskY >= 0 && maskX < mask.getWidth() && maskY < mask.getHeight() &&
+						mask.getIsSolid(maskX, maskY) && other.getIsSolid(otherX, otherY)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	public final void testAlphaThreshold() throws Exception {
+		final CollisionMask mask = new CollisionMask(new int[]{0x00FFFFFF, 0x7F000000, 0x80000000, 0xFF000000}, 2, 2, 0x80);
+		assertFalse(mask.getIsSolid(0, 0));
+		assertFalse(mask.getIsSolid(1, 0));
+		assertTrue(mask.getIsSolid(0, 1));
+		assertTrue(mask.getIsSolid(1, 1));
+	}
+	public final void testOverlaps() throws Exception {
+		final Random random = new Random(0);
+		// Test small masks, as well as masks that are large enough to have coarse masks.
+		final int[] sizes = new int[]{1, 20, 64, 70, 130};
+		for (int index = 0; 40 != index; index++) {
+			final int width = sizes[random.nextInt(sizes.length)];
+			final int height = sizes[random.nextInt(sizes.length)];
+			final int otherWidth = sizes[random.nextInt(sizes.length)];
+			final int otherHeight = sizes[random.nextInt(sizes.length)];
+			final CollisionMask mask = new CollisionMask(createSprite(random, width, height), width, height, 0x80);
+			final CollisionMask other = new CollisionMask(createSprite(random, otherWidth, otherHeight), otherWidth,
+					otherHeight, 0x80);
+			for (int offsetIndex = 0; 50 != offsetIndex; offsetIndex++) {
+				final int x = random.nextInt(width + otherWidth + 20) - otherWidth - 10;
+				final int y = random.nextInt(height + otherHeight + 20) - otherHeight - 10;
+				assertEquals(getOverlaps(mask, other, x, y), mask.overlaps(other, x, y));
+			}
+		}
+	}
+	public final void testTransparent() throws Exception {
+		final CollisionMask transparent = new CollisionMask(new int[100 * 100], 100, 100, 1);
+		final int[] pixels = new int[100 * 100];
+		Arrays.fill(pixels, 0xFF000000);
+		final CollisionMask opaque = new CollisionMask(pixels, 100, 100, 1);
+		assertTrue(opaque.overlaps(opaque, 99, -99));
+		assertFalse(opaque.overlaps(opaque, 100, 0));
+		assertFalse(opaque.overlaps(transparent, 0, 0));
+		assertFalse(transparent.overlaps(opaque, 0, 0));
+	}
+}
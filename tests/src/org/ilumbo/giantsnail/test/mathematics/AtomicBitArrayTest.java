@@ -0,0 +1,53 @@
+package org.ilumbo.giantsnail.test.mathematics;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.mathematics.AtomicBitArray;
+import org.ilumbo.giantsnail.mathematics.LargeBitArray;
+
+public final class AtomicBitArrayTest extends TestCase {
+	public final void testSanity() throws Exception {
+		final AtomicBitArray bitArray = new AtomicBitArray(100);
+		assertEquals(true, bitArray.testAndSetBit(70));
+		assertEquals(false, bitArray.testAndSetBit(70));
+		assertEquals(true, bitArray.getBit(70));
+		assertEquals(true, bitArray.getAndSetBit(70, false));
+		assertEquals(false, bitArray.getBit(70));
+		bitArray.setBit(0, true);
+		assertEquals(1, bitArray.claimFirstFalseBit());
+		assertEquals(2, bitArray.getTrueBitCount());
+	}
+	public final void testClaimConcurrently() throws Exception {
+		final AtomicBitArray bitArray = new AtomicBitArray(10000);
+		// Every bit must be claimed by exactly one thread.
+		final AtomicIntegerArray claimCounts = new AtomicIntegerArray(10000);
+		final Thread[] threads = new Thread[8];
+		for (int threadIndex = 0; threads.length != threadIndex; threadIndex++) {
+			final boolean claimRandomly = 0 == (threadIndex & 1);
+			final Random random = new Random(threadIndex);
+			threads[threadIndex] = new Thread() {
+				@Override
+				public final void run() {
+					int position;
+					while (LargeBitArray.NONE != (position = claimRandomly ? bitArray.claimRandomFalseBit(random) :
+							bitArray.claimFirstFalseBit())) {
+						claimCounts.incrementAndGet(position);
+					}
+				}
+			};
+		}
+		for (int threadIndex = 0; threads.length != threadIndex; threadIndex++) {
+			threads[threadIndex].start();
+		}
+		for (int threadIndex = 0; threads.length != threadIndex; threadIndex++) {
+			threads[threadIndex].join();
+		}
+		for (int position = 0; 10000 != position; position++) {
+			assertEquals(1, claimCounts.get(position));
+		}
+		assertEquals(10000, bitArray.getTrueBitCount());
+	}
+}
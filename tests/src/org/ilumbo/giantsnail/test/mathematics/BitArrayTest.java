@@ -63,6 +63,50 @@ public final class BitArrayTest extends TestCase {
 		assertEquals(0x7FFFFFFFFFFFFFl, BitArray.LongGenerator.generateTrueArray(55));
 		assertEquals(0x7FFFFFFFFFFFFFFFl, BitArray.LongGenerator.generateTrueArray(63));
 	}
+	public final void testGenerateRandomArray() throws Exception {
+		final Random random = new Random(0);
+		for (int length = 0; 32 != length; length++) {
+			for (int trueBitCount = 0; length >= trueBitCount; trueBitCount++) {
+				final int bitArray = BitArray.ShortGenerator.generateRandomArray(length, trueBitCount, random);
+				assertEquals(trueBitCount, Integer.bitCount(bitArray));
+				assertEquals(0, bitArray >>> length);
+			}
+		}
+		for (int length = 0; 64 != length; length++) {
+			for (int trueBitCount = 0; length >= trueBitCount; trueBitCount++) {
+				final long bitArray = BitArray.LongGenerator.generateRandomArray(length, trueBitCount, random);
+				assertEquals(trueBitCount, Long.bitCount(bitArray));
+				assertEquals(0, bitArray >>> length);
+			}
+		}
+		try {
+			BitArray.ShortGenerator.generateRandomArray(3, 4, random);
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+		final int[] bitArrays = new int[0x100];
+		BitArray.ShortGenerator.generateRandomArrays(31, 1, bitArrays, 0, 0x100, random);
+		for (int index = 0; 0x100 != index; index++) {
+			assertEquals(1, Integer.bitCount(bitArrays[index]));
+		}
+	}
+	public final void testGenerateRandomArrayProbability() throws Exception {
+		// See testGetRandomTrueBitProbability about the seed.
+		final Random random = new Random(0);
+		// There are 10 bit arrays with a length of 5 and 2 true bits, and 10 with a length of 5 and 3 true bits.
+		final int[] resultCounts = new int[32];
+		for (int iterationIdentifier = 0; 0xA000 != iterationIdentifier; iterationIdentifier++) {
+			resultCounts[BitArray.ShortGenerator.generateRandomArray(5, 2, random)]++;
+			resultCounts[BitArray.ShortGenerator.generateRandomArray(5, 3, random)]++;
+		}
+		for (int result = 0; 32 != result; result++) {
+			if (2 == Integer.bitCount(result) || 3 == Integer.bitCount(result)) {
+				assertTrue(Math.abs(resultCounts[result] - 0x1000) < 0x100);
+			} else {
+				assertEquals(0, resultCounts[result]);
+			}
+		}
+	}
 	public final void testGetRandomTrueBit() throws Exception {
 		// No true bits.
 		int bitArray = BitArray.ShortGenerator.generateFalseArray();
@@ -215,6 +259,31 @@ public final class BitArrayTest extends TestCase {
 			}
 		}
 	}
+	public final void testRankSelect() throws Exception {
+		final Random random = new Random(0);
+		for (int iterationIdentifier = 0; 0x100 != iterationIdentifier; iterationIdentifier++) {
+			final int shortBitArray = random.nextInt();
+			int rank = 0;
+			for (int position = 0; 32 != position; position++) {
+				assertEquals(rank, BitArray.rank(shortBitArray, position));
+				if (BitArray.getBit(shortBitArray, position)) {
+					assertEquals(position, BitArray.select(shortBitArray, rank++));
+				}
+			}
+			assertEquals(rank, BitArray.rank(shortBitArray, 32));
+			assertEquals(BitArray.NONE, BitArray.select(shortBitArray, rank));
+			final long longBitArray = random.nextLong();
+			rank = 0;
+			for (int position = 0; 64 != position; position++) {
+				assertEquals(rank, BitArray.rank(longBitArray, position));
+				if (BitArray.getBit(longBitArray, position)) {
+					assertEquals(position, BitArray.select(longBitArray, rank++));
+				}
+			}
+			assertEquals(rank, BitArray.rank(longBitArray, 64));
+			assertEquals(BitArray.NONE, BitArray.select(longBitArray, rank));
+		}
+	}
 	public final void testReverse() throws Exception {
 		// Create a bit array that is 01100101.
 		int bitArray = BitArray.ShortGenerator.generateFalseArray();
@@ -0,0 +1,149 @@
+package org.ilumbo.giantsnail.test.mathematics;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.mathematics.BitGrid;
+
+public final class BitGridTest extends TestCase {
+	/**
+	 * Returns the number of false bits, counted one by one.
+	 */
+	private static final int countFalseBits(BitGrid grid) {
+		int result = 0;
+		for (int y = 0; grid.getHeight() != y; y++) {
+			for (int x = 0; grid.getWidth() != x; x++) {
+				if (false == grid.getBit(x, y)) {
+					result++;
+				}
+			}
+		}
+		return result;
+	}
+	/**
+	 * Returns a random grid, in which roughly the passed fraction of the bits are true.
+	 */
+	private static final BitGrid createRandomGrid(Random random, int width, int height, float fraction) {
+		final BitGrid result = new BitGrid(width, height);
+		for (int y = 0; height != y; y++) {
+			for (int x = 0; width != x; x++) {
+				result.setBit(x, y, random.nextFloat() < fraction);
+			}
+		}
+		return result;
+	}
+	/**
+	 * Returns the bit at the passed coordinates, or false if those coordinates are outside the passed grid.
+	 */
+	private static final boolean getBit(BitGrid grid, int x, int y) {
+		return x >= 0 && y >= 0 && x < grid.getWidth() && y < grid.getHeight() && grid.getBit(x, y);
+	}
+	/**
+	 * Returns the number of true neighbours, counted one by one.
+	 */
+	private static final int getNeighbourCount(BitGrid grid, int x, int y, boolean includeDiagonals) {
+		int result = 0;
+		for (int deltaY = -1; 2 != deltaY; deltaY++) {
+			for (int deltaX = -1; 2 != deltaX; deltaX++) {
+				if ((0 != deltaX || 0 != deltaY) && (includeDiagonals || 0 == deltaX || 0 == deltaY) &&
+						getBit(grid, x + deltaX, y + deltaY)) {
+					result++;
+				}
+			}
+		}
+		return result;
+	}
+	public final void testDilateErode() throws Exception {
+		final Random random = new Random(0);
+		final BitGrid grid = createRandomGrid(random, 130, 20, .7f);
+		for (int diagonals = 0; 2 != diagonals; diagonals++) {
+			final boolean includeDiagonals = 1 == diagonals;
+			final BitGrid dilated = grid.dilate(includeDiagonals);
+			final BitGrid eroded = grid.erode(includeDiagonals);
+			final int neighbourCount = includeDiagonals ? 8 : 4;
+			for (int y = 0; 20 != y; y++) {
+				for (int x = 0; 130 != x; x++) {
+					final int count = getNeighbourCount(grid, x, y, includeDiagonals);
+					assertEquals(grid.getBit(x, y) || 0 != count, dilated.getBit(x, y));
+					assertEquals(grid.getBit(x, y) && neighbourCount == count, eroded.getBit(x, y));
+				}
+			}
+			// The padding bits must remain false.
+			assertEquals(130 * 20, dilated.getTrueBitCount() + countFalseBits(dilated));
+			assertEquals(130 * 20, eroded.getTrueBitCount() + countFalseBits(eroded));
+		}
+	}
+	public final void testGetBoundingBox() throws Exception {
+		final BitGrid grid = new BitGrid(200, 10);
+		final int[] boundingBox = new int[4];
+		assertFalse(grid.getBoundingBox(boundingBox));
+		grid.setBit(150, 2, true);
+		grid.setBit(70, 7, true);
+		assertTrue(grid.getBoundingBox(boundingBox));
+		assertEquals(70, boundingBox[0]);
+		assertEquals(2, boundingBox[1]);
+		assertEquals(151, boundingBox[2]);
+		assertEquals(8, boundingBox[3]);
+	}
+	public final void testGetNeighbourCount() throws Exception {
+		final Random random = new Random(0);
+		final BitGrid grid = createRandomGrid(random, 70, 30, .5f);
+		final BitGrid mask = grid.getNeighbourCountMask(2, 3, true);
+		for (int y = 0; 30 != y; y++) {
+			for (int x = 0; 70 != x; x++) {
+				final int count = getNeighbourCount(grid, x, y, true);
+				assertEquals(count, grid.getNeighbourCount(x, y, true));
+				assertEquals(getNeighbourCount(grid, x, y, false), grid.getNeighbourCount(x, y, false));
+				assertEquals(2 == count || 3 == count, mask.getBit(x, y));
+			}
+		}
+	}
+	public final void testRegions() throws Exception {
+		final Random random = new Random(0);
+		for (int diagonals = 0; 2 != diagonals; diagonals++) {
+			final boolean includeDiagonals = 1 == diagonals;
+			final BitGrid grid = createRandomGrid(random, 100, 40, .55f);
+			final int[] labels = new int[100 * 40];
+			final int regionCount = grid.labelRegions(labels, includeDiagonals);
+			// Every two neighbouring true bits must have the same label, and every region must be the flood fill of its bits.
+			int maximumLabel = 0;
+			for (int y = 0; 40 != y; y++) {
+				for (int x = 0; 100 != x; x++) {
+					final int label = labels[y * 100 + x];
+					assertEquals(grid.getBit(x, y), 0 != label);
+					maximumLabel = Math.max(maximumLabel, label);
+					if (0 != label && x + 1 != 100 && grid.getBit(x + 1, y)) {
+						assertEquals(label, labels[y * 100 + x + 1]);
+					}
+					if (0 != label && y + 1 != 40 && grid.getBit(x, y + 1)) {
+						assertEquals(label, labels[(y + 1) * 100 + x]);
+					}
+				}
+			}
+			assertEquals(regionCount, maximumLabel);
+			final BitGrid region = grid.getRegion(50, 20, includeDiagonals);
+			for (int y = 0; 40 != y; y++) {
+				for (int x = 0; 100 != x; x++) {
+					assertEquals(grid.getBit(50, 20) && labels[y * 100 + x] == labels[20 * 100 + 50], region.getBit(x, y));
+				}
+			}
+		}
+	}
+	public final void testShift() throws Exception {
+		final Random random = new Random(0);
+		final BitGrid grid = createRandomGrid(random, 150, 10, .5f);
+		final int[] distances = new int[]{0, 1, -1, 63, -64, 65, -130, 200};
+		for (int index = 0; distances.length != index; index++) {
+			final int distanceX = distances[index];
+			final int distanceY = index % 3 - 1;
+			final BitGrid shifted = grid.shift(distanceX, distanceY);
+			for (int y = 0; 10 != y; y++) {
+				for (int x = 0; 150 != x; x++) {
+					assertEquals(getBit(grid, x - distanceX, y - distanceY), shifted.getBit(x, y));
+				}
+			}
+			assertEquals(150 * 10, shifted.getTrueBitCount() + countFalseBits(shifted));
+		}
+	}
+}
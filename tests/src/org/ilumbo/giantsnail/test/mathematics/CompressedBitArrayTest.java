@@ -0,0 +1,127 @@
+package org.ilumbo.giantsnail.test.mathematics;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.mathematics.CompressedBitArray;
+import org.ilumbo.giantsnail.mathematics.LargeBitArray;
+
+public final class CompressedBitArrayTest extends TestCase {
+	/**
+	 * The number of positions used in these tests: enough for four chunks and part of a fifth.
+	 */
+	private static final int LENGTH = 300000;
+	/**
+	 * Asserts that the passed compressed bit array has the same bits as the passed large bit array.
+	 */
+	private static final void assertSameBits(long[] expected, CompressedBitArray actual) {
+		assertEquals(LargeBitArray.getTrueBitCount(expected), actual.getTrueBitCount());
+		assertEquals(LargeBitArray.getFirstTrueBit(expected), actual.getFirstTrueBit());
+		// Iterate over the true bits.
+		int position = actual.getFirstTrueBit();
+		int expectedPosition = LargeBitArray.getFirstTrueBit(expected);
+		while (LargeBitArray.NONE != expectedPosition) {
+			assertEquals(expectedPosition, position);
+			assertEquals(true, actual.getBit(position));
+			expectedPosition = LargeBitArray.getNextTrueBit(expected, expectedPosition + 1);
+			position = actual.getNextTrueBit(position + 1);
+		}
+		assertEquals(CompressedBitArray.NONE, position);
+	}
+	/**
+	 * Fills both passed bit arrays with the same random bits: sparse in the first chunk, dense in the second, strings in the
+	 * third, full in the fourth and random in the rest.
+	 */
+	private static final void fill(long[] expected, CompressedBitArray actual, Random random) {
+		for (int iterationIdentifier = 0; 100 != iterationIdentifier; iterationIdentifier++) {
+			final int position = random.nextInt(65536);
+			LargeBitArray.setBit(expected, position, true);
+			actual.setBit(position, true);
+		}
+		for (int position = 65536; 131072 != position; position++) {
+			final boolean value = random.nextInt(10) != 0;
+			LargeBitArray.setBit(expected, position, value);
+			actual.setBit(position, value);
+		}
+		for (int iterationIdentifier = 0; 20 != iterationIdentifier; iterationIdentifier++) {
+			final int position = 131072 + random.nextInt(60000);
+			final int count = random.nextInt(3000);
+			LargeBitArray.setBits(expected, position, count, true);
+			actual.setBits(position, count, true);
+		}
+		LargeBitArray.setBits(expected, 196608, 65536, true);
+		actual.setBits(196608, 65536, true);
+		for (int iterationIdentifier = 0; 10000 != iterationIdentifier; iterationIdentifier++) {
+			final int position = 262144 + random.nextInt(LENGTH - 262144);
+			final boolean value = random.nextBoolean();
+			LargeBitArray.setBit(expected, position, value);
+			actual.setBit(position, value);
+		}
+	}
+	public final void testSanity() throws Exception {
+		final Random random = new Random(0);
+		final long[] expected = LargeBitArray.Generator.generateFalseArray(LENGTH);
+		final CompressedBitArray actual = new CompressedBitArray();
+		assertEquals(CompressedBitArray.NONE, actual.getFirstTrueBit());
+		fill(expected, actual, random);
+		assertSameBits(expected, actual);
+		// Clear random bits, including some in the full chunk.
+		for (int iterationIdentifier = 0; 100000 != iterationIdentifier; iterationIdentifier++) {
+			final int position = random.nextInt(LENGTH);
+			LargeBitArray.setBit(expected, position, false);
+			actual.setBit(position, false);
+		}
+		assertSameBits(expected, actual);
+		actual.optimize();
+		assertSameBits(expected, actual);
+		LargeBitArray.setBits(expected, 1000, 250000, false);
+		actual.setBits(1000, 250000, false);
+		assertSameBits(expected, actual);
+	}
+	public final void testOptimize() throws Exception {
+		final CompressedBitArray bitArray = new CompressedBitArray();
+		for (int position = 0; 200000 != position; position++) {
+			bitArray.setBit(position, true);
+		}
+		final int sizeBeforeOptimizing = bitArray.getSizeInBytes();
+		bitArray.optimize();
+		assertTrue(bitArray.getSizeInBytes() < sizeBeforeOptimizing / 100);
+		assertEquals(200000, bitArray.getTrueBitCount());
+		bitArray.setBit(100, false);
+		assertEquals(false, bitArray.getBit(100));
+		assertEquals(199999, bitArray.getTrueBitCount());
+	}
+	public final void testAndOr() throws Exception {
+		final Random random = new Random(0);
+		for (int iterationIdentifier = 0; 4 != iterationIdentifier; iterationIdentifier++) {
+			final long[] firstExpected = LargeBitArray.Generator.generateFalseArray(LENGTH);
+			final CompressedBitArray first = new CompressedBitArray();
+			fill(firstExpected, first, random);
+			final long[] secondExpected = LargeBitArray.Generator.generateFalseArray(LENGTH);
+			final CompressedBitArray second = new CompressedBitArray();
+			fill(secondExpected, second, random);
+			if (0 != (iterationIdentifier & 1)) {
+				first.optimize();
+			}
+			if (0 != (iterationIdentifier & 2)) {
+				second.optimize();
+			}
+			final long[] andExpected = firstExpected.clone();
+			LargeBitArray.and(andExpected, secondExpected);
+			final CompressedBitArray and = new CompressedBitArray();
+			and.or(first);
+			and.and(second);
+			assertSameBits(andExpected, and);
+			final long[] orExpected = firstExpected.clone();
+			LargeBitArray.or(orExpected, secondExpected);
+			final CompressedBitArray or = new CompressedBitArray();
+			or.or(first);
+			or.or(second);
+			assertSameBits(orExpected, or);
+			// The operations above must not have changed the sources.
+			assertSameBits(firstExpected, first);
+			assertSameBits(secondExpected, second);
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package org.ilumbo.giantsnail.test.mathematics;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.mathematics.FastRandom;
+import org.ilumbo.giantsnail.mathematics.Pcg32Random;
+import org.ilumbo.giantsnail.mathematics.SplitMix64Random;
+import org.ilumbo.giantsnail.mathematics.Xoroshiro128PlusPlusRandom;
+
+public final class FastRandomTest extends TestCase {
+	public final void testSplitMix64() throws Exception {
+		// Reference values for seed 1234567.
+		final FastRandom random = new SplitMix64Random(1234567);
+		assertEquals(6457827717110365317l, random.nextLong());
+		assertEquals(3203168211198807973l, random.nextLong());
+		assertEquals(0x883EBCE5A3F27C77l /* 9817491932198370423 */, random.nextLong());
+		assertEquals(4593380528125082431l, random.nextLong());
+		assertEquals(0xE3B8346708CB5ECDl /* 16408922859458223821 */, random.nextLong());
+	}
+	public final void testPcg32() throws Exception {
+		// Reference values for seed 42 and stream 54, from the pcg32-demo program.
+		final FastRandom random = new Pcg32Random(42, 54);
+		assertEquals(0xA15C02B7, random.nextInt());
+		assertEquals(0x7B47F409, random.nextInt());
+		assertEquals(0xBA1D3330, random.nextInt());
+		assertEquals(0x83D2F293, random.nextInt());
+		assertEquals(0xBFA4784B, random.nextInt());
+		assertEquals(0xCBED606E, random.nextInt());
+	}
+	public final void testReproducibility() throws Exception {
+		final FastRandom[] randoms = new FastRandom[]{new SplitMix64Random(7), new Xoroshiro128PlusPlusRandom(7),
+				new Pcg32Random(7)};
+		final FastRandom[] sameRandoms = new FastRandom[]{new SplitMix64Random(7), new Xoroshiro128PlusPlusRandom(7),
+				new Pcg32Random(7)};
+		for (int index = 0; randoms.length != index; index++) {
+			for (int iterationIdentifier = 0; 0x100 != iterationIdentifier; iterationIdentifier++) {
+				assertEquals(randoms[index].nextLong(), sameRandoms[index].nextLong());
+			}
+			// Re-seeding must restart the sequence.
+			randoms[index].setSeed(7);
+			sameRandoms[index].setSeed(7);
+			assertEquals(randoms[index].nextInt(1000), sameRandoms[index].nextInt(1000));
+			// Split generators must be reproducible as well, but different from the original.
+			final FastRandom split = randoms[index].split();
+			final FastRandom sameSplit = sameRandoms[index].split();
+			assertEquals(split.nextLong(), sameSplit.nextLong());
+			assertTrue(split.nextLong() != randoms[index].nextLong());
+		}
+	}
+	public final void testNextIntProbability() throws Exception {
+		final FastRandom[] randoms = new FastRandom[]{new SplitMix64Random(0), new Xoroshiro128PlusPlusRandom(0),
+				new Pcg32Random(0), FastRandom.getThreadInstance()};
+		for (int index = 0; randoms.length != index; index++) {
+			final int[] resultCounts = new int[7];
+			for (int iterationIdentifier = 0; 0x7000 != iterationIdentifier; iterationIdentifier++) {
+				resultCounts[randoms[index].nextInt(7)]++;
+			}
+			for (int result = 0; 7 != result; result++) {
+				assertTrue(Math.abs(resultCounts[result] - 0x1000) < 0x100);
+			}
+			final double value = randoms[index].nextDouble();
+			assertTrue(value >= 0 && value < 1);
+		}
+	}
+}
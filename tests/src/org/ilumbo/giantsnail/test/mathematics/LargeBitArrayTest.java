@@ -0,0 +1,131 @@
+package org.ilumbo.giantsnail.test.mathematics;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.mathematics.LargeBitArray;
+
+public final class LargeBitArrayTest extends TestCase {
+	public final void testSanity() throws Exception {
+		final Random random = new Random(0);
+		final long[] bitArray = LargeBitArray.Generator.generateFalseArray(1000);
+		final boolean[] expected = new boolean[1000];
+		for (int iterationIdentifier = 0; 0x4000 != iterationIdentifier; iterationIdentifier++) {
+			final int position = random.nextInt(1000);
+			final boolean value = random.nextBoolean();
+			LargeBitArray.setBit(bitArray, position, value);
+			expected[position] = value;
+			assertEquals(LargeBitArray.getBit(bitArray, position), value);
+		}
+		int expectedTrueBitCount = 0;
+		for (int position = 0; 1000 != position; position++) {
+			assertEquals(expected[position], LargeBitArray.getBit(bitArray, position));
+			if (expected[position]) {
+				expectedTrueBitCount++;
+			}
+		}
+		assertEquals(expectedTrueBitCount, LargeBitArray.getTrueBitCount(bitArray));
+	}
+	public final void testGenerateTrueArray() throws Exception {
+		assertEquals(0, LargeBitArray.Generator.generateTrueArray(0).length);
+		assertEquals(64, LargeBitArray.getTrueBitCount(LargeBitArray.Generator.generateTrueArray(64)));
+		final long[] bitArray = LargeBitArray.Generator.generateTrueArray(130);
+		assertEquals(3, bitArray.length);
+		assertEquals(130, LargeBitArray.getTrueBitCount(bitArray));
+		assertEquals(true, LargeBitArray.getBit(bitArray, 129));
+		assertEquals(false, LargeBitArray.getBit(bitArray, 130));
+	}
+	public final void testGenerateRandomArray() throws Exception {
+		final Random random = new Random(0);
+		final int[] trueBitCounts = new int[]{0, 1, 37, 5000, 9999, 10000};
+		for (int index = 0; trueBitCounts.length != index; index++) {
+			final long[] bitArray = LargeBitArray.Generator.generateRandomArray(10000, trueBitCounts[index], random);
+			assertEquals(trueBitCounts[index], LargeBitArray.getTrueBitCount(bitArray));
+			assertEquals(0, bitArray[bitArray.length - 1] >>> 10000 % 64);
+		}
+		try {
+			LargeBitArray.Generator.generateRandomArray(100, 101, random);
+			fail();
+		} catch (IllegalArgumentException exception) {
+		}
+	}
+	public final void testGetBitsAndOr() throws Exception {
+		final long[] bitArray = LargeBitArray.Generator.generateFalseArray(300);
+		for (int position = 60; 200 != position; position++) {
+			LargeBitArray.setBit(bitArray, position, true);
+		}
+		assertEquals(true, LargeBitArray.getBitsAnd(bitArray, 60, 140));
+		assertEquals(true, LargeBitArray.getBitsAnd(bitArray, 64, 64));
+		assertEquals(true, LargeBitArray.getBitsAnd(bitArray, 61, 3));
+		assertEquals(false, LargeBitArray.getBitsAnd(bitArray, 59, 140));
+		assertEquals(false, LargeBitArray.getBitsAnd(bitArray, 60, 141));
+		assertEquals(true, LargeBitArray.getBitsOr(bitArray, 0, 61));
+		assertEquals(false, LargeBitArray.getBitsOr(bitArray, 0, 60));
+		assertEquals(true, LargeBitArray.getBitsOr(bitArray, 199, 100));
+		assertEquals(false, LargeBitArray.getBitsOr(bitArray, 200, 100));
+	}
+	public final void testBulkOperations() throws Exception {
+		final Random random = new Random(0);
+		final long[] first = LargeBitArray.Generator.generateFalseArray(500);
+		final long[] second = LargeBitArray.Generator.generateFalseArray(500);
+		for (int position = 0; 500 != position; position++) {
+			LargeBitArray.setBit(first, position, random.nextBoolean());
+			LargeBitArray.setBit(second, position, random.nextBoolean());
+		}
+		final long[] and = first.clone();
+		LargeBitArray.and(and, second);
+		final long[] andNot = first.clone();
+		LargeBitArray.andNot(andNot, second);
+		final long[] or = first.clone();
+		LargeBitArray.or(or, second);
+		final long[] xor = first.clone();
+		LargeBitArray.xor(xor, second);
+		for (int position = 0; 500 != position; position++) {
+			final boolean firstBit = LargeBitArray.getBit(first, position);
+			final boolean secondBit = LargeBitArray.getBit(second, position);
+			assertEquals(firstBit && secondBit, LargeBitArray.getBit(and, position));
+			assertEquals(firstBit && false == secondBit, LargeBitArray.getBit(andNot, position));
+			assertEquals(firstBit || secondBit, LargeBitArray.getBit(or, position));
+			assertEquals(firstBit != secondBit, LargeBitArray.getBit(xor, position));
+		}
+	}
+	public final void testGetNextBit() throws Exception {
+		final long[] bitArray = LargeBitArray.Generator.generateFalseArray(1000);
+		assertEquals(LargeBitArray.NONE, LargeBitArray.getFirstTrueBit(bitArray));
+		LargeBitArray.setBit(bitArray, 3, true);
+		LargeBitArray.setBit(bitArray, 700, true);
+		LargeBitArray.setBit(bitArray, 999, true);
+		assertEquals(3, LargeBitArray.getFirstTrueBit(bitArray));
+		assertEquals(700, LargeBitArray.getNextTrueBit(bitArray, 4));
+		assertEquals(999, LargeBitArray.getNextTrueBit(bitArray, 701));
+		assertEquals(LargeBitArray.NONE, LargeBitArray.getNextTrueBit(bitArray, 1000));
+		final long[] trueArray = LargeBitArray.Generator.generateTrueArray(1000);
+		assertEquals(LargeBitArray.NONE, LargeBitArray.getNextFalseBit(trueArray, 0, 1000));
+		LargeBitArray.setBit(trueArray, 640, false);
+		assertEquals(640, LargeBitArray.getNextFalseBit(trueArray, 0, 1000));
+		assertEquals(LargeBitArray.NONE, LargeBitArray.getNextFalseBit(trueArray, 641, 1000));
+	}
+	public final void testReverse() throws Exception {
+		final Random random = new Random(0);
+		for (int length = 0; 200 != length; length++) {
+			final long[] bitArray = LargeBitArray.Generator.generateFalseArray(length);
+			for (int position = 0; length != position; position++) {
+				LargeBitArray.setBit(bitArray, position, random.nextBoolean());
+			}
+			final long[] reversedBitArray = LargeBitArray.reverse(bitArray, length);
+			for (int position = 0; length != position; position++) {
+				assertEquals(LargeBitArray.getBit(bitArray, position),
+						LargeBitArray.getBit(reversedBitArray, length - 1 - position));
+			}
+			assertEquals(LargeBitArray.getTrueBitCount(bitArray), LargeBitArray.getTrueBitCount(reversedBitArray));
+		}
+	}
+	public final void testToString() throws Exception {
+		final long[] bitArray = LargeBitArray.Generator.generateFalseArray(70);
+		LargeBitArray.setBit(bitArray, 0, true);
+		LargeBitArray.setBit(bitArray, 68, true);
+		assertEquals("1000000000000000000000000000000000000000000000000000000000000000000010",
+				LargeBitArray.toString(bitArray, 70));
+	}
+}
@@ -0,0 +1,43 @@
+package org.ilumbo.giantsnail.test.mathematics;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.mathematics.LargeBitArray;
+import org.ilumbo.giantsnail.mathematics.ParallelLargeBitArray;
+
+public final class ParallelLargeBitArrayTest extends TestCase {
+	public final void testAgainstSequential() throws Exception {
+		final Random random = new Random(0);
+		// Test a length that is processed sequentially, and one that is divided over slices (the last of which is partial).
+		final int[] lengths = new int[]{1000, (ParallelLargeBitArray.SLICE_WORD_COUNT << 6) * 3 + 1000};
+		for (int index = 0; lengths.length != index; index++) {
+			final int length = lengths[index];
+			final long[] first = LargeBitArray.Generator.generateRandomArray(length, length / 3, random);
+			final long[] second = LargeBitArray.Generator.generateRandomArray(length, length / 3, random);
+			assertEquals(LargeBitArray.getTrueBitCount(first), ParallelLargeBitArray.getTrueBitCount(first));
+			assertTrue(Arrays.equals(LargeBitArray.getTrueBitPositions(first),
+					ParallelLargeBitArray.getTrueBitPositions(first)));
+			final long[] expectedAnd = first.clone();
+			LargeBitArray.and(expectedAnd, second);
+			final long[] and = first.clone();
+			ParallelLargeBitArray.and(and, second);
+			assertTrue(Arrays.equals(expectedAnd, and));
+			final long[] expectedOr = first.clone();
+			LargeBitArray.or(expectedOr, second);
+			final long[] or = first.clone();
+			ParallelLargeBitArray.or(or, second);
+			assertTrue(Arrays.equals(expectedOr, or));
+		}
+	}
+	public final void testGetTrueBitPositions() throws Exception {
+		final long[] bitArray = LargeBitArray.Generator.generateFalseArray(200);
+		LargeBitArray.setBit(bitArray, 0, true);
+		LargeBitArray.setBit(bitArray, 63, true);
+		LargeBitArray.setBit(bitArray, 64, true);
+		LargeBitArray.setBit(bitArray, 199, true);
+		assertTrue(Arrays.equals(new int[]{0, 63, 64, 199}, LargeBitArray.getTrueBitPositions(bitArray)));
+	}
+}
@@ -0,0 +1,60 @@
+package org.ilumbo.giantsnail.test.mathematics;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.mathematics.LargeBitArray;
+import org.ilumbo.giantsnail.mathematics.RankSelectIndex;
+
+public final class RankSelectIndexTest extends TestCase {
+	public final void testRankSelect() throws Exception {
+		final Random random = new Random(0);
+		final int[] lengths = new int[]{0, 1, 64, 511, 512, 513, 5000, 100000};
+		final int[] densities = new int[]{0, 1, 50, 1000};
+		for (int lengthIndex = 0; lengths.length != lengthIndex; lengthIndex++) {
+			final int length = lengths[lengthIndex];
+			for (int densityIndex = 0; densities.length != densityIndex; densityIndex++) {
+				// Generate a bit array where roughly one in every thousand bits is true, or more.
+				final long[] bitArray = LargeBitArray.Generator.generateFalseArray(length);
+				for (int position = 0; length != position; position++) {
+					LargeBitArray.setBit(bitArray, position, random.nextInt(1000) < densities[densityIndex]);
+				}
+				final RankSelectIndex index = new RankSelectIndex(bitArray);
+				assertEquals(LargeBitArray.getTrueBitCount(bitArray), index.getTrueBitCount());
+				int rank = 0;
+				for (int position = 0; length != position; position++) {
+					assertEquals(rank, index.rank(position));
+					assertEquals(LargeBitArray.getNextTrueBit(bitArray, position), index.getNextTrueBit(position));
+					if (LargeBitArray.getBit(bitArray, position)) {
+						assertEquals(position, index.select(rank));
+						rank++;
+					}
+				}
+				assertEquals(LargeBitArray.NONE, index.select(rank));
+			}
+		}
+	}
+	public final void testGetRandomTrueBit() throws Exception {
+		// See BitArrayTest.testGetRandomTrueBitProbability about the seed.
+		final Random random = new Random(0);
+		final long[] bitArray = LargeBitArray.Generator.generateFalseArray(100000);
+		assertEquals(LargeBitArray.NONE, new RankSelectIndex(bitArray).getRandomTrueBit(random));
+		LargeBitArray.setBit(bitArray, 4, true);
+		LargeBitArray.setBit(bitArray, 10000, true);
+		LargeBitArray.setBit(bitArray, 60000, true);
+		LargeBitArray.setBit(bitArray, 99999, true);
+		final RankSelectIndex index = new RankSelectIndex(bitArray);
+		final int[] resultCounts = new int[100000];
+		for (int iterationIdentifier = 0; 0x10000 != iterationIdentifier; iterationIdentifier++) {
+			resultCounts[index.getRandomTrueBit(random)]++;
+		}
+		for (int result = 0; 100000 != result; result++) {
+			if (LargeBitArray.getBit(bitArray, result)) {
+				assertTrue(Math.abs(resultCounts[result] - 0x4000) < 0x100);
+			} else {
+				assertEquals(0, resultCounts[result]);
+			}
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package org.ilumbo.giantsnail.test.mathematics;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.mathematics.LargeBitArray;
+import org.ilumbo.giantsnail.mathematics.RunAllocator;
+
+public final class RunAllocatorTest extends TestCase {
+	/**
+	 * Returns the first position of the first string of the passed number of free positions, checking every position.
+	 */
+	private static final int findFirstFit(long[] freeBits, int length, int count) {
+		for (int position = 0; length - count >= position; position++) {
+			if (LargeBitArray.getBitsAnd(freeBits, position, count)) {
+				return position;
+			}
+		}
+		return LargeBitArray.NONE;
+	}
+	/**
+	 * Generates a bit array where strings of free positions alternate with strings of allocated ones.
+	 */
+	private static final long[] generateFreeBits(int length, Random random) {
+		final long[] result = LargeBitArray.Generator.generateFalseArray(length);
+		boolean free = true;
+		for (int position = 0; length > position; free = false == free) {
+			final int runLength = Math.min(length - position, 1 + random.nextInt(150));
+			LargeBitArray.setBits(result, position, runLength, free);
+			position += runLength;
+		}
+		return result;
+	}
+	public final void testAllocateFirstFit() throws Exception {
+		final Random random = new Random(0);
+		for (int iterationIdentifier = 0; 0x40 != iterationIdentifier; iterationIdentifier++) {
+			final long[] freeBits = generateFreeBits(2000, random);
+			final long[] expectedFreeBits = freeBits.clone();
+			final RunAllocator allocator = new RunAllocator(freeBits, 2000);
+			for (int count = 1; 150 > count; count += 1 + random.nextInt(10)) {
+				final int expected = findFirstFit(expectedFreeBits, 2000, count);
+				assertEquals(expected, allocator.allocateFirstFit(count));
+				if (LargeBitArray.NONE != expected) {
+					LargeBitArray.setBits(expectedFreeBits, expected, count, false);
+				}
+			}
+		}
+	}
+	public final void testAllocateBestFit() throws Exception {
+		final long[] freeBits = LargeBitArray.Generator.generateFalseArray(300);
+		LargeBitArray.setBits(freeBits, 10, 100, true);
+		LargeBitArray.setBits(freeBits, 120, 5, true);
+		LargeBitArray.setBits(freeBits, 130, 70, true);
+		LargeBitArray.setBits(freeBits, 250, 4, true);
+		final RunAllocator allocator = new RunAllocator(freeBits, 300);
+		assertEquals(250, allocator.allocateBestFit(3));
+		assertEquals(120, allocator.allocateBestFit(5));
+		assertEquals(130, allocator.allocateBestFit(65));
+		assertEquals(10, allocator.allocateBestFit(65));
+		assertEquals(LargeBitArray.NONE, allocator.allocateBestFit(65));
+		assertEquals(195, allocator.allocateBestFit(5));
+		assertEquals(253, allocator.allocateBestFit(1));
+	}
+	public final void testAllocateRandomFit() throws Exception {
+		final Random random = new Random(0);
+		for (int iterationIdentifier = 0; 0x40 != iterationIdentifier; iterationIdentifier++) {
+			final long[] freeBits = generateFreeBits(2000, random);
+			final RunAllocator allocator = new RunAllocator(freeBits, 2000);
+			for (int count = 1; 150 > count; count += 1 + random.nextInt(10)) {
+				final long[] freeBitsBefore = freeBits.clone();
+				final int position = allocator.allocateRandomFit(count, random);
+				if (LargeBitArray.NONE == position) {
+					assertEquals(LargeBitArray.NONE, findFirstFit(freeBitsBefore, 2000, count));
+				} else {
+					assertTrue(LargeBitArray.getBitsAnd(freeBitsBefore, position, count));
+					assertEquals(false, LargeBitArray.getBitsOr(freeBits, position, count));
+				}
+			}
+		}
+		// Every one of the 5 candidates must have roughly as many occurrences.
+		final int[] resultCounts = new int[200];
+		for (int iterationIdentifier = 0; 0x5000 != iterationIdentifier; iterationIdentifier++) {
+			final long[] freeBits = LargeBitArray.Generator.generateFalseArray(200);
+			LargeBitArray.setBits(freeBits, 60, 70, true);
+			resultCounts[new RunAllocator(freeBits, 200).allocateRandomFit(66, random)]++;
+		}
+		for (int result = 0; 200 != result; result++) {
+			if (result >= 60 && result <= 64) {
+				assertTrue(Math.abs(resultCounts[result] - 0x1000) < 0x100);
+			} else {
+				assertEquals(0, resultCounts[result]);
+			}
+		}
+	}
+	public final void testNonPositiveCount() throws Exception {
+		final RunAllocator allocator = new RunAllocator(100);
+		final int[] counts = new int[]{0, -5, Integer.MIN_VALUE};
+		for (int index = 0; counts.length != index; index++) {
+			try {
+				allocator.allocateFirstFit(counts[index]);
+				fail();
+			} catch (IllegalArgumentException exception) {
+			}
+			try {
+				allocator.allocateBestFit(counts[index]);
+				fail();
+			} catch (IllegalArgumentException exception) {
+			}
+			try {
+				allocator.allocateRandomFit(counts[index], new Random(0));
+				fail();
+			} catch (IllegalArgumentException exception) {
+			}
+			try {
+				allocator.free(0, counts[index]);
+				fail();
+			} catch (IllegalArgumentException exception) {
+			}
+		}
+		// The failed calls leave the positions free.
+		assertEquals(0, allocator.allocateFirstFit(100));
+	}
+	public final void testFree() throws Exception {
+		final RunAllocator allocator = new RunAllocator(1000);
+		assertEquals(0, allocator.allocateFirstFit(600));
+		assertEquals(LargeBitArray.NONE, allocator.allocateFirstFit(401));
+		allocator.free(100, 200);
+		assertEquals(true, allocator.getIsFree(100));
+		assertEquals(true, allocator.getIsFree(299));
+		assertEquals(false, allocator.getIsFree(300));
+		assertEquals(100, allocator.allocateFirstFit(150));
+		try {
+			allocator.free(240, 20);
+			fail();
+		} catch (IllegalStateException exception) {
+		}
+	}
+}
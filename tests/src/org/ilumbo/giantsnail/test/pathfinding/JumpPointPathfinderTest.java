@@ -0,0 +1,191 @@
+package org.ilumbo.giantsnail.test.pathfinding;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.ilumbo.giantsnail.mathematics.BitGrid;
+import org.ilumbo.giantsnail.pathfinding.JumpPointPathfinder;
+
+public final class JumpPointPathfinderTest extends TestCase {
+	/**
+	 * Checks the paths found between random walkable tiles of the passed grid against the costs found by Dijkstra's
+	 * algorithm, taking one step at a time.
+	 */
+	private static final void checkPaths(Random random, BitGrid grid, int pathCount) {
+		final int width = grid.getWidth();
+		final int height = grid.getHeight();
+		final JumpPointPathfinder pathfinder = new JumpPointPathfinder(grid);
+		final int[] path = new int[width * height];
+		for (int pathIndex = 0; pathCount != pathIndex; pathIndex++) {
+			final int start = getRandomWalkableTile(random, grid);
+			final int goal = getRandomWalkableTile(random, grid);
+			final int expectedCost = getCost(grid, start % width, start / width, goal % width, goal / width);
+			final int pathLength = pathfinder.findPath(start % width, start / width, goal % width, goal / width, path);
+			if (Integer.MAX_VALUE == expectedCost) {
+				assertEquals(JumpPointPathfinder.NONE, pathLength);
+				continue;
+			}
+			assertEquals(start, path[0]);
+			assertEquals(goal, path[pathLength - 1]);
+			// Walk the path, checking every step.
+			int cost = 0;
+			for (int index = 1; pathLength != index; index++) {
+				int x = path[index - 1] % width;
+				int y = path[index - 1] / width;
+				final int endX = path[index] % width;
+				final int endY = path[index] / width;
+				final int directionX = Integer.signum(endX - x);
+				final int directionY = Integer.signum(endY - y);
+				assertTrue(0 == directionX || 0 == directionY || Math.abs(endX - x) == Math.abs(endY - y));
+				while (x != endX || y != endY) {
+					if (0 != directionX && 0 != directionY) {
+						assertTrue(pathfinder.getIsWalkable(x + directionX, y));
+						assertTrue(pathfinder.getIsWalkable(x, y + directionY));
+					}
+					x += directionX;
+					y += directionY;
+					assertTrue(pathfinder.getIsWalkable(x, y));
+				}
+				cost += JumpPointPathfinder.getCost(path[index - 1] % width, path[index - 1] / width, endX, endY);
+			}
+			assertEquals(expectedCost, cost);
+		}
+	}
+	/**
+	 * Returns the cost of the cheapest path, using Dijkstra's algorithm one step at a time, or Integer.MAX_VALUE if no path
+	 * exists.
+	 */
+	private static final int getCost(BitGrid grid, int startX, int startY, int goalX, int goalY) {
+		final int width = grid.getWidth();
+		final int height = grid.getHeight();
+		final int[] costs = new int[width * height];
+		final boolean[] closed = new boolean[width * height];
+		Arrays.fill(costs, Integer.MAX_VALUE);
+		costs[startY * width + startX] = 0;
+		while (true) {
+			int tile = -1;
+			for (int index = 0; costs.length != index; index++) {
+				if (false == closed[index] && Integer.MAX_VALUE != costs[index] &&
+						(-1 == tile || costs[index] < costs[tile])) {
+					tile = index;
+				}
+			}
+			if (-1 == tile) {
+				return Integer.MAX_VALUE;
+			}
+			final int x = tile % width;
+			final int y = tile / width;
+			if (goalX == x && goalY == y) {
+				return costs[tile];
+			}
+			closed[tile] = true;
+			for (int directionY = -1; 2 != directionY; directionY++) {
+				for (int directionX = -1; 2 != directionX; directionX++) {
+					if (false == getIsWalkable(grid, x + directionX, y + directionY) ||
+							(0 != directionX && 0 != directionY && (false == getIsWalkable(grid, x + directionX, y) ||
+									false == getIsWalkable(grid, x, y + directionY)))) {
+						continue;
+					}
+					final int neighbour = (y + directionY) * width + x + directionX;
+					final int cost = costs[tile] +
+							(0 != directionX && 0 != directionY ? JumpPointPathfinder.DIAGONAL_COST :
+									JumpPointPathfinder.STRAIGHT_COST);
+					if (cost < costs[neighbour]) {
+						costs[neighbour] = cost;
+					}
+				}
+			}
+		}
+	}
+	private static final boolean getIsWalkable(BitGrid grid, int x, int y) {
+		return x >= 0 && y >= 0 && x < grid.getWidth() && y < grid.getHeight() && grid.getBit(x, y);
+	}
+	private static final int getRandomWalkableTile(Random random, BitGrid grid) {
+		while (true) {
+			final int x = random.nextInt(grid.getWidth());
+			final int y = random.nextInt(grid.getHeight());
+			if (grid.getBit(x, y)) {
+				return y * grid.getWidth() + x;
+			}
+		}
+	}
+	public final void testMaze() throws Exception {
+		final Random random = new Random(0);
+		// Create a maze of 30 by 15 cells with walls between them, by a randomised depth-first search.
+		final BitGrid grid = new BitGrid(61, 31);
+		final int[] stack = new int[30 * 15];
+		int stackSize = 0;
+		stack[stackSize++] = 0;
+		grid.setBit(1, 1, true);
+		while (0 != stackSize) {
+			final int cell = stack[stackSize - 1];
+			final int cellX = cell % 30;
+			final int cellY = cell / 30;
+			final int[] directions = new int[]{1, 0, -1, 0, 0, 1, 0, -1};
+			final int firstDirection = random.nextInt(4);
+			boolean moved = false;
+			for (int index = 0; 4 != index && false == moved; index++) {
+				final int direction = (firstDirection + index) % 4;
+				final int nextX = cellX + directions[direction << 1];
+				final int nextY = cellY + directions[(direction << 1) + 1];
+				if (nextX >= 0 && nextY >= 0 && nextX < 30 && nextY < 15 &&
+						false == grid.getBit(nextX * 2 + 1, nextY * 2 + 1)) {
+					grid.setBit(cellX + nextX + 1, cellY + nextY + 1, true);
+					grid.setBit(nextX * 2 + 1, nextY * 2 + 1, true);
+					stack[stackSize++] = nextY * 30 + nextX;
+					moved = true;
+				}
+			}
+			if (false == moved) {
+				stackSize--;
+			}
+		}
+		checkPaths(random, grid, 30);
+	}
+	public final void testOpenField() throws Exception {
+		final Random random = new Random(0);
+		final BitGrid grid = new BitGrid(150, 40);
+		for (int y = 0; 40 != y; y++) {
+			for (int x = 0; 150 != x; x++) {
+				grid.setBit(x, y, true);
+			}
+		}
+		// Add a few walls.
+		for (int y = 5; 35 != y; y++) {
+			grid.setBit(70, y, false);
+			grid.setBit(128, 39 - y, false);
+		}
+		checkPaths(random, grid, 10);
+	}
+	public final void testRandomObstacles() throws Exception {
+		final Random random = new Random(0);
+		for (int gridIndex = 0; 10 != gridIndex; gridIndex++) {
+			final BitGrid grid = new BitGrid(20 + random.nextInt(80), 10 + random.nextInt(30));
+			for (int y = 0; grid.getHeight() != y; y++) {
+				for (int x = 0; grid.getWidth() != x; x++) {
+					grid.setBit(x, y, random.nextFloat() < .7f);
+				}
+			}
+			checkPaths(random, grid, 20);
+		}
+	}
+	public final void testSetWalkable() throws Exception {
+		final BitGrid grid = new BitGrid(10, 3);
+		for (int x = 0; 10 != x; x++) {
+			grid.setBit(x, 1, true);
+		}
+		final JumpPointPathfinder pathfinder = new JumpPointPathfinder(grid);
+		final int[] path = new int[10];
+		assertEquals(2, pathfinder.findPath(0, 1, 9, 1, path));
+		assertEquals(10, path[0]);
+		assertEquals(19, path[1]);
+		pathfinder.setWalkable(5, 1, false);
+		assertEquals(JumpPointPathfinder.NONE, pathfinder.findPath(0, 1, 9, 1, path));
+		pathfinder.setWalkable(5, 0, true);
+		pathfinder.setWalkable(4, 0, true);
+		pathfinder.setWalkable(6, 0, true);
+		assertFalse(JumpPointPathfinder.NONE == pathfinder.findPath(0, 1, 9, 1, path));
+	}
+}